@@ -0,0 +1,224 @@
+package nl.rgonline.homewizardlib;
+
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+
+/**
+ * Canned HomeWizard responses for the benchmarks. Each fixture repeats the entries of a real response, so the
+ * size can be scaled to a realistic installation. The output is deterministic for a given size.
+ * @author pdegeus
+ */
+public final class Fixtures {
+
+    private static final String[] SWITCH_TYPES = {"switch", "dimmer", "hue"};
+    private static final String[] SENSOR_TYPES = {"contact", "doorbell", "motion", "smoke"};
+
+    private Fixtures() {
+    }
+
+    /**
+     * @param count Number of switches.
+     * @return A {@code /swlist} response with the given number of switches, alternating switch types.
+     */
+    public static String switchList(int count) {
+        StringBuilder json = new StringBuilder("{\"status\": \"ok\", \"version\": \"2.493\", \"request\": {\"route\": \"/swlist\"}, \"response\": [");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            String type = SWITCH_TYPES[i % SWITCH_TYPES.length];
+            json.append("{\"id\": ").append(i)
+                .append(", \"name\": \"Switch ").append(i)
+                .append("\", \"type\": \"").append(type)
+                .append("\", \"status\": \"").append(onOff(i))
+                .append("\", \"favorite\": \"").append(yesNo(i % 5 == 0)).append('"');
+            appendSwitchDetails(json, type, i);
+            json.append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * @param switchCount Number of switches.
+     * @param sensorCount Number of sensors.
+     * @return A {@code /get-status} response with the given number of switches and sensors.
+     */
+    public static String status(int switchCount, int sensorCount) {
+        StringBuilder json = new StringBuilder("{\"status\": \"ok\", \"version\": \"2.493\", \"request\": {\"route\": \"/get-status\"}, \"response\": {");
+        json.append("\"preset\": 0, \"time\": \"2013-08-13 21:25\", \"switches\": [");
+        for (int i = 0; i < switchCount; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            String type = SWITCH_TYPES[i % SWITCH_TYPES.length];
+            json.append("{\"id\": ").append(i)
+                .append(", \"type\": \"").append(type)
+                .append("\", \"status\": \"").append(onOff(i + 1)).append('"');
+            appendSwitchDetails(json, type, i + 1);
+            json.append('}');
+        }
+        json.append("], \"uvmeters\": [], \"windmeters\": [], \"rainmeters\": [], \"thermometers\": [], \"kakusensors\": [");
+        for (int i = 0; i < sensorCount; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\": ").append(i)
+                .append(", \"status\": \"").append(yesNo(i % 2 == 0))
+                .append("\", \"timestamp\": \"").append(time(i)).append("\"}");
+        }
+        return json.append("]}}").toString();
+    }
+
+    /**
+     * @param count Number of sensors.
+     * @return A {@code /get-sensors} response with the given number of sensors, alternating sensor types.
+     */
+    public static String sensors(int count) {
+        StringBuilder json = new StringBuilder("{\"status\": \"ok\", \"version\": \"2.493\", \"request\": {\"route\": \"/get-sensors\"}, \"response\": {");
+        json.append("\"switches\": [], \"scenes\": [], \"cameras\": [], \"thermometers\": [], \"kakusensors\": [");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\": ").append(i)
+                .append(", \"name\": \"Sensor ").append(i)
+                .append("\", \"status\": \"").append(yesNo(i % 2 == 0))
+                .append("\", \"type\": \"").append(SENSOR_TYPES[i % SENSOR_TYPES.length])
+                .append("\", \"favorite\": \"").append(yesNo(i % 7 == 0))
+                .append("\", \"timestamp\": \"").append(time(i)).append("\"}");
+        }
+        return json.append("]}}").toString();
+    }
+
+    /**
+     * @param count Number of thermometers.
+     * @return A {@code /telist} response with the given number of thermometers, all with min/max data.
+     */
+    public static String thermoList(int count) {
+        StringBuilder json = new StringBuilder("{\"status\": \"ok\", \"version\": \"2.493\", \"request\": {\"route\": \"/telist\"}, \"response\": [");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\": ").append(i)
+                .append(", \"name\": \"Thermo ").append(i)
+                .append("\", \"favorite\": \"no\", \"channel\": ").append(i % 8 + 1)
+                .append(", \"te\": ").append(temperature(i))
+                .append(", \"hu\": ").append(humidity(i))
+                .append(", \"te+\": ").append(temperature(i + 3))
+                .append(", \"te+t\": \"").append(time(i + 3))
+                .append("\", \"te-\": ").append(temperature(i + 7))
+                .append(", \"te-t\": \"").append(time(i + 7))
+                .append("\", \"hu+\": ").append(humidity(i + 3))
+                .append(", \"hu+t\": \"").append(time(i + 3))
+                .append("\", \"hu-\": ").append(humidity(i + 7))
+                .append(", \"hu-t\": \"").append(time(i + 7)).append("\"}");
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * Creates a {@code /te/graph/<id>/<timespan>} response. Single value points are 15 minutes apart, which is what
+     * the HomeWizard returns for a day; min/max points are a day apart, which is what it returns for a year.
+     * @param points Number of data points.
+     * @param minMax True for min/max points, false for single value points.
+     * @return A thermometer graph response.
+     */
+    public static String thermoGraph(int points, boolean minMax) {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm");
+        Calendar cal = new GregorianCalendar(2013, Calendar.JANUARY, 1);
+        int field = minMax ? Calendar.DAY_OF_MONTH : Calendar.MINUTE;
+        int step = minMax ? 1 : 15;
+
+        StringBuilder json = new StringBuilder("{\"status\": \"ok\", \"version\": \"2.493\", \"request\": {\"route\": \"/te\"}, \"response\": [");
+        for (int i = 0; i < points; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"t\": \"").append(format.format(cal.getTime())).append('"');
+            if (minMax) {
+                json.append(", \"te+\": ").append(temperature(i + 3))
+                    .append(", \"te-\": ").append(temperature(i))
+                    .append(", \"hu+\": ").append(humidity(i + 3))
+                    .append(", \"hu-\": ").append(humidity(i));
+            } else {
+                json.append(", \"te\": ").append(temperature(i))
+                    .append(", \"hu\": ").append(humidity(i));
+            }
+            json.append('}');
+            cal.add(field, step);
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * @param events Number of log events.
+     * @return A {@code /kks/get/<id>/log} response with events 10 minutes apart.
+     */
+    public static String sensorLog(int events) {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        Calendar cal = new GregorianCalendar(2013, Calendar.JANUARY, 1);
+
+        StringBuilder json = new StringBuilder("{\"status\": \"ok\", \"version\": \"2.493\", \"request\": {\"route\": \"/kks\"}, \"response\": [");
+        for (int i = 0; i < events; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"t\": \"").append(format.format(cal.getTime()))
+                .append("\", \"status\": \"").append(yesNo(i % 2 == 0)).append("\"}");
+            cal.add(Calendar.SECOND, 600 + i % 60);
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * Generates timestamps as used in graphs and logs, 10 minutes and a few seconds apart.
+     * @param count Number of timestamps.
+     * @param seconds True for the log format including seconds, false for the graph format.
+     * @return The timestamps.
+     */
+    public static String[] timestamps(int count, boolean seconds) {
+        SimpleDateFormat format = new SimpleDateFormat(seconds ? "yyyy-MM-dd HH:mm:ss" : "yyyy-MM-dd HH:mm");
+        Calendar cal = new GregorianCalendar(2013, Calendar.JANUARY, 1);
+
+        String[] timestamps = new String[count];
+        for (int i = 0; i < count; i++) {
+            timestamps[i] = format.format(cal.getTime());
+            cal.add(Calendar.SECOND, 600 + i % 60);
+        }
+        return timestamps;
+    }
+
+    private static void appendSwitchDetails(StringBuilder json, String type, int seed) {
+        if ("dimmer".equals(type)) {
+            json.append(", \"dimlevel\": ").append(seed * 7 % 100);
+        } else if ("hue".equals(type)) {
+            json.append(", \"hue_id\": 0, \"light_id\": ").append(seed % 50)
+                .append(", \"color\": {\"hue\": ").append(seed * 13 % 360)
+                .append(", \"sat\": ").append(seed * 17 % 100)
+                .append(", \"bri\": ").append(seed * 19 % 100).append('}');
+        }
+    }
+
+    private static String onOff(int seed) {
+        return (seed % 3 == 0) ? "on" : "off";
+    }
+
+    private static String yesNo(boolean value) {
+        return value ? "yes" : "no";
+    }
+
+    private static String time(int seed) {
+        return String.format("%02d:%02d", seed % 24, seed * 7 % 60);
+    }
+
+    private static String temperature(int seed) {
+        return String.valueOf((150 + seed * 37 % 120) / 10.0);
+    }
+
+    private static int humidity(int seed) {
+        return 40 + seed * 11 % 50;
+    }
+
+}
@@ -0,0 +1,68 @@
+package nl.rgonline.homewizardlib.connection;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import nl.rgonline.homewizardlib.Fixtures;
+import nl.rgonline.homewizardlib.exceptions.HWException;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks parsing complete responses with {@link HWConnection#parse(String)}, and streaming the same responses
+ * with {@link StreamingResponseParser}.
+ * @author pdegeus
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ParseBenchmark {
+
+    @Param({"20", "200", "500"})
+    private int switches;
+
+    private String status;
+    private String switchList;
+
+    @Setup
+    public void setup() {
+        status = Fixtures.status(switches, switches / 4);
+        switchList = Fixtures.switchList(switches);
+    }
+
+    @Benchmark
+    public JSONObject parseStatus() throws HWException {
+        return HWConnection.parse(status);
+    }
+
+    @Benchmark
+    public JSONObject parseSwitchList() throws HWException {
+        return HWConnection.parse(switchList);
+    }
+
+    @Benchmark
+    public void streamSwitchList(final Blackhole blackhole) throws HWException {
+        StreamingResponseParser.parse(new StringReader(switchList), new ResponseItemHandler() {
+            @Override
+            public void handle(JSONObject item) {
+                blackhole.consume(item);
+            }
+        });
+    }
+
+}
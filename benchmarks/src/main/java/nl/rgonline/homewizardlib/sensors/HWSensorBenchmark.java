@@ -0,0 +1,66 @@
+package nl.rgonline.homewizardlib.sensors;
+
+import java.io.StringReader;
+import java.util.Date;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import nl.rgonline.homewizardlib.Fixtures;
+import nl.rgonline.homewizardlib.connection.HWConnection;
+import nl.rgonline.homewizardlib.connection.StreamingResponseParser;
+import nl.rgonline.homewizardlib.exceptions.HWException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks reading a sensor event log, from response body to the log map.
+ * @author pdegeus
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class HWSensorBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int events;
+
+    private HWConnection connection;
+    private HWSensor sensor;
+
+    private String sensorLog;
+
+    @Setup
+    public void setup() {
+        sensorLog = Fixtures.sensorLog(events);
+
+        connection = new HWConnection("localhost", 80, "benchmark");
+        sensor = new HWSensor(connection, 1, "Voordeur", SensorType.CONTACT, "10:22", false, false);
+    }
+
+    @TearDown
+    public void tearDown() {
+        connection.close();
+    }
+
+    @Benchmark
+    public TreeMap<Date, Boolean> loadLog() throws HWException {
+        TreeMap<Date, Boolean> log = new TreeMap<>();
+        StreamingResponseParser.parse(new StringReader(sensorLog), sensor.newLogHandler(log));
+        return log;
+    }
+
+}
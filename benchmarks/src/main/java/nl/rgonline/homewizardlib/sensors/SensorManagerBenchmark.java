@@ -0,0 +1,72 @@
+package nl.rgonline.homewizardlib.sensors;
+
+import java.util.concurrent.TimeUnit;
+
+import nl.rgonline.homewizardlib.Fixtures;
+import nl.rgonline.homewizardlib.connection.HWConnection;
+import nl.rgonline.homewizardlib.exceptions.HWException;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks applying {@code /get-status} snapshots to the loaded sensors, from response body to entities.
+ * @author pdegeus
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SensorManagerBenchmark {
+
+    @Param({"10", "100", "250"})
+    private int sensors;
+
+    private HWConnection connection;
+    private SensorManager manager;
+
+    private String status;
+
+    @Setup
+    public void setup() throws HWException {
+        status = Fixtures.status(0, sensors);
+
+        connection = new HWConnection("localhost", 80, "benchmark");
+        manager = new SensorManager(connection);
+        manager.loadSensors(parse(Fixtures.sensors(sensors)).optJSONObject("response"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        connection.close();
+    }
+
+    @Benchmark
+    public long updateStatus() throws HWException {
+        manager.applyStatus(parse(status).optJSONObject("response"));
+        return manager.getVersion();
+    }
+
+    private static JSONObject parse(String json) throws HWException {
+        try {
+            return new JSONObject(json);
+        } catch (JSONException e) {
+            throw new HWException("Invalid fixture", e);
+        }
+    }
+
+}
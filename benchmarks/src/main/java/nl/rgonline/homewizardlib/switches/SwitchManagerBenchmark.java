@@ -0,0 +1,81 @@
+package nl.rgonline.homewizardlib.switches;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import nl.rgonline.homewizardlib.Fixtures;
+import nl.rgonline.homewizardlib.connection.HWConnection;
+import nl.rgonline.homewizardlib.exceptions.HWException;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks loading the switch list and applying {@code /get-status} snapshots, from response body to entities.
+ * @author pdegeus
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SwitchManagerBenchmark {
+
+    @Param({"20", "200", "500"})
+    private int switches;
+
+    private HWConnection connection;
+    private SwitchManager manager;
+
+    private String switchList;
+    private String status;
+
+    @Setup
+    public void setup() throws HWException {
+        switchList = Fixtures.switchList(switches);
+        status = Fixtures.status(switches, 0);
+
+        connection = new HWConnection("localhost", 80, "benchmark");
+        manager = new SwitchManager(connection);
+        manager.loadSwitches(parse(switchList));
+    }
+
+    @TearDown
+    public void tearDown() {
+        connection.close();
+    }
+
+    @Benchmark
+    public Map<Integer, HWSwitch> init() throws HWException {
+        manager.loadSwitches(parse(switchList));
+        return manager.getEntityMap();
+    }
+
+    @Benchmark
+    public Map<Integer, HWSwitch> updateStatus() throws HWException {
+        manager.applyStatus(parse(status).optJSONObject("response"));
+        return manager.getEntityMap();
+    }
+
+    private static JSONObject parse(String json) throws HWException {
+        try {
+            return new JSONObject(json);
+        } catch (JSONException e) {
+            throw new HWException("Invalid fixture", e);
+        }
+    }
+
+}
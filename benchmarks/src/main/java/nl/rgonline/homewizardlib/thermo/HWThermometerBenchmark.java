@@ -0,0 +1,75 @@
+package nl.rgonline.homewizardlib.thermo;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import nl.rgonline.homewizardlib.Fixtures;
+import nl.rgonline.homewizardlib.connection.HWConnection;
+import nl.rgonline.homewizardlib.connection.StreamingResponseParser;
+import nl.rgonline.homewizardlib.exceptions.HWException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks reading thermometer graphs, from response body to the data point series.
+ * @author pdegeus
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class HWThermometerBenchmark {
+
+    /** Graph shape: a day and a week of 15 minute values, or a year of daily min/max values. */
+    @Param({"DAY", "WEEK", "YEAR"})
+    private TimeSpan timeSpan;
+
+    private HWConnection connection;
+    private HWThermometer thermo;
+
+    private String graph;
+
+    @Setup
+    public void setup() {
+        switch (timeSpan) {
+            case DAY:
+                graph = Fixtures.thermoGraph(96, false);
+                break;
+            case WEEK:
+                graph = Fixtures.thermoGraph(7 * 96, false);
+                break;
+            default:
+                graph = Fixtures.thermoGraph(365, true);
+                break;
+        }
+
+        connection = new HWConnection("localhost", 80, "benchmark");
+        thermo = new HWThermometer(connection, 1, "Buiten", false, 1);
+    }
+
+    @TearDown
+    public void tearDown() {
+        connection.close();
+    }
+
+    @Benchmark
+    public ThermoSeries loadData() throws HWException {
+        ThermoSeries.Builder builder = new ThermoSeries.Builder();
+        StreamingResponseParser.parse(new StringReader(graph), thermo.newDataHandler(builder));
+        return builder.build();
+    }
+
+}
@@ -0,0 +1,72 @@
+package nl.rgonline.homewizardlib.thermo;
+
+import java.util.concurrent.TimeUnit;
+
+import nl.rgonline.homewizardlib.Fixtures;
+import nl.rgonline.homewizardlib.connection.HWConnection;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks copying {@code /telist} data into thermometers with {@link ThermoManager#setData}.
+ * @author pdegeus
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ThermoManagerBenchmark {
+
+    @Param({"4", "16", "64"})
+    private int thermometers;
+
+    private HWConnection connection;
+    private ThermoManager manager;
+
+    private JSONObject[] thermoJson;
+    private HWThermometer[] thermos;
+
+    @Setup
+    public void setup() throws JSONException {
+        connection = new HWConnection("localhost", 80, "benchmark");
+        manager = new ThermoManager(connection);
+
+        JSONArray list = new JSONObject(Fixtures.thermoList(thermometers)).getJSONArray("response");
+        thermoJson = new JSONObject[list.length()];
+        thermos = new HWThermometer[list.length()];
+        for (int i = 0; i < thermoJson.length; i++) {
+            thermoJson[i] = list.getJSONObject(i);
+            thermos[i] = new HWThermometer(connection, i, "Thermo " + i, false, i + 1);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        connection.close();
+    }
+
+    @Benchmark
+    public HWThermometer[] setData() {
+        for (int i = 0; i < thermos.length; i++) {
+            manager.setData(thermos[i], thermoJson[i]);
+        }
+        return thermos;
+    }
+
+}
@@ -0,0 +1,77 @@
+package nl.rgonline.homewizardlib.util;
+
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import nl.rgonline.homewizardlib.Fixtures;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks parsing graph and log timestamps using the {@link TimestampParser}, compared to the SimpleDateFormat
+ * previously held by each thermometer and sensor. Run with {@code -prof gc} to compare allocation rates as well.
+ * @author pdegeus
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@OperationsPerInvocation(TimestampParserBenchmark.COUNT)
+public class TimestampParserBenchmark {
+
+    static final int COUNT = 1000;
+
+    @Param({"false", "true"})
+    private boolean seconds;
+
+    @Param({"Europe/Amsterdam"})
+    private String timeZone;
+
+    private String[] timestamps;
+    private DateFormat dateFormat;
+    private TimestampParser parser;
+
+    @Setup
+    public void setup() {
+        timestamps = Fixtures.timestamps(COUNT, seconds);
+
+        dateFormat = new SimpleDateFormat(seconds ? "yyyy-MM-dd HH:mm:ss" : "yyyy-MM-dd HH:mm");
+        dateFormat.setTimeZone(TimeZone.getTimeZone(timeZone));
+        parser = new TimestampParser(TimeZone.getTimeZone(timeZone));
+    }
+
+    @Benchmark
+    public long simpleDateFormat() throws ParseException {
+        long sum = 0;
+        for (String timestamp : timestamps) {
+            sum += dateFormat.parse(timestamp).getTime();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long timestampParser() throws ParseException {
+        long sum = 0;
+        for (String timestamp : timestamps) {
+            sum += parser.parse(timestamp);
+        }
+        return sum;
+    }
+
+}
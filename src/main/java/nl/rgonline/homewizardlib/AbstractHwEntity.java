@@ -1,11 +1,16 @@
 package nl.rgonline.homewizardlib;
 
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
 import lombok.AccessLevel;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.Setter;
 import lombok.ToString;
 import nl.rgonline.homewizardlib.connection.HWConnection;
+import nl.rgonline.homewizardlib.connection.ResponseCallback;
 import nl.rgonline.homewizardlib.exceptions.HWException;
 
 /**
@@ -67,4 +72,32 @@ public abstract class AbstractHwEntity {
         lastUpdate = System.currentTimeMillis();
     }
 
+    /**
+     * Copies the loaded values of the given entity into this entity, so existing instances can be kept when the
+     * entity list is reloaded. Subclasses copy their own values and call this method.
+     * @param loaded Freshly loaded entity with the same ID and class.
+     * @return True if any value changed.
+     */
+    protected boolean updateFrom(AbstractHwEntity loaded) {
+        boolean changed = !Objects.equals(name, loaded.name) || favorite != loaded.favorite;
+        name = loaded.name;
+        favorite = loaded.favorite;
+        return changed;
+    }
+
+    /**
+     * Asynchronous variant of {@link #saveChanges()}.
+     * @param callback Callback to notify on completion, or null.
+     * @return Future completing when the changes are saved.
+     */
+    public Future<Void> saveChangesAsync(ResponseCallback<Void> callback) {
+        return connection.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws HWException {
+                saveChanges();
+                return null;
+            }
+        }, callback);
+    }
+
 }
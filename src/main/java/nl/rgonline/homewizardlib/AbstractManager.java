@@ -1,20 +1,55 @@
 package nl.rgonline.homewizardlib;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
+import lombok.extern.slf4j.Slf4j;
+import nl.rgonline.homewizardlib.config.HWConfig;
+import nl.rgonline.homewizardlib.connection.HWConnection;
+import nl.rgonline.homewizardlib.connection.ResponseCallback;
 import nl.rgonline.homewizardlib.exceptions.HWException;
 
+import org.json.JSONException;
+import org.json.JSONObject;
+
 /**
  * Abstract parent of all HomeWizard entity managers.
  * @param <T> Type of the managed entities.
  * @author pdegeus
  */
+@Slf4j
 public abstract class AbstractManager<T extends AbstractHwEntity> implements Refreshable {
 
     private final long updateInterval;
-    private Long lastStatusUpdate = null;
+    private final AdaptiveInterval adaptiveInterval;
+    private volatile long lastStatusUpdate = 0;
+    private volatile long observedVersion = 0;
+    private volatile boolean polled = false;
+    private volatile Runnable intervalTightenedHook = null;
+
+    private volatile EntitySnapshot<T> snapshot = null;
+    private final Object publishLock = new Object();
+    private final AtomicBoolean statusChanged = new AtomicBoolean(false);
+    private volatile RefreshResult<T> lastRefresh = null;
+
+    private final AtomicBoolean refreshing = new AtomicBoolean(false);
+    private final Object refreshLock = new Object();
+    private final AtomicLong refreshCount = new AtomicLong();
+    private final AtomicLong contendedCount = new AtomicLong();
+    private final AtomicLong waitCount = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+
+    private final List<HWChangeListener<T>> changeListeners = new CopyOnWriteArrayList<>();
 
     /**
      * Constructor.
@@ -23,6 +58,25 @@ public abstract class AbstractManager<T extends AbstractHwEntity> implements Ref
      */
     public AbstractManager(int updateInterval) {
         this.updateInterval = updateInterval;
+        this.adaptiveInterval = null;
+    }
+
+    /**
+     * Constructor for managers of which the update interval adapts to the observed rate of change, if enabled by
+     * {@link HWConfig#ADAPTIVE_INTERVALS}. Otherwise, the fixed update interval is used.
+     * @param updateInterval The initial interval (in milliseconds) between reloading the current entity statuses.
+     * @param minInterval Minimum adaptive interval in milliseconds.
+     * @param maxInterval Maximum adaptive interval in milliseconds.
+     */
+    public AbstractManager(int updateInterval, int minInterval, int maxInterval) {
+        this.updateInterval = updateInterval;
+        if (updateInterval > -1 && HWConfig.ADAPTIVE_INTERVALS.getValue()) {
+            this.adaptiveInterval = new AdaptiveInterval(
+                updateInterval, minInterval, maxInterval, HWConfig.ADAPTIVE_BACKOFF_FACTOR.getValue()
+            );
+        } else {
+            this.adaptiveInterval = null;
+        }
     }
 
     /**
@@ -32,25 +86,277 @@ public abstract class AbstractManager<T extends AbstractHwEntity> implements Ref
     protected abstract void updateStatus() throws HWException;
 
     /**
-     * @return The map containing all entities for this manager by ID.
+     * @return The map containing all entities for this manager by ID, or null if not initialized.
+     */
+    protected Map<Integer, T> getEntityMap() {
+        EntitySnapshot<T> current = snapshot;
+        return (current == null) ? null : current.getById();
+    }
+
+    /**
+     * Returns the type of the given entity, used to index the entities by type. Managers with typed entities, such as
+     * switches and sensors, override this method.
+     * @param entity The entity.
+     * @return The entity type, or null if the entities of this manager are not typed.
+     */
+    protected Enum<?> getEntityType(T entity) {
+        return null;
+    }
+
+    /**
+     * Publishes a new snapshot containing the given entities, reconciled by ID with the currently known entities.
+     * Entities that already exist are updated in place and kept, so references to them, and any data they cached,
+     * remain valid. A new snapshot version is only published if anything changed.
+     * @param loaded The loaded entities by ID.
+     * @return The added, removed and changed entities. On the first load, all entities are added.
+     */
+    protected RefreshResult<T> publish(Map<Integer, T> loaded) {
+        synchronized (publishLock) {
+            return merge(loaded);
+        }
+    }
+
+    /**
+     * Reconciles and publishes the given entities. Must only be called while holding the publish lock.
+     */
+    private RefreshResult<T> merge(Map<Integer, T> loaded) {
+        EntitySnapshot<T> current = snapshot;
+        Map<Integer, T> merged = new HashMap<>();
+        List<T> added = new ArrayList<>();
+        List<T> removed = new ArrayList<>();
+        List<T> changed = new ArrayList<>();
+
+        for (Map.Entry<Integer, T> entry : loaded.entrySet()) {
+            T entity = entry.getValue();
+            T existing = (current == null) ? null : current.get(entry.getKey());
+
+            if (existing != null && existing.getClass() == entity.getClass()) {
+                if (existing.updateFrom(entity)) {
+                    existing.updated();
+                    changed.add(existing);
+                }
+                merged.put(entry.getKey(), existing);
+            } else {
+                // New entity, or an existing one that changed type
+                if (existing != null) {
+                    removed.add(existing);
+                }
+                added.add(entity);
+                merged.put(entry.getKey(), entity);
+            }
+        }
+
+        if (current != null) {
+            for (T existing : current.getEntities()) {
+                if (!loaded.containsKey(existing.getId())) {
+                    removed.add(existing);
+                }
+            }
+        }
+
+        RefreshResult<T> result = new RefreshResult<>(
+            Collections.unmodifiableList(added), Collections.unmodifiableList(removed),
+            Collections.unmodifiableList(changed)
+        );
+        boolean changedStatus = statusChanged.getAndSet(false);
+        if (current == null || result.hasChanges() || changedStatus) {
+            long version = (current == null) ? 1 : current.getVersion() + 1;
+            snapshot = new EntitySnapshot<>(version, merged, this);
+        }
+        lastRefresh = result;
+        return result;
+    }
+
+    /**
+     * Publishes a new snapshot version if the state of any entity changed since the last snapshot, as reported to
+     * {@link #fireIfChanged}. Called at the end of each status update, which may run concurrently with
+     * {@link #publish(Map)}; both publish under the same lock, so neither overwrites the snapshot of the other.
+     */
+    protected void publishStatus() {
+        synchronized (publishLock) {
+            EntitySnapshot<T> current = snapshot;
+            if (current != null && statusChanged.getAndSet(false)) {
+                snapshot = current.nextVersion();
+            }
+        }
+    }
+
+    /**
+     * @return The connection used by this manager.
+     */
+    protected abstract HWConnection getConnection();
+
+    /**
+     * Writes the state of the loaded entities, including any cached data such as logs, so a new instance can be
+     * started from it using {@link #readState(JSONObject)}. Where possible, the format of the HomeWizard responses
+     * is used, so the state is read back by the regular parsers.
+     * @return The state, or null if this manager does not support warm starts.
+     * @throws JSONException On any JSON error.
+     */
+    protected JSONObject writeState() throws JSONException {
+        return null;
+    }
+
+    /**
+     * Loads the entities from a state written by {@link #writeState()}, instead of from the HomeWizard.
+     * @param state The state to load.
+     * @throws HWException On any JSON error.
+     */
+    protected void readState(JSONObject state) throws HWException {
+    }
+
+    /**
+     * @return The state written by {@link #writeState()}, or null if nothing is loaded or not supported.
+     * @throws JSONException On any JSON error.
+     */
+    JSONObject saveState() throws JSONException {
+        return (snapshot == null) ? null : writeState();
+    }
+
+    /**
+     * Loads the entities from the given state. The restored statuses are used until the update interval expires.
+     * @param state State written by {@link #saveState()}.
+     * @throws HWException On any JSON error.
      */
-    protected abstract Map<Integer, T> getEntityMap();
+    void restoreState(JSONObject state) throws HWException {
+        readState(state);
+        lastStatusUpdate = System.currentTimeMillis();
+    }
+
+    /**
+     * Returns the current effective update interval. If the interval is adaptive, it changes with the observed rate
+     * of change.
+     * @return Update interval in milliseconds, or -1 if status updates are not supported.
+     */
+    public long getUpdateInterval() {
+        AdaptiveInterval adaptive = adaptiveInterval;
+        return (adaptive == null) ? updateInterval : adaptive.getInterval();
+    }
+
+    /**
+     * @return True if the update interval adapts to the observed rate of change.
+     */
+    public boolean isAdaptiveInterval() {
+        return adaptiveInterval != null;
+    }
 
     /**
-     * @return Update interval in milliseconds.
+     * Tightens the update interval to its minimum, if adaptive. Managers call this after a command that is likely to
+     * change the status, such as switching a switch, so the result is seen quickly.
      */
-    protected long getUpdateInterval() {
-        return updateInterval;
+    protected void tightenUpdateInterval() {
+        if (adaptiveInterval != null && adaptiveInterval.tighten()) {
+            Runnable hook = intervalTightenedHook;
+            if (hook != null) {
+                hook.run();
+            }
+        }
+    }
+
+    /**
+     * Sets the hook called when the update interval was tightened, used by the {@link StatusPoller} to poll sooner.
+     * @param hook Hook to run, or null.
+     */
+    void setIntervalTightenedHook(Runnable hook) {
+        this.intervalTightenedHook = hook;
+    }
+
+    /**
+     * @return Interval in milliseconds between background status updates, or -1 if the status is not polled.
+     */
+    protected long getPollInterval() {
+        return getUpdateInterval();
+    }
+
+    /**
+     * @return True if the status of this manager is refreshed by a {@link StatusPoller}, instead of on read.
+     */
+    public boolean isPolled() {
+        return polled;
+    }
+
+    /**
+     * Switches between refreshing the status on read, and only returning the state published by a poller.
+     * @param polled True if a {@link StatusPoller} refreshes the status of this manager.
+     */
+    void setPolled(boolean polled) {
+        this.polled = polled;
+    }
+
+    /**
+     * Unconditionally updates the status of this manager, initializing it first if needed. Called by the
+     * {@link StatusPoller} on each poll.
+     * @throws HWException On any IO or JSON error.
+     */
+    void poll() throws HWException {
+        if (!refreshing.compareAndSet(false, true)) {
+            // A reader is refreshing right now
+            return;
+        }
+
+        try {
+            refreshStatus();
+        } finally {
+            releaseRefresh();
+        }
+    }
+
+    /**
+     * Registers a listener for state changes of the entities of this manager, such as a switch turning on. Changes
+     * are detected while updating the statuses, so this requires reading or polling the manager.
+     * @param listener Listener to add.
+     */
+    public void addChangeListener(HWChangeListener<T> listener) {
+        changeListeners.add(listener);
+    }
+
+    /**
+     * Removes a listener added with {@link #addChangeListener(HWChangeListener)}.
+     * @param listener Listener to remove.
+     */
+    public void removeChangeListener(HWChangeListener<T> listener) {
+        changeListeners.remove(listener);
+    }
+
+    /**
+     * Notifies all change listeners if the given values differ, and marks the status as changed for the next
+     * {@link #publishStatus()}.
+     * @param entity The updated entity.
+     * @param type Type of the change.
+     * @param oldValue Value before the update.
+     * @param newValue Value after the update.
+     */
+    protected void fireIfChanged(T entity, HWChangeType type, Object oldValue, Object newValue) {
+        if (Objects.equals(oldValue, newValue)) {
+            return;
+        }
+
+        statusChanged.set(true);
+        if (changeListeners.isEmpty()) {
+            return;
+        }
+
+        HWChangeEvent<T> event = new HWChangeEvent<>(entity, type, oldValue, newValue);
+        for (HWChangeListener<T> listener : changeListeners) {
+            try {
+                listener.changed(event);
+            } catch (RuntimeException e) {
+                log.warn("Change listener failed on {}", event, e);
+            }
+        }
     }
 
     /**
      * Force a refresh of all data managed by this manager. This does not only update the
      * status of the entities (such as sensor state, which is done automatically), but also
-     * reloads the entity list.
+     * reloads the entity list. Entities are reconciled by ID: existing instances are updated in place and keep any
+     * cached data, such as sensor logs and thermometer graphs.
+     * @return The added, removed and changed entities.
      * @throws HWException On any IO or JSON error.
      */
-    public void refresh() throws HWException {
+    public synchronized RefreshResult<T> refresh() throws HWException {
         init(true);
+        return lastRefresh;
     }
 
     /**
@@ -58,38 +364,150 @@ public abstract class AbstractManager<T extends AbstractHwEntity> implements Ref
      * Updating the status does not reload all data (as {@link #refresh()} does), but only reloads the state of currently
      * known HW entities, such as sensors. Hence, entities added to the HW in the meantime will not be seen.
      * <p/>
-     * Access to this method is synchronized to ensure calls from different threads will not result in duplicate updates.
+     * Only one thread refreshes at a time. Other threads calling this method meanwhile return immediately, using the
+     * current state, unless nothing has been loaded yet. In that case they wait for the refreshing thread.
      * @throws HWException On any IO or JSON error.
      */
-    public synchronized void updateStatusIfExpired() throws HWException {
+    public void updateStatusIfExpired() throws HWException {
+        while (snapshot == null || isStatusExpired()) {
+            if (refreshing.compareAndSet(false, true)) {
+                try {
+                    // Check again, another thread may just have completed a refresh
+                    if (snapshot == null || isStatusExpired()) {
+                        refreshStatus();
+                    }
+                } finally {
+                    releaseRefresh();
+                }
+                return;
+            }
+
+            contendedCount.incrementAndGet();
+            if (snapshot != null) {
+                return;
+            }
+
+            // Nothing loaded yet, wait for the refreshing thread. If it fails, try again ourselves.
+            awaitRefresh();
+        }
+    }
+
+    /**
+     * @return Statistics on the status refreshes of this manager and the threads contending for them.
+     */
+    public RefreshStats getRefreshStats() {
+        return new RefreshStats(
+            refreshCount.get(), contendedCount.get(), waitCount.get(), TimeUnit.NANOSECONDS.toMillis(waitNanos.get())
+        );
+    }
+
+    private boolean isStatusExpired() {
+        return updateInterval > -1 && (System.currentTimeMillis() - lastStatusUpdate >= getUpdateInterval());
+    }
+
+    /**
+     * Initializes this manager if needed, and updates the status. Must only be called while holding the refresh claim.
+     * @throws HWException On any IO or JSON error.
+     */
+    private void refreshStatus() throws HWException {
+        refreshCount.incrementAndGet();
         init(false);
 
         if (updateInterval > -1) {
             long now = System.currentTimeMillis();
-            if (lastStatusUpdate == null || (now - lastStatusUpdate >= updateInterval)) {
-                updateStatus();
-                lastStatusUpdate = now;
+            updateStatus();
+            lastStatusUpdate = now;
+            adaptInterval();
+        }
+    }
+
+    /**
+     * Tightens the adaptive interval if a new snapshot was published since the previous status update, which includes
+     * changes applied from status responses requested by other managers, or backs off otherwise. The initial load is
+     * not counted as a change.
+     */
+    private void adaptInterval() {
+        long version = getVersion();
+        if (adaptiveInterval != null && observedVersion != 0) {
+            if (version != observedVersion) {
+                adaptiveInterval.tighten();
+            } else {
+                adaptiveInterval.backOff();
             }
         }
+        observedVersion = version;
+    }
+
+    private void releaseRefresh() {
+        refreshing.set(false);
+        synchronized (refreshLock) {
+            refreshLock.notifyAll();
+        }
+    }
+
+    private void awaitRefresh() throws HWException {
+        waitCount.incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            synchronized (refreshLock) {
+                while (refreshing.get()) {
+                    refreshLock.wait();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HWException("Interrupted while waiting for " + getClass().getSimpleName() + " to load", e);
+        } finally {
+            waitNanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Returns the current snapshot of all entities known by this manager, refreshing the statuses first if they have
+     * expired. If the manager is polled, this never performs IO once the first poll has completed.
+     * @return Immutable snapshot of all entities, never null.
+     * @throws HWException On HomeWizard communication errors.
+     */
+    public EntitySnapshot<T> getSnapshot() throws HWException {
+        EntitySnapshot<T> current = snapshot;
+        if (polled && current != null) {
+            return current;
+        }
+
+        updateStatusIfExpired();
+        current = snapshot;
+        if (current == null) {
+            throw new HWException(getClass().getSimpleName() + " did not load any entities");
+        }
+        return current;
+    }
+
+    /**
+     * Returns the version of the current snapshot, without refreshing. The version changes each time the entities
+     * or their state change.
+     * @return The current snapshot version, or 0 if not initialized.
+     */
+    public long getVersion() {
+        EntitySnapshot<T> current = snapshot;
+        return (current == null) ? 0 : current.getVersion();
     }
 
     /**
      * Returns the list with all the entities known by this manager.
-     * @return A (copy of the) list of entities of type {@code T}.
+     * @return An unmodifiable list of entities of type {@code T}, sorted by ID.
      * @throws HWException On HomeWizard communication errors.
      */
     public List<T> getAll() throws HWException {
-        return new ArrayList<>(getAllById().values());
+        return getSnapshot().getEntities();
     }
 
     /**
      * Returns the ID/entity mapping of all entities known by this manager.
-     * @return A (copy of the) map containing all entities of type {@code T}.
+     * @return An unmodifiable map containing all entities of type {@code T}.
      * @throws HWException On HomeWizard communication errors.
      */
     public Map<Integer, T> getAllById() throws HWException {
-        updateStatusIfExpired();
-        return getEntityMap();
+        return getSnapshot().getById();
     }
 
     /**
@@ -99,7 +517,7 @@ public abstract class AbstractManager<T extends AbstractHwEntity> implements Ref
      * @throws HWException On HomeWizard communication errors.
      */
     public T get(int id) throws HWException {
-        return getAllById().get(id);
+        return getSnapshot().get(id);
     }
 
     /**
@@ -109,12 +527,72 @@ public abstract class AbstractManager<T extends AbstractHwEntity> implements Ref
      * @throws HWException On HomeWizard communication errors.
      */
     public T getByName(String name) throws HWException {
-        for (T item : getAllById().values()) {
-            if (item.getName().equals(name)) {
-                return item;
+        return getSnapshot().getByName(name);
+    }
+
+    /**
+     * Find the entity with the given name, ignoring case.
+     * @param name The name to search for.
+     * @return Entity instance of type {@code T} if it's found, or null.
+     * @throws HWException On HomeWizard communication errors.
+     */
+    public T getByNameIgnoreCase(String name) throws HWException {
+        return getSnapshot().getByNameIgnoreCase(name);
+    }
+
+    /**
+     * Returns all entities marked as favorite.
+     * @return An unmodifiable list of entities of type {@code T}, sorted by ID.
+     * @throws HWException On HomeWizard communication errors.
+     */
+    public List<T> getFavorites() throws HWException {
+        return getSnapshot().getFavorites();
+    }
+
+    /**
+     * Asynchronous variant of {@link #getAll()}.
+     * @return Future for the list of entities.
+     */
+    public Future<List<T>> getAllAsync() {
+        return getAllAsync(null);
+    }
+
+    /**
+     * Asynchronous variant of {@link #getAll()}.
+     * @param callback Callback to notify on completion, or null.
+     * @return Future for the list of entities.
+     */
+    public Future<List<T>> getAllAsync(ResponseCallback<List<T>> callback) {
+        return getConnection().submit(new Callable<List<T>>() {
+            @Override
+            public List<T> call() throws HWException {
+                return getAll();
             }
-        }
-        return null;
+        }, callback);
+    }
+
+    /**
+     * Asynchronous variant of {@link #get(int)}.
+     * @param id The ID to search for.
+     * @return Future for the entity, which may complete with null if not found.
+     */
+    public Future<T> getAsync(int id) {
+        return getAsync(id, null);
+    }
+
+    /**
+     * Asynchronous variant of {@link #get(int)}.
+     * @param id The ID to search for.
+     * @param callback Callback to notify on completion, or null.
+     * @return Future for the entity, which may complete with null if not found.
+     */
+    public Future<T> getAsync(final int id, ResponseCallback<T> callback) {
+        return getConnection().submit(new Callable<T>() {
+            @Override
+            public T call() throws HWException {
+                return get(id);
+            }
+        }, callback);
     }
 
 }
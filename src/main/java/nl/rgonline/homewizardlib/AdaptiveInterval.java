@@ -0,0 +1,77 @@
+package nl.rgonline.homewizardlib;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Status update interval adapting to the observed rate of change. The interval tightens to the minimum as soon as a
+ * change is observed or a command is sent, and backs off exponentially while the status remains unchanged, up to
+ * the maximum.
+ * @author pdegeus
+ */
+@ToString
+public class AdaptiveInterval {
+
+    @Getter
+    private final long min;
+
+    @Getter
+    private final long max;
+
+    @Getter
+    private final int backoffFactor;
+
+    private final AtomicLong current;
+
+    /**
+     * Constructor.
+     * @param initial Initial interval in milliseconds, limited to the bounds.
+     * @param min Minimum interval in milliseconds.
+     * @param max Maximum interval in milliseconds.
+     * @param backoffFactor Factor by which the interval grows on each update without changes.
+     * @throws IllegalArgumentException If the bounds or factor are invalid.
+     */
+    public AdaptiveInterval(long initial, long min, long max, int backoffFactor) {
+        if (min <= 0 || max < min) {
+            throw new IllegalArgumentException("Invalid interval bounds: " + min + " - " + max);
+        }
+        if (backoffFactor < 1) {
+            throw new IllegalArgumentException("Invalid backoff factor: " + backoffFactor);
+        }
+
+        this.min = min;
+        this.max = max;
+        this.backoffFactor = backoffFactor;
+        this.current = new AtomicLong(Math.max(min, Math.min(max, initial)));
+    }
+
+    /**
+     * @return The current effective interval in milliseconds.
+     */
+    public long getInterval() {
+        return current.get();
+    }
+
+    /**
+     * Tightens the interval to the minimum, after observing a change or sending a command.
+     * @return True if the interval decreased.
+     */
+    public boolean tighten() {
+        return current.getAndSet(min) > min;
+    }
+
+    /**
+     * Backs off after a status update without changes.
+     */
+    public void backOff() {
+        long interval;
+        long next;
+        do {
+            interval = current.get();
+            next = Math.min(max, interval * backoffFactor);
+        } while (!current.compareAndSet(interval, next));
+    }
+
+}
@@ -0,0 +1,79 @@
+package nl.rgonline.homewizardlib;
+
+import java.util.List;
+
+import lombok.Value;
+
+/**
+ * Timings of the initialization of a {@link HWSystem}. With an eager bootstrap, all phases run concurrently, so the
+ * total time is bounded by the slowest phase rather than the sum of all phases.
+ * @author pdegeus
+ */
+@Value
+public class BootstrapReport {
+
+    /** Phases in start order: the HomeWizard status, followed by one phase per initialized manager */
+    private final List<Phase> phases;
+
+    /** Total wall clock time in milliseconds */
+    private final long totalTime;
+
+    /**
+     * @return True if all phases completed successfully within the deadline.
+     */
+    public boolean isComplete() {
+        for (Phase phase : phases) {
+            if (phase.getOutcome() != Outcome.COMPLETED) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Find the phase with the given name.
+     * @param name Phase name, such as "status" or "SwitchManager".
+     * @return The phase, or null if not found.
+     */
+    public Phase getPhase(String name) {
+        for (Phase phase : phases) {
+            if (phase.getName().equals(name)) {
+                return phase;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Outcome of a bootstrap phase.
+     */
+    public enum Outcome {
+        /** Completed within the deadline */
+        COMPLETED,
+        /** Failed within the deadline, see {@link Phase#getError()} */
+        FAILED,
+        /** Still running at the deadline; a manager then completes its initialization on first use */
+        TIMED_OUT
+    }
+
+    /**
+     * Timing of a single bootstrap phase.
+     */
+    @Value
+    public static class Phase {
+
+        /** Name of the phase */
+        private final String name;
+
+        /** Outcome of the phase */
+        private final Outcome outcome;
+
+        /** Duration in milliseconds, or the time waited if timed out */
+        private final long duration;
+
+        /** Error if failed, otherwise null */
+        private final Exception error;
+
+    }
+
+}
@@ -0,0 +1,177 @@
+package nl.rgonline.homewizardlib;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Immutable view of all entities of a manager, published as a whole on each refresh. The collections can be read
+ * concurrently without copying or locking. The entities themselves are shared with the manager, so their state
+ * reflects the latest status update.
+ * <p/>
+ * The version increases each time a new snapshot is published, which happens when the entity list is reloaded or
+ * when a status update changed the state of any entity. Comparing versions is a cheap way to detect changes.
+ * <p/>
+ * The name, type and favorite indexes are built once per snapshot, so lookups take constant time. They reflect the
+ * names and favorite flags as loaded; after renaming an entity, it can only be found by its new name after the next
+ * {@link AbstractManager#refresh()}.
+ * @param <T> Type of the entities.
+ * @author pdegeus
+ */
+@ToString(of = {"version", "entities"})
+public final class EntitySnapshot<T extends AbstractHwEntity> {
+
+    /** Snapshot version, increased on each change. */
+    @Getter
+    private final long version;
+
+    /** Unmodifiable list of all entities, sorted by ID. */
+    @Getter
+    private final List<T> entities;
+
+    /** Unmodifiable map of all entities by ID, in ID order. */
+    @Getter
+    private final Map<Integer, T> byId;
+
+    /** Unmodifiable list of all favorite entities, sorted by ID. */
+    @Getter
+    private final List<T> favorites;
+
+    private final Map<String, T> byName;
+    private final Map<String, T> byLowerCaseName;
+    private final Map<Enum<?>, List<T>> byType;
+
+    /**
+     * Creates a snapshot of the given entities.
+     * @param version Snapshot version.
+     * @param entityMap Entities by ID. The map is copied.
+     * @param manager Manager owning the entities, used to determine the entity types.
+     */
+    EntitySnapshot(long version, Map<Integer, T> entityMap, AbstractManager<T> manager) {
+        this.version = version;
+
+        Map<Integer, T> sorted = new TreeMap<>(entityMap);
+        List<T> favoriteList = new ArrayList<>();
+        Map<String, T> nameMap = new HashMap<>();
+        Map<String, T> lowerCaseNameMap = new HashMap<>();
+        Map<Enum<?>, List<T>> typeMap = new HashMap<>();
+
+        for (T entity : sorted.values()) {
+            // Names are not unique, the lowest ID wins
+            String name = entity.getName();
+            if (name != null) {
+                putIfAbsent(nameMap, name, entity);
+                putIfAbsent(lowerCaseNameMap, name.toLowerCase(Locale.ROOT), entity);
+            }
+
+            if (entity.isFavorite()) {
+                favoriteList.add(entity);
+            }
+
+            Enum<?> type = manager.getEntityType(entity);
+            if (type != null) {
+                List<T> typeList = typeMap.get(type);
+                if (typeList == null) {
+                    typeList = new ArrayList<>();
+                    typeMap.put(type, typeList);
+                }
+                typeList.add(entity);
+            }
+        }
+
+        for (Map.Entry<Enum<?>, List<T>> entry : typeMap.entrySet()) {
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
+        }
+
+        this.entities = Collections.unmodifiableList(new ArrayList<>(sorted.values()));
+        this.byId = Collections.unmodifiableMap(new LinkedHashMap<>(sorted));
+        this.favorites = Collections.unmodifiableList(favoriteList);
+        this.byName = nameMap;
+        this.byLowerCaseName = lowerCaseNameMap;
+        this.byType = typeMap;
+    }
+
+    /**
+     * Creates a new version of the given snapshot, sharing its collections.
+     * @param version New snapshot version.
+     * @param previous Snapshot to copy.
+     */
+    private EntitySnapshot(long version, EntitySnapshot<T> previous) {
+        this.version = version;
+        this.entities = previous.entities;
+        this.byId = previous.byId;
+        this.favorites = previous.favorites;
+        this.byName = previous.byName;
+        this.byLowerCaseName = previous.byLowerCaseName;
+        this.byType = previous.byType;
+    }
+
+    private static <K, V> void putIfAbsent(Map<K, V> map, K key, V value) {
+        if (!map.containsKey(key)) {
+            map.put(key, value);
+        }
+    }
+
+    /**
+     * @return A snapshot with the same entities and the next version.
+     */
+    EntitySnapshot<T> nextVersion() {
+        return new EntitySnapshot<>(version + 1, this);
+    }
+
+    /**
+     * Find the entity with the given ID.
+     * @param id The ID to search for.
+     * @return The entity, or null if not found.
+     */
+    public T get(int id) {
+        return byId.get(id);
+    }
+
+    /**
+     * Find the entity with the given name. If several entities share the name, the one with the lowest ID is returned.
+     * @param name The name to search for.
+     * @return The entity, or null if not found.
+     */
+    public T getByName(String name) {
+        T entity = byName.get(name);
+        return (entity != null && name.equals(entity.getName())) ? entity : null;
+    }
+
+    /**
+     * Find the entity with the given name, ignoring case. If several entities share the name, the one with the lowest
+     * ID is returned.
+     * @param name The name to search for.
+     * @return The entity, or null if not found.
+     */
+    public T getByNameIgnoreCase(String name) {
+        T entity = byLowerCaseName.get(name.toLowerCase(Locale.ROOT));
+        return (entity != null && name.equalsIgnoreCase(entity.getName())) ? entity : null;
+    }
+
+    /**
+     * Returns all entities of the given type, such as a {@link nl.rgonline.homewizardlib.switches.SwitchType}.
+     * @param type The type to search for.
+     * @return Unmodifiable list of entities, sorted by ID. Empty if there are none.
+     */
+    public List<T> getByType(Enum<?> type) {
+        List<T> result = byType.get(type);
+        return (result == null) ? Collections.<T>emptyList() : result;
+    }
+
+    /**
+     * @return Number of entities.
+     */
+    public int size() {
+        return entities.size();
+    }
+
+}
@@ -0,0 +1,25 @@
+package nl.rgonline.homewizardlib;
+
+import lombok.Value;
+
+/**
+ * A single state change of an entity, detected while updating the entity statuses.
+ * @param <T> Type of the changed entity.
+ * @author pdegeus
+ */
+@Value
+public class HWChangeEvent<T extends AbstractHwEntity> {
+
+    /** The changed entity, already holding the new value. */
+    private final T entity;
+
+    /** Type of the change, determines the type of the values. */
+    private final HWChangeType type;
+
+    /** Value before the change, may be null. */
+    private final Object oldValue;
+
+    /** Value after the change, may be null. */
+    private final Object newValue;
+
+}
@@ -0,0 +1,17 @@
+package nl.rgonline.homewizardlib;
+
+/**
+ * Listener for state changes of the entities of a manager, see {@link AbstractManager#addChangeListener}.
+ * @param <T> Type of the entities.
+ * @author pdegeus
+ */
+public interface HWChangeListener<T extends AbstractHwEntity> {
+
+    /**
+     * Called for each changed value, on the thread updating the statuses. Implementations should return quickly, and
+     * hand off any slow work to another thread.
+     * @param event The change.
+     */
+    void changed(HWChangeEvent<T> event);
+
+}
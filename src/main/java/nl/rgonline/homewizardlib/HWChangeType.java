@@ -0,0 +1,31 @@
+package nl.rgonline.homewizardlib;
+
+/**
+ * Type of a state change reported by a {@link HWChangeEvent}. The type determines the type of the old and new
+ * values of the event.
+ * @author pdegeus
+ */
+public enum HWChangeType {
+
+    /** Switch turned on or off, values are {@link Boolean}s */
+    SWITCH_ON,
+
+    /** Dimmer level changed, values are {@link Integer}s */
+    DIM_LEVEL,
+
+    /** Hue bulb color changed, values are {@link nl.rgonline.homewizardlib.util.HueColor}s */
+    COLOR,
+
+    /** Sensor status changed, values are {@link Boolean}s */
+    SENSOR_ON,
+
+    /** Sensor last event time changed, values are time {@link String}s */
+    LAST_EVENT_TIME,
+
+    /** Thermometer temperature changed, values are {@link Double}s */
+    TEMPERATURE,
+
+    /** Thermometer humidity changed, values are {@link Integer}s */
+    HUMIDITY;
+
+}
@@ -1,17 +1,44 @@
 package nl.rgonline.homewizardlib;
 
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import nl.rgonline.homewizardlib.BootstrapReport.Outcome;
+import nl.rgonline.homewizardlib.BootstrapReport.Phase;
 import nl.rgonline.homewizardlib.cameras.CameraManager;
 import nl.rgonline.homewizardlib.config.HWConfig;
 import nl.rgonline.homewizardlib.connection.HWConnection;
-import nl.rgonline.homewizardlib.connection.Request;
+import nl.rgonline.homewizardlib.connection.ResponseCallback;
+import nl.rgonline.homewizardlib.connection.StatusHub;
 import nl.rgonline.homewizardlib.exceptions.HWException;
 import nl.rgonline.homewizardlib.scenes.SceneManager;
 import nl.rgonline.homewizardlib.sensors.SensorManager;
 import nl.rgonline.homewizardlib.switches.SwitchManager;
 import nl.rgonline.homewizardlib.thermo.ThermoManager;
 import nl.rgonline.homewizardlib.timers.TimerManager;
+import nl.rgonline.homewizardlib.util.DaemonThreadFactory;
 
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -23,7 +50,11 @@ import org.json.JSONObject;
  * @author pdegeus
  */
 @Slf4j
-public class HWSystem {
+public class HWSystem implements Closeable {
+
+    private static final String STATUS_PHASE = "status";
+    private static final String SNAPSHOT_PHASE = "snapshot";
+    private static final int SNAPSHOT_FORMAT = 2;
 
     @Getter
 	private HWConnection connection;
@@ -47,43 +78,360 @@ public class HWSystem {
     private TimerManager timerManager;
 
     @Getter
-    private double hwVersion;
+    private volatile double hwVersion;
+
+    @Getter
+    private BootstrapReport bootstrapReport;
+
+    private final String host;
+    private final int port;
+    private List<AbstractManager<?>> managers;
+    private StatusPoller poller;
+    private File snapshotFile;
 
     /**
-     * Constructor reading connection details from config file.
+     * Constructor reading connection details from config file. If 'snapshot.file' is configured, a snapshot is
+     * restored from it on construction and saved to it on {@link #close()}.
      * @throws HWException On any initialization error.
      */
     public HWSystem() throws HWException {
-        this(HWConfig.HOST.getValue(), HWConfig.PORT.getValue(), HWConfig.PASSWORD.getValue());
+        this(
+            HWConfig.HOST.getValue(), HWConfig.PORT.getValue(), HWConfig.PASSWORD.getValue(),
+            HWConfig.SNAPSHOT_FILE.hasValue() ? new File(HWConfig.SNAPSHOT_FILE.getValue()) : null
+        );
+    }
+
+    /**
+     * Constructor using provided connection details, without snapshot file.
+     * @param host Host to connect to.
+     * @param port Port to connect to.
+     * @param password Password to use.
+     * @throws HWException On any initialization error.
+     */
+    public HWSystem(String host, int port, String password) throws HWException {
+        this(host, port, password, null);
     }
 
     /**
-     * Constructor using provided connection details.
+     * Constructor using provided connection details. A snapshot is restored from the given file on construction, if
+     * it exists and was saved for the same host and port, and saved to it on {@link #close()}. Use a separate file
+     * for each HomeWizard.
      * @param host Host to connect to.
      * @param port Port to connect to.
      * @param password Password to use.
+     * @param snapshotFile File to keep the state of all managers in across restarts, or null.
      * @throws HWException On any initialization error.
      */
-	public HWSystem(String host, int port, String password) throws HWException {
+	public HWSystem(String host, int port, String password, File snapshotFile) throws HWException {
+        this.host = host;
+        this.port = port;
+        this.snapshotFile = snapshotFile;
+        TimeZone timeZone = HWConfig.TIMEZONE.hasValue() ? getTimeZone(HWConfig.TIMEZONE.getValue()) : null;
+
 		connection = new HWConnection(host, port, password);
+        if (timeZone != null) {
+            connection.setTimeZone(timeZone);
+        }
         switchManager = new SwitchManager(connection);
         sensorManager = new SensorManager(connection);
         thermoManager = new ThermoManager(connection);
         cameraManager = new CameraManager(connection);
         sceneManager = new SceneManager(connection);
         timerManager = new TimerManager(connection);
+        managers = Collections.unmodifiableList(Arrays.<AbstractManager<?>>asList(
+            switchManager, sensorManager, thermoManager, cameraManager, sceneManager, timerManager
+        ));
+        poller = new StatusPoller(managers);
+
+        try {
+            long start = System.currentTimeMillis();
+            if (snapshotFile != null && snapshotFile.isFile() && restoreSnapshot(snapshotFile)) {
+                long duration = System.currentTimeMillis() - start;
+                bootstrapReport = new BootstrapReport(
+                    Collections.singletonList(new Phase(SNAPSHOT_PHASE, Outcome.COMPLETED, duration, null)), duration
+                );
+            } else if (HWConfig.BOOTSTRAP_EAGER.getValue()) {
+                bootstrapReport = bootstrap(HWConfig.BOOTSTRAP_TIMEOUT.getValue());
+            } else {
+                readStatus();
+                long duration = System.currentTimeMillis() - start;
+                bootstrapReport = new BootstrapReport(
+                    Collections.singletonList(new Phase(STATUS_PHASE, Outcome.COMPLETED, duration, null)), duration
+                );
+            }
+        } catch (HWException e) {
+            connection.close();
+            throw e;
+        }
+        log.info("HWSystem initialized in " + bootstrapReport.getTotalTime() + " ms, HW version: " + hwVersion);
 
-        readStatus();
-        log.info("HWSystem initialized, HW version: " + hwVersion);
+        if (HWConfig.POLLING_ENABLED.getValue()) {
+            startPolling();
+        }
 	}
 
+    private static TimeZone getTimeZone(String id) throws HWException {
+        // TimeZone falls back to GMT for unknown IDs
+        TimeZone timeZone = TimeZone.getTimeZone(id);
+        if (timeZone.getID().equals("GMT") && !id.equals("GMT")) {
+            throw new HWException("Unknown time zone: " + id);
+        }
+        return timeZone;
+    }
+
+    /**
+     * Sets the time zone of the HomeWizard, used to interpret the timestamps of thermometer graphs and sensor logs.
+     * Defaults to the 'timezone' config property, or the time zone of this JVM if not set.
+     * @param timeZone Time zone of the HomeWizard.
+     */
+    public void setTimeZone(TimeZone timeZone) {
+        connection.setTimeZone(timeZone);
+    }
+
+    /**
+     * Starts refreshing the status of all managers in the background, each on its own update interval. While
+     * polling, reading entities from the managers never performs IO, but returns the latest polled state.
+     * Polling can also be enabled using the 'polling.enabled' config property.
+     */
+    public void startPolling() {
+        poller.start();
+    }
+
+    /**
+     * Stops background polling. Managers return to refreshing their status when read.
+     */
+    public void stopPolling() {
+        poller.stop();
+    }
+
+    /**
+     * @return True if the manager statuses are refreshed in the background.
+     */
+    public boolean isPolling() {
+        return poller.isRunning();
+    }
+
+
+    /**
+     * Writes the state of all loaded managers to the given file, for a warm start using
+     * {@link #restoreSnapshot(File)}. This includes sensor logs, thermometer graph data and scene details, but not
+     * cameras, so no camera credentials are written. The file is replaced atomically, where the file system supports
+     * it.
+     * @param file File to write to.
+     * @throws HWException On any IO or JSON error.
+     */
+    public void saveSnapshot(File file) throws HWException {
+        long start = System.currentTimeMillis();
+        try {
+            JSONObject states = new JSONObject();
+            for (AbstractManager<?> manager : managers) {
+                states.put(manager.getClass().getSimpleName(), manager.saveState());
+            }
+
+            JSONObject snapshot = new JSONObject()
+                .put("format", SNAPSHOT_FORMAT)
+                .put("saved", start)
+                .put("host", host)
+                .put("port", port)
+                .put("version", hwVersion)
+                .put("managers", states);
+
+            Path tmp = Paths.get(file.getPath() + ".tmp");
+            Files.write(tmp, snapshot.toString().getBytes(StandardCharsets.UTF_8));
+            try {
+                Files.move(tmp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                log.debug("Atomic move not supported, replacing snapshot {} non-atomically", file);
+                Files.move(tmp, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException | JSONException e) {
+            throw new HWException("Could not write snapshot to " + file, e);
+        }
+        log.debug("Snapshot written to {} in {} ms", file, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Restores the managers from a snapshot written by {@link #saveSnapshot(File)}, so their entities can be served
+     * without contacting the HomeWizard. All managers are then revalidated against the HomeWizard in the background;
+     * entities are reconciled by ID, so references obtained from the snapshot remain valid. Managers missing from the
+     * snapshot are loaded on first use.
+     * <p/>
+     * Pass a snapshot file to the constructor to restore on construction and save on {@link #close()} automatically.
+     * @param file File to read from.
+     * @return True if restored, false if the file could not be read or was saved for another HomeWizard.
+     */
+    public boolean restoreSnapshot(File file) {
+        JSONObject snapshot;
+        try {
+            String json = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+            snapshot = new JSONObject(json);
+            if (snapshot.getInt("format") != SNAPSHOT_FORMAT) {
+                log.warn("Ignoring snapshot {} with unsupported format {}", file, snapshot.getInt("format"));
+                return false;
+            }
+            if (!host.equals(snapshot.getString("host")) || port != snapshot.getInt("port")) {
+                log.warn(
+                    "Ignoring snapshot {} of another HomeWizard: {}:{}",
+                    file, snapshot.getString("host"), snapshot.getInt("port")
+                );
+                return false;
+            }
+            hwVersion = snapshot.getDouble("version");
+        } catch (IOException | JSONException e) {
+            log.warn("Could not read snapshot {}", file, e);
+            return false;
+        }
+
+        JSONObject states = snapshot.optJSONObject("managers");
+        for (AbstractManager<?> manager : managers) {
+            String name = manager.getClass().getSimpleName();
+            JSONObject state = (states == null) ? null : states.optJSONObject(name);
+            if (state != null) {
+                try {
+                    manager.restoreState(state);
+                } catch (HWException e) {
+                    log.warn("Could not restore {} from snapshot {}", name, file, e);
+                }
+            }
+        }
+        log.debug("Restored snapshot {}, saved at {}", file, new Date(snapshot.optLong("saved")));
+
+        revalidate();
+        return true;
+    }
+
+    /**
+     * Reloads the status and all managers in the background, after restoring a snapshot.
+     */
+    private void revalidate() {
+        connection.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws HWException {
+                readStatus();
+                return null;
+            }
+        }, new RevalidationCallback(STATUS_PHASE));
+
+        for (final AbstractManager<?> manager : managers) {
+            connection.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws HWException {
+                    manager.refresh();
+                    return null;
+                }
+            }, new RevalidationCallback(manager.getClass().getSimpleName()));
+        }
+    }
+
+    /**
+     * Shuts down this HWSystem, closing its connection and connection pool. Managers and entities of this system can
+     * not be used after closing. If a snapshot file is set, a snapshot is written first.
+     */
+    @Override
+    public void close() {
+        poller.stop();
+        if (snapshotFile != null) {
+            try {
+                saveSnapshot(snapshotFile);
+            } catch (HWException e) {
+                log.warn("Could not save snapshot on close", e);
+            }
+        }
+        connection.close();
+        log.info("HWSystem closed");
+    }
+
+    /**
+     * Reads the HomeWizard status and initializes all managers concurrently, so the total time is bounded by the
+     * slowest endpoint. Managers that fail or do not complete before the deadline are reported, and complete their
+     * initialization on first use.
+     * @param timeout Deadline in milliseconds for all phases.
+     * @return Report with the timing of each phase.
+     * @throws HWException If the HomeWizard status could not be read before the deadline.
+     */
+    BootstrapReport bootstrap(long timeout) throws HWException {
+        long start = System.currentTimeMillis();
+        long deadline = start + timeout;
+        ExecutorService executor = Executors.newFixedThreadPool(
+            managers.size() + 1, new DaemonThreadFactory("hw-bootstrap")
+        );
+
+        try {
+            List<Future<Phase>> futures = new ArrayList<>();
+            List<String> names = new ArrayList<>();
+
+            names.add(STATUS_PHASE);
+            futures.add(executor.submit(new PhaseTask(STATUS_PHASE) {
+                @Override
+                protected void run() throws HWException {
+                    readStatus();
+                }
+            }));
+
+            for (final AbstractManager<?> manager : managers) {
+                String name = manager.getClass().getSimpleName();
+                names.add(name);
+                futures.add(executor.submit(new PhaseTask(name) {
+                    @Override
+                    protected void run() throws HWException {
+                        manager.updateStatusIfExpired();
+                    }
+                }));
+            }
+
+            List<Phase> phases = new ArrayList<>();
+            for (int i = 0; i < futures.size(); i++) {
+                phases.add(awaitPhase(names.get(i), futures.get(i), start, deadline));
+            }
+
+            BootstrapReport report = new BootstrapReport(
+                Collections.unmodifiableList(phases), System.currentTimeMillis() - start
+            );
+            log.debug("HWSystem bootstrap: {}", report);
+
+            Phase status = phases.get(0);
+            if (status.getOutcome() == Outcome.TIMED_OUT) {
+                throw new HWException("Timed out reading HomeWizard status after " + timeout + " ms");
+            } else if (status.getOutcome() == Outcome.FAILED) {
+                Exception error = status.getError();
+                throw (error instanceof HWException)
+                    ? (HWException) error : new HWException("Could not read HomeWizard status", error);
+            }
+
+            for (Phase phase : phases) {
+                if (phase.getOutcome() != Outcome.COMPLETED) {
+                    log.warn(
+                        "Bootstrap of {} did not complete: {}", phase.getName(), phase.getOutcome(), phase.getError()
+                    );
+                }
+            }
+            return report;
+        } finally {
+            // Phases still running are allowed to complete in the background
+            executor.shutdown();
+        }
+    }
+
+    private static Phase awaitPhase(String name, Future<Phase> future, long start, long deadline) {
+        try {
+            long remaining = Math.max(0, deadline - System.currentTimeMillis());
+            return future.get(remaining, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return new Phase(name, Outcome.TIMED_OUT, System.currentTimeMillis() - start, null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Phase(name, Outcome.TIMED_OUT, System.currentTimeMillis() - start, e);
+        } catch (ExecutionException e) {
+            // PhaseTask catches all exceptions, so this is an error
+            return new Phase(name, Outcome.FAILED, System.currentTimeMillis() - start, e);
+        }
+    }
 
     /**
      * Read the current HomeWizard status and version.
      */
     private void readStatus() throws HWException {
-        Request request = new Request(1000, "/get-status").setReturnResponse(false);
-        JSONObject status = connection.request(request);
+        JSONObject status = connection.getStatusHub().get(StatusHub.GET_STATUS, 1000);
         try {
             hwVersion = status.getDouble("version");
         } catch (JSONException e) {
@@ -91,4 +439,57 @@ public class HWSystem {
         }
     }
 
+    /**
+     * Logs the outcome of revalidating a restored snapshot.
+     */
+    private static final class RevalidationCallback implements ResponseCallback<Void> {
+
+        private final String name;
+
+        private RevalidationCallback(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void completed(Void result) {
+            log.debug("Revalidated {} after restoring snapshot", name);
+        }
+
+        @Override
+        public void failed(HWException e) {
+            log.warn("Could not revalidate {} after restoring snapshot", name, e);
+        }
+
+    }
+
+    /**
+     * Bootstrap phase, timing its own execution.
+     */
+    private abstract static class PhaseTask implements Callable<Phase> {
+
+        private final String name;
+
+        private PhaseTask(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Performs the phase.
+         * @throws HWException On any error.
+         */
+        protected abstract void run() throws HWException;
+
+        @Override
+        public Phase call() {
+            long start = System.currentTimeMillis();
+            try {
+                run();
+                return new Phase(name, Outcome.COMPLETED, System.currentTimeMillis() - start, null);
+            } catch (HWException | RuntimeException e) {
+                return new Phase(name, Outcome.FAILED, System.currentTimeMillis() - start, e);
+            }
+        }
+
+    }
+
 }
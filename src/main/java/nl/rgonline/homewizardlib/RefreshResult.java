@@ -0,0 +1,32 @@
+package nl.rgonline.homewizardlib;
+
+import java.util.List;
+
+import lombok.Value;
+
+/**
+ * Outcome of reloading the entity list of a manager, see {@link AbstractManager#refresh()}. Existing entities are
+ * updated in place, so references held by callers remain valid.
+ * @param <T> Type of the entities.
+ * @author pdegeus
+ */
+@Value
+public class RefreshResult<T extends AbstractHwEntity> {
+
+    /** Entities that are new since the previous load */
+    private final List<T> added;
+
+    /** Entities that are no longer known by the HomeWizard */
+    private final List<T> removed;
+
+    /** Existing entities of which any value changed */
+    private final List<T> changed;
+
+    /**
+     * @return True if any entity was added, removed or changed.
+     */
+    public boolean hasChanges() {
+        return !added.isEmpty() || !removed.isEmpty() || !changed.isEmpty();
+    }
+
+}
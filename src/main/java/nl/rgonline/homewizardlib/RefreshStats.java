@@ -0,0 +1,24 @@
+package nl.rgonline.homewizardlib;
+
+import lombok.Value;
+
+/**
+ * Snapshot of the status refresh statistics of a manager.
+ * @author pdegeus
+ */
+@Value
+public class RefreshStats {
+
+    /** Number of status refreshes performed */
+    private long refreshes;
+
+    /** Number of reads that found another thread refreshing */
+    private long contended;
+
+    /** Number of reads that had to wait for the first load, because no state was available yet */
+    private long waits;
+
+    /** Total time in milliseconds spent waiting for the first load */
+    private long waitTime;
+
+}
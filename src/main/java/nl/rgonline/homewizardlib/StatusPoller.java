@@ -0,0 +1,149 @@
+package nl.rgonline.homewizardlib;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import lombok.extern.slf4j.Slf4j;
+import nl.rgonline.homewizardlib.config.HWConfig;
+import nl.rgonline.homewizardlib.exceptions.HWException;
+import nl.rgonline.homewizardlib.util.DaemonThreadFactory;
+
+/**
+ * Refreshes the status of a set of managers in the background, each on its own update interval. While polled,
+ * reading entities from a manager never performs IO, but returns the state published by the last poll.
+ * <p/>
+ * All pollers share a single scheduler, so polling many HomeWizards does not require a thread per manager.
+ * @author pdegeus
+ */
+@Slf4j
+public class StatusPoller {
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newScheduledThreadPool(
+        HWConfig.POLLING_THREADS.getValue(), new DaemonThreadFactory("hw-poller")
+    );
+
+    private final List<AbstractManager<?>> managers;
+    private final ConcurrentMap<AbstractManager<?>, ScheduledFuture<?>> scheduled = new ConcurrentHashMap<>();
+    private volatile boolean running = false;
+
+    /**
+     * Constructor.
+     * @param managers Managers to poll. Managers without status updates are only initialized.
+     */
+    public StatusPoller(List<? extends AbstractManager<?>> managers) {
+        this.managers = new ArrayList<>(managers);
+    }
+
+    /**
+     * Starts polling. The first poll of each manager is performed immediately, in the background.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+
+        for (AbstractManager<?> manager : managers) {
+            final PollTask task = new PollTask(manager);
+            manager.setPolled(true);
+            manager.setIntervalTightenedHook(new Runnable() {
+                @Override
+                public void run() {
+                    pollSooner(task);
+                }
+            });
+            schedule(task, 0);
+        }
+        log.debug("Status polling started for {} managers", managers.size());
+    }
+
+    /**
+     * Stops polling. Managers return to refreshing their status on read. A poll in progress is allowed to finish.
+     */
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+
+        for (AbstractManager<?> manager : managers) {
+            manager.setPolled(false);
+            manager.setIntervalTightenedHook(null);
+            ScheduledFuture<?> future = scheduled.remove(manager);
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+        log.debug("Status polling stopped");
+    }
+
+    /**
+     * @return True if polling is started.
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void schedule(PollTask task, long delay) {
+        scheduled.put(task.manager, SCHEDULER.schedule(task, delay, TimeUnit.MILLISECONDS));
+
+        // Stopped while scheduling, make sure the task does not linger
+        if (!running) {
+            ScheduledFuture<?> future = scheduled.remove(task.manager);
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Moves the next poll of the given task forward if its adaptive interval was tightened. If the task is running,
+     * cancelling fails and it schedules itself using the tightened interval.
+     * @param task The task to poll sooner.
+     */
+    private void pollSooner(PollTask task) {
+        long interval = task.manager.getPollInterval();
+        ScheduledFuture<?> future = scheduled.get(task.manager);
+        if (running && future != null && future.getDelay(TimeUnit.MILLISECONDS) > interval && future.cancel(false)) {
+            schedule(task, interval);
+        }
+    }
+
+    /**
+     * Polls a single manager, then schedules the next poll using the current poll interval of the manager.
+     */
+    private final class PollTask implements Runnable {
+
+        private final AbstractManager<?> manager;
+
+        private PollTask(AbstractManager<?> manager) {
+            this.manager = manager;
+        }
+
+        @Override
+        public void run() {
+            if (!running) {
+                return;
+            }
+
+            try {
+                manager.poll();
+            } catch (HWException | RuntimeException e) {
+                log.warn("Background status update of {} failed", manager.getClass().getSimpleName(), e);
+            }
+
+            long interval = manager.getPollInterval();
+            if (running && interval > -1) {
+                schedule(this, interval);
+            }
+        }
+
+    }
+
+}
@@ -5,8 +5,9 @@ import java.util.Map;
 
 import lombok.extern.slf4j.Slf4j;
 import nl.rgonline.homewizardlib.AbstractManager;
+import nl.rgonline.homewizardlib.config.HWConfig;
 import nl.rgonline.homewizardlib.connection.HWConnection;
-import nl.rgonline.homewizardlib.connection.Request;
+import nl.rgonline.homewizardlib.connection.StatusHub;
 import nl.rgonline.homewizardlib.exceptions.HWException;
 import nl.rgonline.homewizardlib.util.JsonUtil;
 
@@ -23,7 +24,6 @@ public class CameraManager extends AbstractManager<HWCamera> {
 
     private final HWConnection connection;
 
-    private Map<Integer, HWCamera> cameras;
     private volatile boolean initialized = false;
 
     /**
@@ -38,8 +38,9 @@ public class CameraManager extends AbstractManager<HWCamera> {
     @Override
     public void init(boolean force) throws HWException {
         if (!initialized || force) {
-            Request request = new Request(getUpdateInterval(), "/get-sensors");
-            JSONObject response = connection.request(request);
+            // Share the snapshot fetched by the sensor manager
+            long maxAge = force ? 0 : HWConfig.SENSOR_UPDATE_INTERVAL.getValue();
+            JSONObject response = connection.getStatusHub().getResponse(StatusHub.GET_SENSORS, maxAge);
 
             // "cameras": [
             //   {"id": 0, "name": "Testcam", "username": "a", "password": "a", "ip": "192.168.88.244", "port": "80", "presets":[]}
@@ -49,7 +50,7 @@ public class CameraManager extends AbstractManager<HWCamera> {
                 JSONArray jsonCams = response.getJSONArray("cameras");
                 int numCams = jsonCams.length();
 
-                cameras = new HashMap<>();
+                Map<Integer, HWCamera> newCameras = new HashMap<>();
 
                 for (int i = 0; i < numCams; i++) {
                     JSONObject camJson = jsonCams.getJSONObject(i);
@@ -62,8 +63,10 @@ public class CameraManager extends AbstractManager<HWCamera> {
                     int port = JsonUtil.readInteger(camJson, "port");
 
                     HWCamera camera = new HWCamera(connection, id, name, user, pass, host, port);
-                    cameras.put(id, camera);
+                    newCameras.put(id, camera);
                 }
+
+                publish(newCameras);
             } catch (JSONException e) {
                 throw new HWException("Error initializing cameras", e);
             }
@@ -78,8 +81,8 @@ public class CameraManager extends AbstractManager<HWCamera> {
     }
 
     @Override
-    protected Map<Integer, HWCamera> getEntityMap() {
-        return cameras;
+    protected HWConnection getConnection() {
+        return connection;
     }
 
 }
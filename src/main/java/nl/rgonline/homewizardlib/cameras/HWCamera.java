@@ -1,5 +1,7 @@
 package nl.rgonline.homewizardlib.cameras;
 
+import java.util.Objects;
+
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
@@ -41,6 +43,20 @@ public class HWCamera extends AbstractHwEntity {
         this.port = port;
     }
 
+    @Override
+    protected boolean updateFrom(AbstractHwEntity loaded) {
+        boolean changed = super.updateFrom(loaded);
+        HWCamera camera = (HWCamera) loaded;
+        changed |= !Objects.equals(username, camera.username) || !Objects.equals(password, camera.password)
+            || !Objects.equals(host, camera.host) || port != camera.port;
+
+        username = camera.username;
+        password = camera.password;
+        host = camera.host;
+        port = camera.port;
+        return changed;
+    }
+
     @Override
     protected void saveInternal() throws HWException {
         // /cam/edit/<id>/<name>/<host>/<port>/<user>/<pass>
@@ -37,6 +37,24 @@ public class HWConfig {
     /** Config item for thermometer data update interval */
     public static final HWConfigItem<Integer> THERMO_UPDATE_INTERVAL = new HWConfigItem<>("updateinterval.thermo", Integer.class, 22000);
 
+    /** Config item for minimum switches status update interval, when adaptive */
+    public static final HWConfigItem<Integer> SWITCH_UPDATE_INTERVAL_MIN = new HWConfigItem<>("updateinterval.switch.min", Integer.class, 1000);
+
+    /** Config item for maximum switches status update interval, when adaptive */
+    public static final HWConfigItem<Integer> SWITCH_UPDATE_INTERVAL_MAX = new HWConfigItem<>("updateinterval.switch.max", Integer.class, 30000);
+
+    /** Config item for minimum sensors status update interval, when adaptive */
+    public static final HWConfigItem<Integer> SENSOR_UPDATE_INTERVAL_MIN = new HWConfigItem<>("updateinterval.sensor.min", Integer.class, 1000);
+
+    /** Config item for maximum sensors status update interval, when adaptive */
+    public static final HWConfigItem<Integer> SENSOR_UPDATE_INTERVAL_MAX = new HWConfigItem<>("updateinterval.sensor.max", Integer.class, 30000);
+
+    /** Config item for minimum thermometer data update interval, when adaptive */
+    public static final HWConfigItem<Integer> THERMO_UPDATE_INTERVAL_MIN = new HWConfigItem<>("updateinterval.thermo.min", Integer.class, 11000);
+
+    /** Config item for maximum thermometer data update interval, when adaptive */
+    public static final HWConfigItem<Integer> THERMO_UPDATE_INTERVAL_MAX = new HWConfigItem<>("updateinterval.thermo.max", Integer.class, 300000);
+
     /** Config item for thermometer graph/history data update interval for timespan day */
     public static final HWConfigItem<Integer> THERMO_GRAPH_UPDATE_INTERVAL_DAY =
         new HWConfigItem<>("updateinterval.thermo.graph.day", Integer.class, 600000);
@@ -45,18 +63,85 @@ public class HWConfig {
     public static final HWConfigItem<Integer> THERMO_GRAPH_UPDATE_INTERVAL_OTHER =
         new HWConfigItem<>("updateinterval.thermo.graph.other", Integer.class, 3600000);
 
+    /** Config item for the number of days of day graph data each thermometer retains locally; 0 to disable */
+    public static final HWConfigItem<Integer> THERMO_RETENTION_DAYS = new HWConfigItem<>("thermo.retention.days", Integer.class, 0);
+
+    /** Config item for the number of days of hourly, daily and weekly rollups each thermometer retains locally */
+    public static final HWConfigItem<Integer> THERMO_ROLLUP_RETENTION_DAYS =
+        new HWConfigItem<>("thermo.rollup.retention.days", Integer.class, 400);
+
+    /** Config item for the number of days of sensor events retained in the local store */
+    public static final HWConfigItem<Integer> SENSOR_RETENTION_DAYS = new HWConfigItem<>("sensors.retention.days", Integer.class, 365);
+
+    /** Config item for the directory of the local store of sensor and thermometer history; disabled if not set */
+    public static final HWConfigItem<String> STORE_DIRECTORY = new HWConfigItem<>("store.directory", String.class);
+
+    /** Config item for the number of records per segment file of the local store */
+    public static final HWConfigItem<Integer> STORE_SEGMENT_RECORDS = new HWConfigItem<>("store.segment.records", Integer.class, 4096);
+
     /** Config item for connection timeout in milliseconds */
     public static final HWConfigItem<Integer> CONNECT_TIMEOUT = new HWConfigItem<>("timeout.connect", Integer.class, 5000);
 
     /** Config item for read timeout in milliseconds */
     public static final HWConfigItem<Integer> READ_TIMEOUT = new HWConfigItem<>("timeout.read", Integer.class, 5000);
 
-    /** Config item for maximum number of total concurrent connections */
+    /** Config item for maximum number of total concurrent connections, per HomeWizard */
     public static final HWConfigItem<Integer> MAX_TOTAL_CONNECTIONS = new HWConfigItem<>("connections.maxconcurrent.total", Integer.class, 200);
 
     /** Config item for maximum number of concurrent connections per route (URL) */
     public static final HWConfigItem<Integer> MAX_ROUTE_CONNECTIONS = new HWConfigItem<>("connections.maxconcurrent.route", Integer.class, 20);
 
+    /** Config item for the time in milliseconds after which idle pooled connections are closed */
+    public static final HWConfigItem<Integer> CONNECTION_IDLE_TIMEOUT = new HWConfigItem<>("connections.idletimeout", Integer.class, 30000);
+
+    /** Config item for number of consecutive IO failures after which requests fail fast */
+    public static final HWConfigItem<Integer> BREAKER_FAILURE_THRESHOLD = new HWConfigItem<>("breaker.failures", Integer.class, 3);
+
+    /** Config item for time in milliseconds before the first retry after failing fast */
+    public static final HWConfigItem<Integer> BREAKER_INITIAL_BACKOFF = new HWConfigItem<>("breaker.backoff.initial", Integer.class, 1000);
+
+    /** Config item for maximum time in milliseconds between retries while failing fast */
+    public static final HWConfigItem<Integer> BREAKER_MAX_BACKOFF = new HWConfigItem<>("breaker.backoff.max", Integer.class, 60000);
+
+    /** Config item indicating whether to serve the last known response while failing fast */
+    public static final HWConfigItem<Boolean> BREAKER_SERVE_STALE = new HWConfigItem<>("breaker.servestale", Boolean.class, true);
+
+    /** Config item for maximum number of cached responses */
+    public static final HWConfigItem<Integer> CACHE_MAX_ENTRIES = new HWConfigItem<>("cache.maxentries", Integer.class, 256);
+
+    /** Config item for maximum approximate size of all cached responses in bytes */
+    public static final HWConfigItem<Integer> CACHE_MAX_BYTES = new HWConfigItem<>("cache.maxbytes", Integer.class, 4194304);
+
+    /** Config item for maximum number of worker threads per connection executing asynchronous calls */
+    public static final HWConfigItem<Integer> ASYNC_THREADS = new HWConfigItem<>("async.threads", Integer.class, 4);
+
+    /** Config item indicating whether statuses are refreshed by a background poller instead of on read */
+    public static final HWConfigItem<Boolean> POLLING_ENABLED = new HWConfigItem<>("polling.enabled", Boolean.class, false);
+
+    /** Config item for number of threads shared by the background pollers of all HomeWizards */
+    public static final HWConfigItem<Integer> POLLING_THREADS = new HWConfigItem<>("polling.threads", Integer.class, 2);
+
+    /** Config item indicating whether status update intervals adapt to the observed rate of change */
+    public static final HWConfigItem<Boolean> ADAPTIVE_INTERVALS = new HWConfigItem<>("updateinterval.adaptive", Boolean.class, false);
+
+    /** Config item for factor by which adaptive update intervals grow on each update without changes */
+    public static final HWConfigItem<Integer> ADAPTIVE_BACKOFF_FACTOR = new HWConfigItem<>("updateinterval.adaptive.backoff", Integer.class, 2);
+
+    /** Config item indicating whether all managers are initialized concurrently while constructing a HWSystem */
+    public static final HWConfigItem<Boolean> BOOTSTRAP_EAGER = new HWConfigItem<>("bootstrap.eager", Boolean.class, false);
+
+    /** Config item for the deadline in milliseconds of an eager bootstrap */
+    public static final HWConfigItem<Integer> BOOTSTRAP_TIMEOUT = new HWConfigItem<>("bootstrap.timeout", Integer.class, 10000);
+
+    /** Config item for maximum number of scenes of which the details are loaded in parallel */
+    public static final HWConfigItem<Integer> SCENE_PREFETCH_THREADS = new HWConfigItem<>("scenes.prefetch.threads", Integer.class, 4);
+
+    /** Config item for the snapshot file of the HWSystem constructed from this config, restored and saved on close */
+    public static final HWConfigItem<String> SNAPSHOT_FILE = new HWConfigItem<>("snapshot.file", String.class);
+
+    /** Config item for the time zone ID of the HomeWizard, such as "Europe/Amsterdam"; defaults to the JVM time zone */
+    public static final HWConfigItem<String> TIMEZONE = new HWConfigItem<>("timezone", String.class);
+
     /* Config loader */
 
     private static final String DEFAULT_CFG_FILE = "homewizard.cfg";
@@ -0,0 +1,38 @@
+package nl.rgonline.homewizardlib.connection;
+
+import lombok.Value;
+
+/**
+ * Snapshot of the {@link ResponseCache} statistics.
+ * @author pdegeus
+ */
+@Value
+public class CacheStats {
+
+    /** Number of lookups that returned valid data */
+    private long hits;
+
+    /** Number of lookups that found no data, or only expired data */
+    private long misses;
+
+    /**
+     * Number of least recently used entries removed because the cache budget was exceeded. Expired entries are not
+     * removed, they are kept for {@link ResponseCache#getStale(String)} until replaced or evicted.
+     */
+    private long evictions;
+
+    /** Current number of entries, including expired ones */
+    private int entries;
+
+    /** Current approximate size of all entries in bytes */
+    private long bytes;
+
+    /**
+     * @return Fraction of lookups that returned valid data, or 0 if there were no lookups.
+     */
+    public double getHitRatio() {
+        long total = hits + misses;
+        return (total == 0) ? 0 : (double) hits / total;
+    }
+
+}
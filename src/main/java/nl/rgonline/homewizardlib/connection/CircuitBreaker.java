@@ -0,0 +1,170 @@
+package nl.rgonline.homewizardlib.connection;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import nl.rgonline.homewizardlib.config.HWConfig;
+
+/**
+ * Circuit breaker guarding the requests of a {@link HWConnection}. After a number of consecutive IO failures the
+ * breaker opens, and requests fail immediately instead of waiting for the connect and read timeouts. After a backoff
+ * period a single probe request is allowed; if it fails, the breaker opens again with a doubled backoff.
+ * @author pdegeus
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    /**
+     * Circuit breaker state enum.
+     */
+    public enum State {
+        /** Requests are performed normally */
+        CLOSED,
+        /** Requests are rejected, the HomeWizard is known to be unreachable */
+        OPEN,
+        /** A single probe request is in progress */
+        HALF_OPEN
+    }
+
+    @Getter
+    private final int failureThreshold;
+
+    @Getter
+    private final long initialBackoff;
+
+    @Getter
+    private final long maxBackoff;
+
+    @Getter
+    private final boolean serveStale;
+
+    private final List<CircuitBreakerListener> listeners = new CopyOnWriteArrayList<>();
+
+    private State state = State.CLOSED;
+    private int failures = 0;
+    private long backoff;
+    private long openUntil = 0;
+
+    /**
+     * Constructor using the configured thresholds.
+     */
+    public CircuitBreaker() {
+        this(
+            HWConfig.BREAKER_FAILURE_THRESHOLD.getValue(), HWConfig.BREAKER_INITIAL_BACKOFF.getValue(),
+            HWConfig.BREAKER_MAX_BACKOFF.getValue(), HWConfig.BREAKER_SERVE_STALE.getValue()
+        );
+    }
+
+    /**
+     * Constructor.
+     * @param failureThreshold Number of consecutive failures after which the breaker opens.
+     * @param initialBackoff Time in milliseconds before the first probe after opening.
+     * @param maxBackoff Maximum time in milliseconds between probes.
+     * @param serveStale True to serve the last known response while the breaker is open, if available.
+     */
+    public CircuitBreaker(int failureThreshold, long initialBackoff, long maxBackoff, boolean serveStale) {
+        this.failureThreshold = failureThreshold;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.serveStale = serveStale;
+        this.backoff = initialBackoff;
+    }
+
+    /**
+     * Add a listener to notify of state transitions.
+     * @param listener Listener to add.
+     */
+    public void addListener(CircuitBreakerListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Remove a previously added listener.
+     * @param listener Listener to remove.
+     */
+    public void removeListener(CircuitBreakerListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @return The current state.
+     */
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * @return Timestamp (in milliseconds) until which requests are rejected, only meaningful when open.
+     */
+    public synchronized long getOpenUntil() {
+        return openUntil;
+    }
+
+    /**
+     * Indicates whether a request may be performed. When the backoff period of an open breaker has passed, the first
+     * caller is allowed to perform a probe request, and must report the result.
+     * @return True if the request may be performed.
+     */
+    public synchronized boolean allowRequest() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.currentTimeMillis() >= openUntil) {
+                    transition(State.HALF_OPEN);
+                    return true;
+                }
+                return false;
+            default:
+                // Probe in progress
+                return false;
+        }
+    }
+
+    /**
+     * Report a successful request. Closes the breaker.
+     */
+    public synchronized void onSuccess() {
+        failures = 0;
+        backoff = initialBackoff;
+        if (state != State.CLOSED) {
+            transition(State.CLOSED);
+        }
+    }
+
+    /**
+     * Report a failed request. Opens the breaker if the failure threshold is reached or the probe failed.
+     */
+    public synchronized void onFailure() {
+        failures++;
+        if (state == State.HALF_OPEN) {
+            backoff = Math.min(backoff * 2, maxBackoff);
+            open();
+        } else if (state == State.CLOSED && failures >= failureThreshold) {
+            open();
+        }
+    }
+
+    private void open() {
+        openUntil = System.currentTimeMillis() + backoff;
+        transition(State.OPEN);
+    }
+
+    private void transition(State to) {
+        State from = state;
+        state = to;
+
+        if (to == State.OPEN) {
+            log.warn("Circuit breaker opened after {} failures, next probe in {} ms", failures, backoff);
+        } else {
+            log.info("Circuit breaker state changed from {} to {}", from, to);
+        }
+
+        for (CircuitBreakerListener listener : listeners) {
+            listener.stateChanged(this, from, to);
+        }
+    }
+
+}
@@ -0,0 +1,17 @@
+package nl.rgonline.homewizardlib.connection;
+
+/**
+ * Listener for {@link CircuitBreaker} state transitions.
+ * @author pdegeus
+ */
+public interface CircuitBreakerListener {
+
+    /**
+     * Called after the circuit breaker changed state. Called while holding the breaker lock, so should not block.
+     * @param breaker The circuit breaker.
+     * @param from Previous state.
+     * @param to New state.
+     */
+    void stateChanged(CircuitBreaker breaker, CircuitBreaker.State from, CircuitBreaker.State to);
+
+}
@@ -0,0 +1,17 @@
+package nl.rgonline.homewizardlib.connection;
+
+import nl.rgonline.homewizardlib.metrics.EndpointFamily;
+
+/**
+ * Listener for commands sent to the HomeWizard, such as switching a switch.
+ * @author pdegeus
+ */
+public interface CommandListener {
+
+    /**
+     * Called after a command was sent successfully. Called on the thread sending the command, so should not block.
+     * @param family Endpoint family of the command.
+     */
+    void commandSent(EndpointFamily family);
+
+}
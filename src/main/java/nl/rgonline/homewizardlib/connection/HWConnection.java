@@ -1,13 +1,58 @@
 package nl.rgonline.homewizardlib.connection;
 
+import java.io.Closeable;
+import java.io.File;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+import lombok.Getter;
 import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
 import nl.rgonline.homewizardlib.config.HWConfig;
+import nl.rgonline.homewizardlib.exceptions.CircuitOpenException;
 import nl.rgonline.homewizardlib.exceptions.HWException;
+import nl.rgonline.homewizardlib.metrics.EndpointFamily;
+import nl.rgonline.homewizardlib.metrics.HWMetrics;
+import nl.rgonline.homewizardlib.metrics.InMemoryMetrics;
+import nl.rgonline.homewizardlib.metrics.NoOpMetrics;
+import nl.rgonline.homewizardlib.store.SegmentStore;
+import nl.rgonline.homewizardlib.util.DaemonThreadFactory;
+import nl.rgonline.homewizardlib.util.JsonUtil;
+import nl.rgonline.homewizardlib.util.TimestampParser;
 
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.StatusLine;
+import org.apache.http.client.ClientProtocolException;
 import org.apache.http.client.HttpClient;
+import org.apache.http.client.HttpResponseException;
 import org.apache.http.client.ResponseHandler;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
@@ -16,11 +61,14 @@ import org.apache.http.conn.scheme.PlainSocketFactory;
 import org.apache.http.conn.scheme.Scheme;
 import org.apache.http.conn.scheme.SchemeRegistry;
 import org.apache.http.conn.ssl.SSLSocketFactory;
-import org.apache.http.impl.client.BasicResponseHandler;
+import org.apache.http.entity.ContentType;
 import org.apache.http.impl.client.DefaultHttpClient;
 import org.apache.http.impl.conn.PoolingClientConnectionManager;
 import org.apache.http.params.HttpConnectionParams;
 import org.apache.http.params.HttpParams;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HTTP;
+import org.apache.http.util.EntityUtils;
 import org.json.JSONException;
 import org.json.JSONObject;
 
@@ -30,39 +78,160 @@ import org.json.JSONObject;
  * @author pdegeus
  */
 @Slf4j
-@ToString
-public final class HWConnection {
+@ToString(of = "connectionString")
+public final class HWConnection implements Closeable {
 
-    private static final PoolingClientConnectionManager CONNECTION_MANAGER;
-
-    static {
-        SchemeRegistry schemeRegistry = new SchemeRegistry();
-        schemeRegistry.register(new Scheme("http", 80, PlainSocketFactory.getSocketFactory()));
-        schemeRegistry.register(new Scheme("https", 443, SSLSocketFactory.getSocketFactory()));
-
-        CONNECTION_MANAGER = new PoolingClientConnectionManager(schemeRegistry);
-        CONNECTION_MANAGER.setMaxTotal(HWConfig.MAX_TOTAL_CONNECTIONS.getValue());
-        CONNECTION_MANAGER.setDefaultMaxPerRoute(HWConfig.MAX_ROUTE_CONNECTIONS.getValue());
-    }
+    // Shared scheduler evicting idle pooled connections of all HWConnections
+    private static final ScheduledExecutorService IDLE_MONITOR =
+        Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("hw-idle-monitor"));
 
     private HttpClient httpClient;
     private ResponseCache cache;
     private String connectionString;
 
+    // Subdirectory of the store directory holding the local stores of this HomeWizard
+    private final String storeDirectoryName;
+
+    @Getter
+    private final StatusHub statusHub;
+
+    @Getter
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    @Getter
+    private volatile HWMetrics metrics = NoOpMetrics.INSTANCE;
+
+    /** Parser for graph and log timestamps, in the time zone of the HomeWizard */
+    @Getter
+    private volatile TimestampParser timestampParser = new TimestampParser(TimeZone.getDefault());
+
+    private final List<CommandListener> commandListeners = new CopyOnWriteArrayList<>();
+
+    // Local stores by name, guarded by the map itself
+    private final Map<String, SegmentStore> stores = new HashMap<>();
+
+    private final ConcurrentMap<String, FutureTask<JSONObject>> inFlightRequests = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicLong> coalescedRequests = new ConcurrentHashMap<>();
+
+    private final ExecutorService asyncExecutor;
+
+    private final PoolingClientConnectionManager connectionManager;
+    private final ScheduledFuture<?> idleMonitorTask;
+    private volatile boolean closed = false;
+
     /**
-     * Constructor.
+     * Constructor using the configured connection pool limits.
      * @param host Host to connect to.
      * @param port Port to connect to.
      * @param password Password to use.
      */
     public HWConnection(String host, int port, String password) {
+        this(host, port, password, HWConfig.MAX_TOTAL_CONNECTIONS.getValue(), HWConfig.MAX_ROUTE_CONNECTIONS.getValue());
+    }
+
+    /**
+     * Constructor. Each connection owns its own connection pool, so a slow HomeWizard can not exhaust the connections
+     * available to other HomeWizards. Call {@link #close()} to release the pool when the connection is no longer used.
+     * @param host Host to connect to.
+     * @param port Port to connect to.
+     * @param password Password to use.
+     * @param maxTotalConnections Maximum number of concurrent connections of this connection pool.
+     * @param maxRouteConnections Maximum number of concurrent connections per route (URL) of this connection pool.
+     */
+    public HWConnection(String host, int port, String password, int maxTotalConnections, int maxRouteConnections) {
 		this.connectionString = String.format("http://%s:%d/%s", host, port, password);
-        this.httpClient = new DefaultHttpClient(CONNECTION_MANAGER);
+        this.storeDirectoryName = host.replaceAll("[^A-Za-z0-9.-]", "_") + "_" + port;
+        this.connectionManager = createConnectionManager(maxTotalConnections, maxRouteConnections);
+        this.httpClient = new DefaultHttpClient(connectionManager);
         this.cache = new ResponseCache();
+        this.statusHub = new StatusHub(this);
+
+        // Bounded worker pool for asynchronous calls; idle workers are released
+        int asyncThreads = HWConfig.ASYNC_THREADS.getValue();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            asyncThreads, asyncThreads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+            new DaemonThreadFactory("hw-async-" + host)
+        );
+        executor.allowCoreThreadTimeOut(true);
+        this.asyncExecutor = executor;
 
         HttpParams params = httpClient.getParams();
         HttpConnectionParams.setConnectionTimeout(params, HWConfig.CONNECT_TIMEOUT.getValue());
         HttpConnectionParams.setSoTimeout(params, HWConfig.READ_TIMEOUT.getValue());
+
+        // Periodically close expired and idle connections
+        final long idleTimeout = HWConfig.CONNECTION_IDLE_TIMEOUT.getValue();
+        this.idleMonitorTask = IDLE_MONITOR.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                connectionManager.closeExpiredConnections();
+                connectionManager.closeIdleConnections(idleTimeout, TimeUnit.MILLISECONDS);
+            }
+        }, idleTimeout, idleTimeout, TimeUnit.MILLISECONDS);
+    }
+
+    private static PoolingClientConnectionManager createConnectionManager(int maxTotal, int maxPerRoute) {
+        SchemeRegistry schemeRegistry = new SchemeRegistry();
+        schemeRegistry.register(new Scheme("http", 80, PlainSocketFactory.getSocketFactory()));
+        schemeRegistry.register(new Scheme("https", 443, SSLSocketFactory.getSocketFactory()));
+
+        PoolingClientConnectionManager manager = new PoolingClientConnectionManager(schemeRegistry);
+        manager.setMaxTotal(maxTotal);
+        manager.setDefaultMaxPerRoute(maxPerRoute);
+        return manager;
+    }
+
+    /**
+     * @return Statistics of the connection pool of this connection: leased, pending, available and maximum connections.
+     */
+    public PoolStats getPoolStats() {
+        return connectionManager.getTotalStats();
+    }
+
+    /**
+     * @return True if this connection has been closed.
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Closes this connection: stops the asynchronous worker pool, waiting for running calls to complete, and closes
+     * all pooled connections and local stores. Any request performed after closing fails.
+     */
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            idleMonitorTask.cancel(false);
+            asyncExecutor.shutdown();
+            awaitAsyncCalls();
+            connectionManager.shutdown();
+            synchronized (stores) {
+                for (SegmentStore store : stores.values()) {
+                    store.close();
+                }
+                stores.clear();
+            }
+            log.debug("Closed connection {}", this);
+        }
+    }
+
+    /**
+     * Waits for the running asynchronous calls to complete, bounded by the time a single request may take, so they do
+     * not use the connection pool or stores while these are closed.
+     */
+    private void awaitAsyncCalls() {
+        long timeout = HWConfig.CONNECT_TIMEOUT.getValue() + HWConfig.READ_TIMEOUT.getValue();
+        try {
+            if (!asyncExecutor.awaitTermination(timeout, TimeUnit.MILLISECONDS)) {
+                log.warn("Asynchronous calls of {} still running after {} ms, closing anyway", this, timeout);
+                asyncExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            asyncExecutor.shutdownNow();
+        }
     }
 
     /**
@@ -76,65 +245,515 @@ public final class HWConnection {
 
     /**
      * Perform a request to the HomeWizard and return the result.
+     * <p/>
+     * Concurrent calls for the same cacheable request are coalesced: only one HTTP request is performed, and the
+     * parsed result is cached. Each caller receives its own copy of a cacheable result, so modifying it does not
+     * affect the cache or other callers.
      * @param request Request to perform.
      * @return Parsed response.
      * @throws HWException On any IO or JSON error.
      */
     public JSONObject request(Request request) throws HWException {
-        StringBuilder sb = new StringBuilder(connectionString);
-        for (Object urlPart : request.getUrlParts()) {
-            sb.append(urlPart);
+        JSONObject result = requestShared(request);
+        if (!request.isCacheable()) {
+            return result;
+        }
+        try {
+            return JsonUtil.copy(result);
+        } catch (JSONException e) {
+            throw new HWException("Error copying JSON:\n" + result, e);
         }
+    }
 
-        String url = sb.toString();
-        long maxAge = request.getMaxAge();
+    /**
+     * Perform a request to the HomeWizard and return the result. A cacheable result is shared with the cache and all
+     * other callers, and must not be modified.
+     * @param request Request to perform.
+     * @return Parsed response.
+     * @throws HWException On any IO or JSON error.
+     */
+    JSONObject requestShared(Request request) throws HWException {
+        String path = buildPath(request);
+        String url = connectionString + path;
 
-        //Get from cache if applicable
-        String response;
-        if (request.isCacheable() && cache.hasResponse(url, maxAge)) {
-            log.debug("Using cached response for {} {}", request.getMethod(), url);
-            response = cache.get(url);
+        JSONObject root;
+        if (request.isCacheable()) {
+            //Get from cache if applicable
+            EndpointFamily family = EndpointFamily.forPath(path);
+            root = cache.get(url, request.getMaxAge());
+            if (root != null) {
+                log.debug("Using cached response for {} {}", request.getMethod(), url);
+                metrics.cacheHit(family);
+            } else {
+                metrics.cacheMiss(family);
+                try {
+                    root = requestCoalesced(request, path, url);
+                } catch (CircuitOpenException e) {
+                    root = circuitBreaker.isServeStale() ? cache.getStale(url) : null;
+                    if (root == null) {
+                        throw e;
+                    }
+                    log.debug("HomeWizard unreachable, using stale response for {}", url);
+                }
+            }
         } else {
-            log.debug("Performing {} request: {}", request.getMethod(), url);
-
-            HttpRequestBase req;
-            switch (request.getMethod()) {
-                case GET:
-                    req = new HttpGet(url);
-                    break;
-                case POST:
-                    req = new HttpPost(url);
-                    break;
-                default:
-                    throw new IllegalArgumentException("Unknown method: " + request.getMethod());
-            }
-
-            //Get data
-            ResponseHandler<String> responseHandler = new BasicResponseHandler();
+            root = parse(execute(request, path));
+            notifyCommandSent(EndpointFamily.forPath(path));
+        }
+
+        return request.isReturnResponse() ? extractResponse(root) : root;
+    }
+
+    /**
+     * Perform a request to the HomeWizard asynchronously.
+     * @param request Request to perform.
+     * @return Future for the parsed response.
+     * @see #request(Request)
+     */
+    public Future<JSONObject> requestAsync(Request request) {
+        return requestAsync(request, null);
+    }
+
+    /**
+     * Perform a request to the HomeWizard asynchronously.
+     * @param request Request to perform.
+     * @param callback Callback to notify on completion, or null.
+     * @return Future for the parsed response.
+     * @see #request(Request)
+     */
+    public Future<JSONObject> requestAsync(final Request request, ResponseCallback<JSONObject> callback) {
+        return submit(new Callable<JSONObject>() {
+            @Override
+            public JSONObject call() throws HWException {
+                return request(request);
+            }
+        }, callback);
+    }
+
+    /**
+     * Performs the given requests concurrently, using the worker pool of this connection. The calling thread performs
+     * any request the pool did not start yet itself, so this method is safe to call from a worker thread.
+     * @param requests Requests to perform.
+     * @return Parsed responses, in request order.
+     * @throws HWException On any IO or JSON error. Remaining requests still complete.
+     * @see #request(Request)
+     */
+    public List<JSONObject> requestAll(List<Request> requests) throws HWException {
+        List<FutureTask<JSONObject>> tasks = new ArrayList<>(requests.size());
+        for (final Request request : requests) {
+            FutureTask<JSONObject> task = new FutureTask<>(new Callable<JSONObject>() {
+                @Override
+                public JSONObject call() throws HWException {
+                    return request(request);
+                }
+            });
+            tasks.add(task);
+        }
+
+        // The first request is performed by the calling thread anyway
+        for (int i = 1; i < tasks.size(); i++) {
             try {
-                response = httpClient.execute(req, responseHandler).trim();
-            } catch (IOException e) {
-                throw new HWException("HomeWizard IO error", e);
+                asyncExecutor.execute(tasks.get(i));
+            } catch (RejectedExecutionException e) {
+                // Closed; the calling thread runs the remaining requests, which fail
+                break;
+            }
+        }
+
+        List<JSONObject> responses = new ArrayList<>(tasks.size());
+        HWException failure = null;
+        for (FutureTask<JSONObject> task : tasks) {
+            // No-op if started by the pool already
+            task.run();
+            try {
+                responses.add(await(task));
+            } catch (HWException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+        return responses;
+    }
+
+    /**
+     * Executes the given task on the worker pool of this connection. Used for all asynchronous calls, so the number of
+     * concurrent requests to the HomeWizard stays bounded regardless of the number of callers.
+     * @param task Task to execute, typically performing one or more requests.
+     * @param callback Callback to notify on completion, or null.
+     * @param <T> Type of the task result.
+     * @return Future for the task result. A failed future holds an {@link HWException} as cause. After this
+     *     connection is closed, the task is not executed and the future has failed already.
+     */
+    public <T> Future<T> submit(final Callable<T> task, final ResponseCallback<T> callback) {
+        Callable<T> call = new Callable<T>() {
+            @Override
+            public T call() throws HWException {
+                T result;
+                try {
+                    result = task.call();
+                } catch (HWException e) {
+                    notifyFailed(callback, e);
+                    throw e;
+                } catch (Exception e) {
+                    HWException hwe = new HWException("Asynchronous HomeWizard call failed", e);
+                    notifyFailed(callback, hwe);
+                    throw hwe;
+                }
+
+                if (callback != null) {
+                    callback.completed(result);
+                }
+                return result;
+            }
+        };
+
+        try {
+            return asyncExecutor.submit(call);
+        } catch (RejectedExecutionException e) {
+            HWException hwe = new HWException("HomeWizard connection is closed", e);
+            notifyFailed(callback, hwe);
+            return failedFuture(hwe);
+        }
+    }
+
+    private static <T> Future<T> failedFuture(final HWException e) {
+        FutureTask<T> future = new FutureTask<>(new Callable<T>() {
+            @Override
+            public T call() throws HWException {
+                throw e;
+            }
+        });
+        future.run();
+        return future;
+    }
+
+    private static <T> void notifyFailed(ResponseCallback<T> callback, HWException e) {
+        if (callback != null) {
+            callback.failed(e);
+        }
+    }
+
+    /**
+     * Performs the given cacheable request, or waits for the identical request already in flight.
+     * @param request Request to perform.
+     * @param path Request path, used as key for the coalescing counters.
+     * @param url Full request URL.
+     * @return Parsed response, shared with all coalesced callers.
+     * @throws HWException On any IO or JSON error.
+     */
+    private JSONObject requestCoalesced(final Request request, final String path, final String url) throws HWException {
+        FutureTask<JSONObject> task = new FutureTask<>(new Callable<JSONObject>() {
+            @Override
+            public JSONObject call() throws HWException {
+                String response = execute(request, path);
+                JSONObject root = parse(response);
+                cache.add(url, root, response);
+                return root;
             }
+        });
 
-            //Add to cache
-            if (request.isCacheable()) {
-                cache.add(url, response);
+        FutureTask<JSONObject> inFlight = inFlightRequests.putIfAbsent(url, task);
+        if (inFlight == null) {
+            try {
+                task.run();
+            } finally {
+                inFlightRequests.remove(url, task);
             }
+            inFlight = task;
+        } else {
+            log.debug("Joining in-flight request: {}", url);
+            getCounter(path).incrementAndGet();
+            metrics.requestCoalesced(EndpointFamily.forPath(path));
         }
 
-        //Parse
-        return parse(response, request.isReturnResponse());
+        return await(inFlight);
+    }
+
+    private static JSONObject await(Future<JSONObject> future) throws HWException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof HWException) {
+                throw (HWException) e.getCause();
+            }
+            throw new HWException("HomeWizard request failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HWException("Interrupted while waiting for HomeWizard response", e);
+        }
+    }
+
+    /**
+     * Performs the actual HTTP request.
+     * @param request Request to perform.
+     * @param path Request path, without host and password.
+     * @return Trimmed response body.
+     * @throws HWException On any IO error.
+     */
+    private String execute(Request request, String path) throws HWException {
+        final EndpointFamily family = EndpointFamily.forPath(path);
+        String response = execute(request, path, new ResponseHandler<String>() {
+            @Override
+            public String handleResponse(HttpResponse response) throws IOException {
+                HttpEntity entity = getEntity(response);
+                byte[] body = EntityUtils.toByteArray(entity);
+                metrics.bytesReceived(family, body.length);
+                return new String(body, getCharset(entity));
+            }
+        });
+        return response.trim();
+    }
+
+    /**
+     * Performs the actual HTTP request, reading the response with the given handler.
+     * @param request Request to perform.
+     * @param path Request path, without host and password.
+     * @param responseHandler Handler reading the response.
+     * @param <T> Type of the response handler result.
+     * @return Response handler result.
+     * @throws HWException On any IO error.
+     */
+    private <T> T execute(Request request, String path, ResponseHandler<T> responseHandler) throws HWException {
+        if (closed) {
+            throw new HWException("HomeWizard connection is closed");
+        }
+
+        // Build the request before asking the breaker, a granted probe must always report its result
+        String url = connectionString + path;
+        HttpRequestBase req;
+        switch (request.getMethod()) {
+            case GET:
+                req = new HttpGet(url);
+                break;
+            case POST:
+                req = new HttpPost(url);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown method: " + request.getMethod());
+        }
+
+        EndpointFamily family = EndpointFamily.forPath(path);
+        if (!circuitBreaker.allowRequest()) {
+            metrics.requestRejected(family);
+            Date retry = new Date(circuitBreaker.getOpenUntil());
+            throw new CircuitOpenException("HomeWizard unreachable, failing fast until " + retry);
+        }
+        log.debug("Performing {} request: {}", request.getMethod(), url);
+
+        //Get data, the breaker only counts failures to reach the HomeWizard
+        T result;
+        long start = System.currentTimeMillis();
+        try {
+            result = httpClient.execute(req, responseHandler);
+        } catch (StreamParseException e) {
+            metrics.requestFailed(family, System.currentTimeMillis() - start);
+            circuitBreaker.onSuccess();
+            throw e.getHWException();
+        } catch (HttpResponseException e) {
+            metrics.requestFailed(family, System.currentTimeMillis() - start);
+            circuitBreaker.onSuccess();
+            throw new HWException("HomeWizard IO error", e);
+        } catch (IOException e) {
+            metrics.requestFailed(family, System.currentTimeMillis() - start);
+            circuitBreaker.onFailure();
+            throw new HWException("HomeWizard IO error", e);
+        } catch (RuntimeException | Error e) {
+            metrics.requestFailed(family, System.currentTimeMillis() - start);
+            circuitBreaker.onFailure();
+            throw e;
+        }
+
+        metrics.requestCompleted(family, System.currentTimeMillis() - start);
+        circuitBreaker.onSuccess();
+        return result;
+    }
+
+    /**
+     * Perform a request to the HomeWizard, streaming the items of the 'response' array to the given handler while the
+     * response is being read. The complete response is never held in memory, which makes this method suitable for
+     * large responses such as graph data and logs. Streamed requests are never cached.
+     * @param request Request to perform.
+     * @param handler Handler to call for each item of the 'response' array.
+     * @throws HWException On any IO, JSON or handler error.
+     */
+    public void requestStream(Request request, final ResponseItemHandler handler) throws HWException {
+        String path = buildPath(request);
+        final EndpointFamily family = EndpointFamily.forPath(path);
+        execute(request, path, new ResponseHandler<Void>() {
+            @Override
+            public Void handleResponse(HttpResponse response) throws IOException {
+                HttpEntity entity = getEntity(response);
+                CountingInputStream in = new CountingInputStream(entity.getContent());
+                try (Reader reader = new InputStreamReader(in, getCharset(entity))) {
+                    StreamingResponseParser.parse(reader, handler);
+                } catch (HWException e) {
+                    throw new StreamParseException(e);
+                } finally {
+                    metrics.bytesReceived(family, in.getCount());
+                }
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Returns the entity of a successful response. Both the buffered and the streamed response handlers count the
+     * bytes of the entity as received.
+     * @param response HTTP response.
+     * @return The response entity.
+     * @throws IOException If the response has an error status or no content.
+     */
+    private static HttpEntity getEntity(HttpResponse response) throws IOException {
+        StatusLine statusLine = response.getStatusLine();
+        HttpEntity entity = response.getEntity();
+        if (statusLine.getStatusCode() >= 300) {
+            EntityUtils.consume(entity);
+            throw new HttpResponseException(statusLine.getStatusCode(), statusLine.getReasonPhrase());
+        }
+        if (entity == null) {
+            throw new ClientProtocolException("Response contains no content");
+        }
+        return entity;
+    }
+
+    private static Charset getCharset(HttpEntity entity) {
+        Charset charset = ContentType.getOrDefault(entity).getCharset();
+        return (charset == null) ? HTTP.DEF_CONTENT_CHARSET : charset;
+    }
+
+    private static String buildPath(Request request) {
+        StringBuilder sb = new StringBuilder();
+        for (Object urlPart : request.getUrlParts()) {
+            sb.append(urlPart);
+        }
+        return sb.toString();
+    }
+
+    private AtomicLong getCounter(String path) {
+        AtomicLong counter = coalescedRequests.get(path);
+        if (counter == null) {
+            AtomicLong created = new AtomicLong();
+            counter = coalescedRequests.putIfAbsent(path, created);
+            if (counter == null) {
+                counter = created;
+            }
+        }
+        return counter;
+    }
+
+    /**
+     * Returns the number of requests that were served by joining an identical request already in flight, instead of
+     * performing an HTTP request of their own.
+     * @return Map of request path (without host and password) to the number of coalesced requests.
+     */
+    public Map<String, Long> getCoalescedRequests() {
+        Map<String, Long> result = new TreeMap<>();
+        for (Map.Entry<String, AtomicLong> entry : coalescedRequests.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().get());
+        }
+        return result;
+    }
+
+    /**
+     * Sets the metrics receiver of this connection. By default, metrics are ignored.
+     * @param metrics Metrics receiver, such as {@link InMemoryMetrics}, or null to ignore metrics.
+     */
+    public void setMetrics(HWMetrics metrics) {
+        this.metrics = (metrics == null) ? NoOpMetrics.INSTANCE : metrics;
+    }
+
+    /**
+     * Sets the time zone of the HomeWizard, used to interpret graph and log timestamps. Defaults to the time zone of
+     * this JVM. Data loaded before does not change.
+     * @param timeZone Time zone of the HomeWizard.
+     */
+    public void setTimeZone(TimeZone timeZone) {
+        this.timestampParser = new TimestampParser(timeZone);
+    }
+
+    /**
+     * Opens the local store of an entity, if a store directory is configured using the 'store.directory' config
+     * property. The stores of each HomeWizard are kept in a subdirectory named after its host and port, such as
+     * "192.168.1.10_80". Stores are opened once per name, and closed with this connection. A store can only be opened
+     * by one connection at a time.
+     * @param name Name of the store, unique per entity of this HomeWizard, such as "sensor-1".
+     * @param payloadSize Size of the payload of each record, in bytes.
+     * @return The store, or null if no store directory is configured.
+     * @throws HWException If the store can not be opened, is opened by another connection, or this connection is
+     * closed.
+     */
+    public SegmentStore getStore(String name, int payloadSize) throws HWException {
+        if (!HWConfig.STORE_DIRECTORY.hasValue()) {
+            return null;
+        }
+
+        synchronized (stores) {
+            if (closed) {
+                throw new HWException("HomeWizard connection is closed");
+            }
+            SegmentStore store = stores.get(name);
+            if (store == null) {
+                File directory = new File(new File(HWConfig.STORE_DIRECTORY.getValue(), storeDirectoryName), name);
+                try {
+                    store = new SegmentStore(directory, payloadSize, HWConfig.STORE_SEGMENT_RECORDS.getValue());
+                } catch (IOException e) {
+                    throw new HWException("Could not open store " + directory, e);
+                }
+                stores.put(name, store);
+            }
+            return store;
+        }
+    }
+
+    /**
+     * Registers a listener for commands sent through this connection.
+     * @param listener Listener to add.
+     */
+    public void addCommandListener(CommandListener listener) {
+        commandListeners.add(listener);
+    }
+
+    /**
+     * Removes a listener added with {@link #addCommandListener(CommandListener)}.
+     * @param listener Listener to remove.
+     */
+    public void removeCommandListener(CommandListener listener) {
+        commandListeners.remove(listener);
+    }
+
+    private void notifyCommandSent(EndpointFamily family) {
+        if (!family.isCommand()) {
+            return;
+        }
+
+        for (CommandListener listener : commandListeners) {
+            try {
+                listener.commandSent(family);
+            } catch (RuntimeException e) {
+                log.warn("Command listener failed on {}", family, e);
+            }
+        }
+    }
+
+    /**
+     * @return A snapshot of the response cache statistics.
+     */
+    public CacheStats getCacheStats() {
+        return cache.getStats();
     }
 
     /**
      * Reads the server response and returns the parsed JSON data.
      * @param jsonString The response from the server.
-     * @param returnResponse True to extract the 'response' object, false to return all data.
-     * @return A JSONObject representing the response.
-     * @throws HWException On any IO or JSON error.
+     * @return A JSONObject representing the complete response.
+     * @throws HWException On any IO or JSON error, or if the HomeWizard did not return an OK status.
      */
-    private JSONObject parse(String jsonString, boolean returnResponse) throws HWException {
+    static JSONObject parse(String jsonString) throws HWException {
         JSONObject retVal;
         try {
             retVal = new JSONObject(jsonString);
@@ -143,10 +762,6 @@ public final class HWConnection {
             if (!retVal.getString("status").equals("ok")) {
                 throw new HWException("HomeWizard returns not an OK status: " + jsonString);
             }
-
-            if (returnResponse && retVal.has("response")) {
-                retVal = retVal.getJSONObject("response");
-            }
         } catch (JSONException e) {
             throw new HWException("Error parsing JSON:\n" + jsonString, e);
         }
@@ -154,4 +769,73 @@ public final class HWConnection {
         return retVal;
     }
 
+    /**
+     * Extracts the 'response' object from the given parsed server response, if it has one.
+     * @param root The complete parsed server response.
+     * @return The 'response' object, or {@code root} if there is none.
+     * @throws HWException If the 'response' field is not an object.
+     */
+    static JSONObject extractResponse(JSONObject root) throws HWException {
+        if (!root.has("response")) {
+            return root;
+        }
+        try {
+            return root.getJSONObject("response");
+        } catch (JSONException e) {
+            throw new HWException("Error parsing JSON:\n" + root, e);
+        }
+    }
+
+    /**
+     * Carries an {@link HWException} from a streaming response handler through the HTTP client.
+     */
+    private static final class StreamParseException extends IOException {
+
+        private static final long serialVersionUID = 3405215436095830632L;
+
+        private StreamParseException(HWException cause) {
+            super(cause);
+        }
+
+        private HWException getHWException() {
+            return (HWException) getCause();
+        }
+
+    }
+
+    /**
+     * Input stream counting the number of bytes read.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private long count = 0;
+
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int result = super.read();
+            if (result != -1) {
+                count++;
+            }
+            return result;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int result = super.read(b, off, len);
+            if (result > 0) {
+                count += result;
+            }
+            return result;
+        }
+
+        private long getCount() {
+            return count;
+        }
+
+    }
+
 }
@@ -1,54 +1,131 @@
 package nl.rgonline.homewizardlib.connection;
 
-import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import nl.rgonline.homewizardlib.config.HWConfig;
+
+import org.json.JSONObject;
 
 /**
- * HTTP request response cache.
+ * HTTP request response cache. Responses are stored in their parsed and validated form, so a cache hit costs a single
+ * lookup and no parsing. Cached objects are shared between all callers within the library and must not be modified;
+ * {@link HWConnection#request(Request)} hands out copies.
+ * <p/>
+ * The cache is thread-safe and bounded by both a maximum number of entries and a
+ * maximum (approximate) size in bytes. When either budget is exceeded, the least recently used entries are evicted.
  * @author pdegeus
  */
 public class ResponseCache {
 
-    private Map<String, CacheItem> cacheData = new HashMap<>();
+    private final int maxEntries;
+    private final long maxBytes;
+
+    // Access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<String, CacheItem> cacheData = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes = 0;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Constructor using the configured entry and byte budgets.
+     */
+    public ResponseCache() {
+        this(HWConfig.CACHE_MAX_ENTRIES.getValue(), HWConfig.CACHE_MAX_BYTES.getValue());
+    }
 
     /**
-     * Add data for the given URL.
+     * Constructor.
+     * @param maxEntries Maximum number of cached responses.
+     * @param maxBytes Maximum approximate size of all cached responses in bytes.
+     */
+    public ResponseCache(int maxEntries, long maxBytes) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Add data for the given URL. Evicts the least recently used entries if the cache exceeds its budget.
      * @param url URL to save under.
-     * @param data Data to save.
+     * @param data Parsed response to save.
+     * @param response The raw response, used to estimate the size of the parsed data.
+     */
+    public void add(String url, JSONObject data, String response) {
+        CacheItem item = new CacheItem(data, System.currentTimeMillis(), sizeOf(response));
+
+        synchronized (cacheData) {
+            CacheItem old = cacheData.put(url, item);
+            if (old != null) {
+                bytes -= old.getSize();
+            }
+            bytes += item.getSize();
+
+            // Evict LRU entries, never the entry just added
+            Iterator<CacheItem> it = cacheData.values().iterator();
+            while ((cacheData.size() > maxEntries || bytes > maxBytes) && cacheData.size() > 1) {
+                CacheItem eldest = it.next();
+                it.remove();
+                bytes -= eldest.getSize();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Retrieve the cached data for the given URL if it is still valid. This is a single atomic lookup.
+     * Expired data is kept until it is replaced or evicted, see {@link #getStale(String)}.
+     * @param url URL to get data for.
+     * @param maxAge Maximum age in milliseconds.
+     * @return Cached data, or null if not found or expired.
      */
-    public void add(String url, String data) {
-        cacheData.put(url, new CacheItem(data, System.currentTimeMillis()));
+    public JSONObject get(String url, long maxAge) {
+        synchronized (cacheData) {
+            CacheItem item = cacheData.get(url);
+            if (item == null || !isValid(item, maxAge)) {
+                misses.incrementAndGet();
+                return null;
+            }
+            hits.incrementAndGet();
+            return item.getData();
+        }
     }
 
     /**
-     * Retrieve cached data for the given URL, without checking validity.
-     * To verify if data is still valid, use {@link #hasResponse(String, long)}.
+     * Retrieve the last cached data for the given URL, regardless of its age. Used to serve the last known response
+     * while the HomeWizard is unreachable.
      * @param url URL to get data for.
      * @return Cached data, or null if not found.
      */
-    public String get(String url) {
-        if (!cacheData.containsKey(url)) {
-            return null;
+    public JSONObject getStale(String url) {
+        synchronized (cacheData) {
+            CacheItem item = cacheData.get(url);
+            return (item == null) ? null : item.getData();
         }
-        return cacheData.get(url).getData();
     }
 
     /**
-     * Indicates whether a still valid, cached response is available for the given URL.
-     * @param url URL to check.
-     * @param maxAge Maximum age.
-     * @return True if cached data exists and is not expired.
+     * Removes all cached data. Statistics counters are not reset.
      */
-    public boolean hasResponse(String url, long maxAge) {
-        if (!cacheData.containsKey(url)) {
-            return false;
+    public void clear() {
+        synchronized (cacheData) {
+            cacheData.clear();
+            bytes = 0;
         }
+    }
 
-        CacheItem item = cacheData.get(url);
-        return isValid(item, maxAge);
+    /**
+     * @return A snapshot of the cache statistics.
+     */
+    public CacheStats getStats() {
+        synchronized (cacheData) {
+            return new CacheStats(hits.get(), misses.get(), evictions.get(), cacheData.size(), bytes);
+        }
     }
 
     private boolean isValid(CacheItem item, long maxAge) {
@@ -56,11 +133,17 @@ public class ResponseCache {
         return (age <= maxAge);
     }
 
+    private static long sizeOf(String response) {
+        // Java strings use two bytes per character, the parsed form is of similar size
+        return (response == null) ? 0 : 2L * response.length();
+    }
+
     @Data
     @AllArgsConstructor
     private static class CacheItem {
-        private String data;
+        private JSONObject data;
         private long timestamp;
+        private long size;
     }
 
 }
@@ -0,0 +1,25 @@
+package nl.rgonline.homewizardlib.connection;
+
+import nl.rgonline.homewizardlib.exceptions.HWException;
+
+/**
+ * Callback for asynchronous HomeWizard calls. Callbacks are invoked on the connection's worker thread and
+ * should not block.
+ * @param <T> Type of the result.
+ * @author pdegeus
+ */
+public interface ResponseCallback<T> {
+
+    /**
+     * Called when the call completed successfully.
+     * @param result Call result.
+     */
+    void completed(T result);
+
+    /**
+     * Called when the call failed.
+     * @param e Failure cause.
+     */
+    void failed(HWException e);
+
+}
@@ -0,0 +1,22 @@
+package nl.rgonline.homewizardlib.connection;
+
+import nl.rgonline.homewizardlib.exceptions.HWException;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Handler for the items of a streamed 'response' array, see {@link HWConnection#requestStream}.
+ * @author pdegeus
+ */
+public interface ResponseItemHandler {
+
+    /**
+     * Called for each item of the 'response' array, in order.
+     * @param item The parsed array item.
+     * @throws JSONException On any JSON read error.
+     * @throws HWException On any other item processing error.
+     */
+    void handle(JSONObject item) throws JSONException, HWException;
+
+}
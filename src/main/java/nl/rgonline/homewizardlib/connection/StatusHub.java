@@ -0,0 +1,204 @@
+package nl.rgonline.homewizardlib.connection;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import lombok.extern.slf4j.Slf4j;
+import nl.rgonline.homewizardlib.exceptions.CircuitOpenException;
+import nl.rgonline.homewizardlib.exceptions.HWException;
+import nl.rgonline.homewizardlib.metrics.EndpointFamily;
+
+import org.json.JSONObject;
+
+/**
+ * Fetches the shared status endpoints ({@code /get-status} and {@code /get-sensors}) once per cycle, and hands the
+ * parsed result to every subscribed manager. All managers reading the same endpoint therefore see one consistent
+ * snapshot, and the HomeWizard only receives a single request per cycle.
+ * @author pdegeus
+ */
+@Slf4j
+public class StatusHub {
+
+    /** Status endpoint, containing the current state of switches and sensors. */
+    public static final String GET_STATUS = "/get-status";
+
+    /** Sensor endpoint, containing the sensor and camera inventories. */
+    public static final String GET_SENSORS = "/get-sensors";
+
+    private final HWConnection connection;
+    private final ConcurrentMap<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor.
+     * @param connection Connection to fetch data with.
+     */
+    public StatusHub(HWConnection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * Subscribe to new snapshots of the given endpoint. The listener is called each time the endpoint is fetched,
+     * regardless of which manager triggered the fetch.
+     * <p/>
+     * Listeners are notified after the fetch completed, one snapshot at a time and in order. A fetch completing while
+     * the listeners are busy with a previous snapshot does not wait for them; its snapshot is delivered next by the
+     * notifying thread, so a slow listener never holds up other readers of the endpoint. Listener errors are logged,
+     * and affect neither the other listeners nor the caller that triggered the fetch.
+     * @param endpoint Endpoint path, such as {@link #GET_STATUS}.
+     * @param listener Listener to notify.
+     */
+    public void subscribe(String endpoint, StatusListener listener) {
+        getEndpoint(endpoint).listeners.add(listener);
+    }
+
+    /**
+     * Returns the snapshot of the given endpoint, including all data next to the 'response' object.
+     * The snapshot is only fetched from the HomeWizard if the current one is older than {@code maxAge}.
+     * @param endpoint Endpoint path, such as {@link #GET_STATUS}.
+     * @param maxAge Maximum snapshot age in milliseconds. Use 0 to force a fetch.
+     * @return Parsed snapshot, shared with all other callers. Must not be modified.
+     * @throws HWException On any IO or JSON error.
+     */
+    public JSONObject get(String endpoint, long maxAge) throws HWException {
+        return getEndpoint(endpoint).get(maxAge).root;
+    }
+
+    /**
+     * Returns the 'response' object of the given endpoint. The snapshot is only fetched from the HomeWizard if the
+     * current one is older than {@code maxAge}.
+     * @param endpoint Endpoint path, such as {@link #GET_STATUS}.
+     * @param maxAge Maximum snapshot age in milliseconds. Use 0 to force a fetch.
+     * @return Parsed 'response' object, shared with all other callers. Must not be modified.
+     * @throws HWException On any IO or JSON error.
+     */
+    public JSONObject getResponse(String endpoint, long maxAge) throws HWException {
+        return getEndpoint(endpoint).get(maxAge).response;
+    }
+
+    /**
+     * Ensures the snapshot of the given endpoint is not older than {@code maxAge}. If a new snapshot is fetched,
+     * all subscribed listeners are notified.
+     * @param endpoint Endpoint path, such as {@link #GET_STATUS}.
+     * @param maxAge Maximum snapshot age in milliseconds. Use 0 to force a fetch.
+     * @throws HWException On any IO or JSON error.
+     */
+    public void refresh(String endpoint, long maxAge) throws HWException {
+        getEndpoint(endpoint).get(maxAge);
+    }
+
+    private Endpoint getEndpoint(String endpoint) {
+        Endpoint result = endpoints.get(endpoint);
+        if (result == null) {
+            Endpoint created = new Endpoint(endpoint);
+            result = endpoints.putIfAbsent(endpoint, created);
+            if (result == null) {
+                result = created;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * A single shared endpoint, holding the last snapshot and the subscribed listeners.
+     */
+    private final class Endpoint {
+
+        private final String path;
+        private final EndpointFamily family;
+        private final List<StatusListener> listeners = new CopyOnWriteArrayList<>();
+        private volatile Snapshot snapshot;
+
+        // Claimed by the thread notifying the listeners
+        private final AtomicBoolean delivering = new AtomicBoolean(false);
+        private volatile Snapshot delivered;
+
+        private Endpoint(String path) {
+            this.path = path;
+            this.family = EndpointFamily.forPath(path);
+        }
+
+        private Snapshot get(long maxAge) throws HWException {
+            Snapshot current = snapshot;
+            if (current != null && current.isValid(maxAge)) {
+                connection.getMetrics().cacheHit(family);
+                return current;
+            }
+
+            synchronized (this) {
+                // Another thread may have fetched while we were waiting
+                current = snapshot;
+                if (current != null && current.isValid(maxAge)) {
+                    connection.getMetrics().cacheHit(family);
+                    return current;
+                }
+                connection.getMetrics().cacheMiss(family);
+
+                JSONObject root;
+                try {
+                    root = connection.requestShared(new Request(path).setReturnResponse(false));
+                } catch (CircuitOpenException e) {
+                    if (current == null || !connection.getCircuitBreaker().isServeStale()) {
+                        throw e;
+                    }
+                    log.debug("HomeWizard unreachable, using stale snapshot of {}", path);
+                    return current;
+                }
+                current = new Snapshot(root, HWConnection.extractResponse(root));
+                snapshot = current;
+            }
+
+            notifyListeners();
+            return current;
+        }
+
+        /**
+         * Notifies all listeners of the latest snapshot, unless another thread is notifying them. That thread then
+         * delivers the latest snapshot once done with its own.
+         */
+        private void notifyListeners() {
+            while (delivered != snapshot && delivering.compareAndSet(false, true)) {
+                try {
+                    Snapshot current = snapshot;
+                    if (current != delivered) {
+                        delivered = current;
+                        for (StatusListener listener : listeners) {
+                            try {
+                                listener.statusReceived(current.response);
+                            } catch (HWException | RuntimeException e) {
+                                log.warn("Status listener for {} failed", path, e);
+                            }
+                        }
+                    }
+                } finally {
+                    delivering.set(false);
+                }
+            }
+        }
+
+    }
+
+    /**
+     * Parsed endpoint data with its fetch timestamp.
+     */
+    private static final class Snapshot {
+
+        private final JSONObject root;
+        private final JSONObject response;
+        private final long timestamp;
+
+        private Snapshot(JSONObject root, JSONObject response) {
+            this.root = root;
+            this.response = response;
+            this.timestamp = System.currentTimeMillis();
+        }
+
+        private boolean isValid(long maxAge) {
+            return maxAge > 0 && (System.currentTimeMillis() - timestamp <= maxAge);
+        }
+
+    }
+
+}
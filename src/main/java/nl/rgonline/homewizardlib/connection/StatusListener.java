@@ -0,0 +1,21 @@
+package nl.rgonline.homewizardlib.connection;
+
+import nl.rgonline.homewizardlib.exceptions.HWException;
+
+import org.json.JSONObject;
+
+/**
+ * Listener for new snapshots of a shared status endpoint, see {@link StatusHub}.
+ * @author pdegeus
+ */
+public interface StatusListener {
+
+    /**
+     * Called each time a new snapshot of the subscribed endpoint has been fetched.
+     * The given object is shared between all listeners and must not be modified.
+     * @param response The parsed 'response' object of the endpoint.
+     * @throws HWException On any JSON error.
+     */
+    void statusReceived(JSONObject response) throws HWException;
+
+}
@@ -0,0 +1,103 @@
+package nl.rgonline.homewizardlib.connection;
+
+import java.io.Reader;
+
+import nl.rgonline.homewizardlib.exceptions.HWException;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+/**
+ * Parses a HomeWizard response directly from a {@link Reader}, emitting the items of the 'response' array one by one.
+ * Only a single item is held in memory at a time, so memory usage does not depend on the response size.
+ * <p/>
+ * The response status is verified after the complete response has been read, as the HomeWizard does not guarantee
+ * the 'status' field precedes the 'response' field. Handlers should therefore collect data in new structures, and
+ * only publish these when parsing completed without error.
+ * @author pdegeus
+ */
+public final class StreamingResponseParser {
+
+    /**
+     * Parses the given response.
+     * @param reader Reader to read the response from.
+     * @param handler Handler to call for each item of the 'response' array.
+     * @throws HWException On any JSON or handler error, or if the HomeWizard did not return an OK status.
+     */
+    public static void parse(Reader reader, ResponseItemHandler handler) throws HWException {
+        JSONTokener tokener = new JSONTokener(reader);
+        String status = null;
+
+        try {
+            if (tokener.nextClean() != '{') {
+                throw tokener.syntaxError("A JSONObject text must begin with '{'");
+            }
+
+            char c = tokener.nextClean();
+            if (c != '}') {
+                tokener.back();
+                while (true) {
+                    String key = tokener.nextValue().toString();
+                    if (tokener.nextClean() != ':') {
+                        throw tokener.syntaxError("Expected a ':' after a key");
+                    }
+
+                    if ("response".equals(key)) {
+                        readItems(tokener, handler);
+                    } else {
+                        Object value = tokener.nextValue();
+                        if ("status".equals(key)) {
+                            status = value.toString();
+                        }
+                    }
+
+                    c = tokener.nextClean();
+                    if (c == '}') {
+                        break;
+                    } else if (c != ',') {
+                        throw tokener.syntaxError("Expected a ',' or '}'");
+                    }
+                }
+            }
+        } catch (JSONException e) {
+            throw new HWException("Error parsing JSON response stream", e);
+        }
+
+        //Check status
+        if (!"ok".equals(status)) {
+            throw new HWException("HomeWizard returns not an OK status: " + status);
+        }
+    }
+
+    private static void readItems(JSONTokener tokener, ResponseItemHandler handler) throws JSONException, HWException {
+        if (tokener.nextClean() != '[') {
+            throw tokener.syntaxError("Expected a JSONArray as 'response'");
+        }
+
+        char c = tokener.nextClean();
+        if (c == ']') {
+            return;
+        }
+
+        tokener.back();
+        while (true) {
+            Object item = tokener.nextValue();
+            if (!(item instanceof JSONObject)) {
+                throw tokener.syntaxError("Expected a JSONObject as 'response' item");
+            }
+            handler.handle((JSONObject) item);
+
+            c = tokener.nextClean();
+            if (c == ']') {
+                return;
+            } else if (c != ',') {
+                throw tokener.syntaxError("Expected a ',' or ']'");
+            }
+        }
+    }
+
+    private StreamingResponseParser() {
+    }
+
+}
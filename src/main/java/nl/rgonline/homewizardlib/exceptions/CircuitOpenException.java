@@ -0,0 +1,20 @@
+package nl.rgonline.homewizardlib.exceptions;
+
+/**
+ * Exception thrown when a request is rejected without contacting the HomeWizard, because the HomeWizard is known to be
+ * unreachable.
+ * @author pdegeus
+ */
+public class CircuitOpenException extends HWException {
+
+    private static final long serialVersionUID = -2915620370462518139L;
+
+    /**
+     * Constructor.
+     * @param message Error message.
+     */
+    public CircuitOpenException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,76 @@
+package nl.rgonline.homewizardlib.metrics;
+
+import lombok.Getter;
+
+/**
+ * HomeWizard API endpoint families, used to group request metrics.
+ * @author pdegeus
+ */
+public enum EndpointFamily {
+
+    /** Status of switches and sensors */
+    GET_STATUS ("/get-status", false),
+    /** Sensor and camera inventory */
+    GET_SENSORS ("/get-sensors", false),
+    /** Switch inventory */
+    SWITCH_LIST ("/swlist", false),
+    /** Switch commands, such as on/off and dimming */
+    SWITCH_COMMAND ("/sw/", true),
+    /** Sensor event logs */
+    SENSOR_LOG ("/kks/get/", false),
+    /** Sensor commands */
+    SENSOR_COMMAND ("/kks/", true),
+    /** Thermometer inventory and current values */
+    THERMO_LIST ("/telist", false),
+    /** Thermometer graph data */
+    THERMO_GRAPH ("/te/graph/", false),
+    /** Thermometer commands */
+    THERMO_COMMAND ("/te/", true),
+    /** Scene inventory */
+    SCENE_LIST ("/gplist", false),
+    /** Scene details: codes, switches and timers */
+    SCENE_DETAILS ("/gp/get/", false),
+    /** Scene commands */
+    SCENE_COMMAND ("/gp/", true),
+    /** Timer inventory */
+    TIMER_LIST ("/timers", false),
+    /** Timer commands */
+    TIMER_COMMAND ("/et/", true),
+    /** Camera commands */
+    CAMERA_COMMAND ("/cam/", true),
+    /** Any other endpoint */
+    OTHER ("", false);
+
+    @Getter
+    private final String pathPrefix;
+
+    /** True for endpoints that send commands to the HomeWizard, rather than reading data */
+    @Getter
+    private final boolean command;
+
+    /**
+     * Constructor.
+     * @param pathPrefix Request path prefix identifying the family.
+     * @param command True if the endpoints send commands.
+     */
+    EndpointFamily(String pathPrefix, boolean command) {
+        this.pathPrefix = pathPrefix;
+        this.command = command;
+    }
+
+    /**
+     * Get the EndpointFamily for the given request path. More specific prefixes are declared first, so the first
+     * matching family is returned.
+     * @param path Request path, without host and password.
+     * @return EndpointFamily for the given path, {@link #OTHER} if unknown.
+     */
+    public static EndpointFamily forPath(String path) {
+        for (EndpointFamily family : values()) {
+            if (path.startsWith(family.pathPrefix)) {
+                return family;
+            }
+        }
+        return OTHER;
+    }
+
+}
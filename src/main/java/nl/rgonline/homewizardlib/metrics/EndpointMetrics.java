@@ -0,0 +1,38 @@
+package nl.rgonline.homewizardlib.metrics;
+
+import lombok.Value;
+
+/**
+ * Snapshot of the metrics of a single {@link EndpointFamily}, as collected by {@link InMemoryMetrics}.
+ * @author pdegeus
+ */
+@Value
+public class EndpointMetrics {
+
+    private EndpointFamily family;
+
+    /** Number of completed HTTP requests */
+    private long requests;
+
+    /** Number of failed HTTP requests */
+    private long errors;
+
+    /** Number of requests rejected because the HomeWizard is known to be unreachable */
+    private long rejected;
+
+    /** Number of requests served by joining an identical request in flight */
+    private long coalesced;
+
+    /** Number of response bytes received */
+    private long bytesReceived;
+
+    /** Number of requests served from a cache or shared snapshot */
+    private long cacheHits;
+
+    /** Number of cacheable requests that required an HTTP request */
+    private long cacheMisses;
+
+    /** Latency of completed and failed HTTP requests */
+    private LatencyHistogram.Snapshot latency;
+
+}
@@ -0,0 +1,55 @@
+package nl.rgonline.homewizardlib.metrics;
+
+/**
+ * Receiver of HomeWizard connection metrics. Implementations are called on the request path and must be thread-safe
+ * and cheap; use {@link InMemoryMetrics} or adapt to an external metrics library.
+ * @author pdegeus
+ */
+public interface HWMetrics {
+
+    /**
+     * Called when an HTTP request to the HomeWizard completed.
+     * @param family Endpoint family of the request.
+     * @param latencyMillis Request duration in milliseconds.
+     */
+    void requestCompleted(EndpointFamily family, long latencyMillis);
+
+    /**
+     * Called when an HTTP request to the HomeWizard failed.
+     * @param family Endpoint family of the request.
+     * @param latencyMillis Time until failure in milliseconds.
+     */
+    void requestFailed(EndpointFamily family, long latencyMillis);
+
+    /**
+     * Called when a request was rejected without contacting the HomeWizard, because it is known to be unreachable.
+     * @param family Endpoint family of the request.
+     */
+    void requestRejected(EndpointFamily family);
+
+    /**
+     * Called when a request was served by joining an identical request already in flight.
+     * @param family Endpoint family of the request.
+     */
+    void requestCoalesced(EndpointFamily family);
+
+    /**
+     * Called when a response body has been read.
+     * @param family Endpoint family of the request.
+     * @param bytes Number of bytes received.
+     */
+    void bytesReceived(EndpointFamily family, long bytes);
+
+    /**
+     * Called when a request was served from a cache or shared snapshot.
+     * @param family Endpoint family of the request.
+     */
+    void cacheHit(EndpointFamily family);
+
+    /**
+     * Called when a cacheable request could not be served from a cache or shared snapshot.
+     * @param family Endpoint family of the request.
+     */
+    void cacheMiss(EndpointFamily family);
+
+}
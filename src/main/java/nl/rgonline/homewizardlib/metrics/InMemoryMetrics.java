@@ -0,0 +1,111 @@
+package nl.rgonline.homewizardlib.metrics;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Simple {@link HWMetrics} implementation keeping counters and a latency histogram per {@link EndpointFamily} in
+ * memory. Use {@link #getSnapshot()} to read (scrape) the current values.
+ * @author pdegeus
+ */
+public class InMemoryMetrics implements HWMetrics {
+
+    // Fully populated at construction, so concurrent reads are safe
+    private final Map<EndpointFamily, Counters> counters = new EnumMap<>(EndpointFamily.class);
+
+    /**
+     * Constructor.
+     */
+    public InMemoryMetrics() {
+        for (EndpointFamily family : EndpointFamily.values()) {
+            counters.put(family, new Counters());
+        }
+    }
+
+    @Override
+    public void requestCompleted(EndpointFamily family, long latencyMillis) {
+        Counters c = counters.get(family);
+        c.requests.incrementAndGet();
+        c.latency.record(latencyMillis);
+    }
+
+    @Override
+    public void requestFailed(EndpointFamily family, long latencyMillis) {
+        Counters c = counters.get(family);
+        c.errors.incrementAndGet();
+        c.latency.record(latencyMillis);
+    }
+
+    @Override
+    public void requestRejected(EndpointFamily family) {
+        counters.get(family).rejected.incrementAndGet();
+    }
+
+    @Override
+    public void requestCoalesced(EndpointFamily family) {
+        counters.get(family).coalesced.incrementAndGet();
+    }
+
+    @Override
+    public void bytesReceived(EndpointFamily family, long bytes) {
+        counters.get(family).bytes.addAndGet(bytes);
+    }
+
+    @Override
+    public void cacheHit(EndpointFamily family) {
+        counters.get(family).cacheHits.incrementAndGet();
+    }
+
+    @Override
+    public void cacheMiss(EndpointFamily family) {
+        counters.get(family).cacheMisses.incrementAndGet();
+    }
+
+    /**
+     * @param family Endpoint family.
+     * @return Snapshot of the current metrics of the given family.
+     */
+    public EndpointMetrics getSnapshot(EndpointFamily family) {
+        Counters c = counters.get(family);
+        return new EndpointMetrics(
+            family, c.requests.get(), c.errors.get(), c.rejected.get(), c.coalesced.get(), c.bytes.get(),
+            c.cacheHits.get(), c.cacheMisses.get(), c.latency.snapshot()
+        );
+    }
+
+    /**
+     * @return Snapshot of the current metrics of all families that have been used.
+     */
+    public Map<EndpointFamily, EndpointMetrics> getSnapshot() {
+        Map<EndpointFamily, EndpointMetrics> result = new EnumMap<>(EndpointFamily.class);
+        for (EndpointFamily family : EndpointFamily.values()) {
+            EndpointMetrics metrics = getSnapshot(family);
+            if (isUsed(metrics)) {
+                result.put(family, metrics);
+            }
+        }
+        return result;
+    }
+
+    private static boolean isUsed(EndpointMetrics metrics) {
+        return metrics.getRequests() > 0 || metrics.getErrors() > 0 || metrics.getRejected() > 0
+            || metrics.getCoalesced() > 0 || metrics.getBytesReceived() > 0 || metrics.getCacheHits() > 0
+            || metrics.getCacheMisses() > 0;
+    }
+
+    /**
+     * Mutable counters of a single endpoint family.
+     */
+    private static final class Counters {
+        private final AtomicLong requests = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final AtomicLong coalesced = new AtomicLong();
+        private final AtomicLong bytes = new AtomicLong();
+        private final AtomicLong cacheHits = new AtomicLong();
+        private final AtomicLong cacheMisses = new AtomicLong();
+        private final LatencyHistogram latency = new LatencyHistogram();
+    }
+
+}
@@ -0,0 +1,136 @@
+package nl.rgonline.homewizardlib.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe latency histogram with fixed, roughly exponential millisecond buckets.
+ * @author pdegeus
+ */
+public class LatencyHistogram {
+
+    /** Inclusive upper bounds of the buckets in milliseconds. The last bucket holds all larger values. */
+    private static final long[] BUCKET_BOUNDS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000, Long.MAX_VALUE};
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_BOUNDS.length);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Record a single latency.
+     * @param latencyMillis Latency in milliseconds.
+     */
+    public void record(long latencyMillis) {
+        int bucket = 0;
+        while (latencyMillis > BUCKET_BOUNDS[bucket]) {
+            bucket++;
+        }
+        buckets.incrementAndGet(bucket);
+        count.incrementAndGet();
+        sum.addAndGet(latencyMillis);
+
+        long curMax = max.get();
+        while (latencyMillis > curMax && !max.compareAndSet(curMax, latencyMillis)) {
+            curMax = max.get();
+        }
+    }
+
+    /**
+     * @return An immutable copy of the current histogram.
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKET_BOUNDS.length];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = buckets.get(i);
+        }
+        return new Snapshot(counts, count.get(), sum.get(), max.get());
+    }
+
+    /**
+     * Immutable copy of a {@link LatencyHistogram}.
+     */
+    public static final class Snapshot {
+
+        private final long[] bucketCounts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        private Snapshot(long[] bucketCounts, long count, long sum, long max) {
+            this.bucketCounts = bucketCounts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        /**
+         * @return Number of recorded latencies.
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return Maximum recorded latency in milliseconds.
+         */
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * @return Mean latency in milliseconds, or 0 if nothing was recorded.
+         */
+        public double getMean() {
+            return (count == 0) ? 0 : (double) sum / count;
+        }
+
+        /**
+         * Estimates the given percentile as the upper bound of the bucket containing it, capped at the maximum.
+         * @param percentile Percentile, between 0 and 100.
+         * @return Estimated latency in milliseconds, or 0 if nothing was recorded.
+         */
+        public long getPercentile(double percentile) {
+            long total = 0;
+            for (long bucketCount : bucketCounts) {
+                total += bucketCount;
+            }
+            if (total == 0) {
+                return 0;
+            }
+
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+            long seen = 0;
+            for (int i = 0; i < bucketCounts.length; i++) {
+                seen += bucketCounts[i];
+                if (seen >= rank) {
+                    return Math.min(BUCKET_BOUNDS[i], max);
+                }
+            }
+            return max;
+        }
+
+        /**
+         * @return Inclusive upper bounds of the buckets in milliseconds.
+         */
+        public long[] getBucketBounds() {
+            return Arrays.copyOf(BUCKET_BOUNDS, BUCKET_BOUNDS.length);
+        }
+
+        /**
+         * @return Number of recorded latencies per bucket.
+         */
+        public long[] getBucketCounts() {
+            return Arrays.copyOf(bucketCounts, bucketCounts.length);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("[count=%d, mean=%.1fms, p50=%dms, p99=%dms, max=%dms]",
+                count, getMean(), getPercentile(50), getPercentile(99), max);
+        }
+
+    }
+
+}
@@ -0,0 +1,43 @@
+package nl.rgonline.homewizardlib.metrics;
+
+/**
+ * {@link HWMetrics} implementation ignoring all metrics. Used by default.
+ * @author pdegeus
+ */
+public final class NoOpMetrics implements HWMetrics {
+
+    /** Shared instance */
+    public static final NoOpMetrics INSTANCE = new NoOpMetrics();
+
+    @Override
+    public void requestCompleted(EndpointFamily family, long latencyMillis) {
+    }
+
+    @Override
+    public void requestFailed(EndpointFamily family, long latencyMillis) {
+    }
+
+    @Override
+    public void requestRejected(EndpointFamily family) {
+    }
+
+    @Override
+    public void requestCoalesced(EndpointFamily family) {
+    }
+
+    @Override
+    public void bytesReceived(EndpointFamily family, long bytes) {
+    }
+
+    @Override
+    public void cacheHit(EndpointFamily family) {
+    }
+
+    @Override
+    public void cacheMiss(EndpointFamily family) {
+    }
+
+    private NoOpMetrics() {
+    }
+
+}
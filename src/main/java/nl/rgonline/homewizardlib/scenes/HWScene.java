@@ -1,14 +1,20 @@
 package nl.rgonline.homewizardlib.scenes;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import nl.rgonline.homewizardlib.AbstractHwEntity;
 import nl.rgonline.homewizardlib.HWAction;
 import nl.rgonline.homewizardlib.Refreshable;
 import nl.rgonline.homewizardlib.connection.HWConnection;
 import nl.rgonline.homewizardlib.connection.Request;
+import nl.rgonline.homewizardlib.connection.ResponseCallback;
 import nl.rgonline.homewizardlib.exceptions.HWException;
 import nl.rgonline.homewizardlib.switches.SwitchType;
 import nl.rgonline.homewizardlib.timers.Day;
@@ -29,11 +35,10 @@ import org.json.JSONObject;
  */
 public class HWScene extends AbstractHwEntity implements Refreshable {
 
-    private boolean initialized = false;
+    private final AtomicBoolean loading = new AtomicBoolean(false);
+    private final Object loadLock = new Object();
 
-    private List<HWSceneSwitch> switches;
-    private List<HWTimer> timers;
-    private List<String> codes;
+    private volatile Details details;
 
     /**
      * Constructor.
@@ -48,40 +53,172 @@ public class HWScene extends AbstractHwEntity implements Refreshable {
 
     @Override
     public void init(boolean forceReload) throws HWException {
-        if (!initialized || forceReload) {
-            try {
-
-                // /gp/get/1/codes
-                // "response": [ "J1"]
-                codes = new LinkedList<>();
-                JSONObject response = getConnection().request(new Request("/gp/get/", getId(), "/codes").setReturnResponse(false));
-                JSONArray arr = response.getJSONArray("response");
-                for (int i=0; i < arr.length(); i++) {
-                    codes.add(arr.getString(i));
-                }
+        loadDetails(forceReload);
+    }
 
-                // Switches: /gp/get/1/switches
-                switches = new LinkedList<>();
-                response = getConnection().request(new Request("/gp/get/", getId(), "/switches").setReturnResponse(false));
-                arr = response.getJSONArray("response");
-                for (int i=0; i < arr.length(); i++) {
-                    switches.add(readSwitch(arr.getJSONObject(i)));
+    /**
+     * Loads the codes, switches and timers of this scene if needed. Only one thread loads at a time, other threads
+     * wait for it and use its result.
+     * @param forceReload True to reload even if loaded already.
+     * @return The loaded details.
+     * @throws HWException On any IO or JSON error.
+     */
+    private Details loadDetails(boolean forceReload) throws HWException {
+        while (true) {
+            Details current = details;
+            if (current != null && !forceReload) {
+                return current;
+            }
+
+            if (loading.compareAndSet(false, true)) {
+                try {
+                    // Check again, another thread may just have completed the load
+                    current = details;
+                    if (current == null || forceReload) {
+                        current = requestDetails();
+                        details = current;
+                    }
+                    return current;
+                } finally {
+                    releaseLoad();
                 }
+            }
+
+            // Another thread is loading, wait for it. If it fails, or a reload is forced, try again ourselves.
+            awaitLoad();
+        }
+    }
+
+    private Details requestDetails() throws HWException {
+        // The three sections are requested concurrently
+        List<JSONObject> responses = getConnection().requestAll(Arrays.asList(
+            new Request("/gp/get/", getId(), "/codes").setReturnResponse(false),
+            new Request("/gp/get/", getId(), "/switches").setReturnResponse(false),
+            new Request("/gp/get/", getId(), "/timers").setReturnResponse(false)
+        ));
+
+        try {
+            return parseDetails(
+                responses.get(0).getJSONArray("response"), responses.get(1).getJSONArray("response"),
+                responses.get(2).getJSONArray("response")
+            );
+        } catch (JSONException e) {
+            throw new HWException("Error initializing timers", e);
+        }
+    }
+
+    private void releaseLoad() {
+        loading.set(false);
+        synchronized (loadLock) {
+            loadLock.notifyAll();
+        }
+    }
 
-                // Timers: /gp/get/1/timers
-                timers = new LinkedList<>();
-                response = getConnection().request(new Request("/gp/get/", getId(), "/timers").setReturnResponse(false));
-                arr = response.getJSONArray("response");
-                for (int i=0; i < arr.length(); i++) {
-                    timers.add(readTimer(arr.getJSONObject(i)));
+    private void awaitLoad() throws HWException {
+        try {
+            synchronized (loadLock) {
+                while (loading.get()) {
+                    loadLock.wait();
                 }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HWException("Interrupted while waiting for " + this + " to load", e);
+        }
+    }
 
-            } catch (JSONException e) {
-                throw new HWException("Error initializing timers", e);
+    private Details parseDetails(JSONArray codesJson, JSONArray switchesJson, JSONArray timersJson)
+        throws JSONException, HWException {
+
+        // /gp/get/1/codes
+        // "response": [ "J1"]
+        List<String> newCodes = new ArrayList<>(codesJson.length());
+        for (int i=0; i < codesJson.length(); i++) {
+            newCodes.add(codesJson.getString(i));
+        }
+
+        // Switches: /gp/get/1/switches
+        List<HWSceneSwitch> newSwitches = new ArrayList<>(switchesJson.length());
+        for (int i=0; i < switchesJson.length(); i++) {
+            newSwitches.add(readSwitch(switchesJson.getJSONObject(i)));
+        }
+
+        // Timers: /gp/get/1/timers
+        List<HWTimer> newTimers = new ArrayList<>(timersJson.length());
+        for (int i=0; i < timersJson.length(); i++) {
+            newTimers.add(readTimer(timersJson.getJSONObject(i)));
+        }
+
+        return new Details(newCodes, newSwitches, newTimers);
+    }
+
+    /**
+     * Writes the loaded codes, switches and timers in the format of the HomeWizard responses, for
+     * {@link #readDetails(JSONObject)}.
+     * @return The scene details, or null if not loaded.
+     * @throws JSONException On any JSON error.
+     */
+    JSONObject writeDetails() throws JSONException {
+        Details current = details;
+        if (current == null) {
+            return null;
+        }
+
+        JSONArray switchesJson = new JSONArray();
+        for (HWSceneSwitch sceneSwitch : current.switches) {
+            JSONObject switchJson = new JSONObject()
+                .put("type", sceneSwitch.getType().getApiString())
+                .put("id", sceneSwitch.getId())
+                .put("name", sceneSwitch.getName())
+                .put("onstatus", sceneSwitch.getSceneOnAction().getApiNumber())
+                .put("offstatus", sceneSwitch.getSceneOffAction().getApiNumber());
+            if (sceneSwitch.getSceneOnColor() != null) {
+                switchJson.put("oncolor", sceneSwitch.getSceneOnColor().toJson());
+            }
+            if (sceneSwitch.getSceneOffColor() != null) {
+                switchJson.put("offcolor", sceneSwitch.getSceneOffColor().toJson());
             }
+            switchesJson.put(switchJson);
+        }
 
-            initialized = true;
+        JSONArray timersJson = new JSONArray();
+        for (HWTimer timer : current.timers) {
+            timersJson.put(timer.toJson());
         }
+
+        return new JSONObject()
+            .put("codes", new JSONArray(current.codes))
+            .put("switches", switchesJson)
+            .put("timers", timersJson);
+    }
+
+    /**
+     * Restores the codes, switches and timers written by {@link #writeDetails()}.
+     * @param details The scene details.
+     * @throws HWException On any JSON error.
+     */
+    void readDetails(JSONObject details) throws HWException {
+        try {
+            this.details = parseDetails(
+                details.getJSONArray("codes"), details.getJSONArray("switches"), details.getJSONArray("timers")
+            );
+        } catch (JSONException e) {
+            throw new HWException("Error restoring scene details", e);
+        }
+    }
+
+    /**
+     * @return True if the codes, switches and timers of this scene are loaded.
+     */
+    public boolean isInitialized() {
+        return details != null;
+    }
+
+    /**
+     * Marks the codes, switches and timers of this scene as outdated, so they are reloaded on next use.
+     */
+    void invalidate() {
+        details = null;
     }
 
     private HWSceneSwitch readSwitch(JSONObject switchJson) throws JSONException, HWException {
@@ -137,34 +274,31 @@ public class HWScene extends AbstractHwEntity implements Refreshable {
     /**
      * Retrieve all switches for this scene.
      * Data is loaded the first time any getter of this scene is used.
-     * @return List of switch data.
+     * @return Unmodifiable list of switch data.
      * @throws HWException On any IO or JSON error.
      */
     public List<HWSceneSwitch> getSwitches() throws HWException {
-        init(false);
-        return switches;
+        return loadDetails(false).switches;
     }
 
     /**
      * Retrieve all timers for this scene.
      * Data is loaded the first time any getter of this scene is used.
-     * @return List of timer data.
+     * @return Unmodifiable list of timer data.
      * @throws HWException On any IO or JSON error.
      */
     public List<HWTimer> getTimers() throws HWException {
-        init(false);
-        return timers;
+        return loadDetails(false).timers;
     }
 
     /**
      * Retrieve all codes for this scene.
      * Data is loaded the first time any getter of this scene is used.
-     * @return List of codes.
+     * @return Unmodifiable list of codes.
      * @throws HWException On any IO or JSON error.
      */
     public List<String> getCodes() throws HWException {
-        init(false);
-        return codes;
+        return loadDetails(false).codes;
     }
 
     /**
@@ -198,4 +332,51 @@ public class HWScene extends AbstractHwEntity implements Refreshable {
         return String.format("[HwScene#%d '%s']", getId(), getName());
     }
 
+    /**
+     * Asynchronous variant of {@link #turnOn()}.
+     * @param callback Callback to notify on completion, or null.
+     * @return Future completing when the scene is turned on.
+     */
+    public Future<Void> turnOnAsync(ResponseCallback<Void> callback) {
+        return getConnection().submit(new Callable<Void>() {
+            @Override
+            public Void call() throws HWException {
+                turnOn();
+                return null;
+            }
+        }, callback);
+    }
+
+    /**
+     * Asynchronous variant of {@link #turnOff()}.
+     * @param callback Callback to notify on completion, or null.
+     * @return Future completing when the scene is turned off.
+     */
+    public Future<Void> turnOffAsync(ResponseCallback<Void> callback) {
+        return getConnection().submit(new Callable<Void>() {
+            @Override
+            public Void call() throws HWException {
+                turnOff();
+                return null;
+            }
+        }, callback);
+    }
+
+    /**
+     * The codes, switches and timers of a scene, loaded and published as a whole.
+     */
+    private static final class Details {
+
+        private final List<String> codes;
+        private final List<HWSceneSwitch> switches;
+        private final List<HWTimer> timers;
+
+        Details(List<String> codes, List<HWSceneSwitch> switches, List<HWTimer> timers) {
+            this.codes = Collections.unmodifiableList(codes);
+            this.switches = Collections.unmodifiableList(switches);
+            this.timers = Collections.unmodifiableList(timers);
+        }
+
+    }
+
 }
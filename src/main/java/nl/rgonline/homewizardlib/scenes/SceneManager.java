@@ -1,10 +1,18 @@
 package nl.rgonline.homewizardlib.scenes;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
 
 import lombok.extern.slf4j.Slf4j;
 import nl.rgonline.homewizardlib.AbstractManager;
+import nl.rgonline.homewizardlib.config.HWConfig;
 import nl.rgonline.homewizardlib.connection.HWConnection;
 import nl.rgonline.homewizardlib.connection.Request;
 import nl.rgonline.homewizardlib.exceptions.HWException;
@@ -23,7 +31,6 @@ public class SceneManager extends AbstractManager<HWScene> {
 
     private final HWConnection connection;
 
-    private Map<Integer, HWScene> scenes;
     private volatile boolean initialized = false;
 
     /**
@@ -39,34 +46,152 @@ public class SceneManager extends AbstractManager<HWScene> {
     public void init(boolean forceReload) throws HWException {
         if (!initialized || forceReload) {
             Request request = new Request("/gplist").setReturnResponse(false);
-            JSONObject response = connection.request(request);
+            loadScenes(connection.request(request));
 
-            // "response": [
-            //   {"id": 0, "name": "Alle lampen", "favorite": "no"},
-            //   {"id": 1, "name": "TestScene", "favorite": "no", "camera": {"id": 0, "preset": -1}}
-            // ]
+            initialized = true;
+        }
+    }
 
-            try {
-                JSONArray jsonScenes = response.getJSONArray("response");
-                int numScenes = jsonScenes.length();
+    /**
+     * Reconciles the loaded scenes with the ones in the given {@code /gplist} response.
+     * @param response The complete {@code /gplist} response.
+     * @throws HWException On any JSON error.
+     */
+    void loadScenes(JSONObject response) throws HWException {
+        // "response": [
+        //   {"id": 0, "name": "Alle lampen", "favorite": "no"},
+        //   {"id": 1, "name": "TestScene", "favorite": "no", "camera": {"id": 0, "preset": -1}}
+        // ]
+
+        try {
+            JSONArray jsonScenes = response.getJSONArray("response");
+            int numScenes = jsonScenes.length();
+
+            Map<Integer, HWScene> newScenes = new HashMap<>();
+
+            for (int i = 0; i < numScenes; i++) {
+                JSONObject sceneJson = jsonScenes.getJSONObject(i);
+
+                int id = sceneJson.getInt("id");
+                String name = sceneJson.getString("name");
+                boolean isFavorite = BooleanUtils.toBoolean(sceneJson.getString("favorite"));
 
-                scenes = new HashMap<>();
+                HWScene scene = new HWScene(connection, id, name, isFavorite);
+                newScenes.put(id, scene);
+            }
 
-                for (int i = 0; i < numScenes; i++) {
-                    JSONObject sceneJson = jsonScenes.getJSONObject(i);
+            // Details of scenes changed in the inventory are reloaded on next use
+            for (HWScene scene : publish(newScenes).getChanged()) {
+                scene.invalidate();
+            }
+        } catch (JSONException e) {
+            throw new HWException("Error initializing scenes", e);
+        }
+    }
 
-                    int id = sceneJson.getInt("id");
-                    String name = sceneJson.getString("name");
-                    boolean isFavorite = BooleanUtils.toBoolean(sceneJson.getString("favorite"));
+    @Override
+    protected JSONObject writeState() throws JSONException {
+        JSONArray scenes = new JSONArray();
+        for (HWScene scene : getEntityMap().values()) {
+            scenes.put(new JSONObject()
+                .put("id", scene.getId())
+                .put("name", scene.getName())
+                .put("favorite", BooleanUtils.toStringYesNo(scene.isFavorite()))
+                .put("details", scene.writeDetails())
+            );
+        }
+        return new JSONObject().put("response", scenes);
+    }
 
-                    HWScene scene = new HWScene(connection, id, name, isFavorite);
-                    scenes.put(id, scene);
+    @Override
+    protected void readState(JSONObject state) throws HWException {
+        loadScenes(state);
+
+        try {
+            Map<Integer, HWScene> scenes = getEntityMap();
+            JSONArray jsonScenes = state.getJSONArray("response");
+            for (int i = 0; i < jsonScenes.length(); i++) {
+                JSONObject sceneJson = jsonScenes.getJSONObject(i);
+                if (sceneJson.has("details")) {
+                    scenes.get(sceneJson.getInt("id")).readDetails(sceneJson.getJSONObject("details"));
                 }
-            } catch (JSONException e) {
-                throw new HWException("Error initializing scenes", e);
             }
+        } catch (JSONException e) {
+            throw new HWException("Error restoring scene details", e);
+        }
+        initialized = true;
+    }
 
-            initialized = true;
+    /**
+     * Loads the codes, switches and timers of all scenes that are not loaded yet, using at most
+     * {@link HWConfig#SCENE_PREFETCH_THREADS} scenes in parallel. Scenes already loaded are only reloaded after they
+     * changed in the scene list, see {@link #refresh()}.
+     * <p/>
+     * The scenes are loaded on the worker pool of the connection. The calling thread loads scenes as well, including
+     * any scene the pool did not start yet, so this method is safe to call from a worker thread.
+     * @return Number of scenes loaded.
+     * @throws HWException On any IO or JSON error. All other scenes are still loaded.
+     */
+    public int prefetchDetails() throws HWException {
+        List<HWScene> pending = new ArrayList<>();
+        for (HWScene scene : getAll()) {
+            if (!scene.isInitialized()) {
+                pending.add(scene);
+            }
+        }
+        if (pending.isEmpty()) {
+            return 0;
+        }
+
+        final Queue<HWScene> queue = new ConcurrentLinkedQueue<>(pending);
+        final CountDownLatch loaded = new CountDownLatch(pending.size());
+        final AtomicReference<HWException> failure = new AtomicReference<>();
+
+        // The calling thread is one of the loaders
+        int loaders = Math.min(pending.size(), HWConfig.SCENE_PREFETCH_THREADS.getValue());
+        for (int i = 1; i < loaders; i++) {
+            connection.submit(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    loadQueued(queue, loaded, failure);
+                    return null;
+                }
+            }, null);
+        }
+        loadQueued(queue, loaded, failure);
+
+        // Remaining scenes are being loaded by the pool
+        try {
+            loaded.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HWException("Interrupted while loading scene details", e);
+        }
+
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+
+        log.debug("Loaded details of {} scenes", pending.size());
+        return pending.size();
+    }
+
+    /**
+     * Loads the scenes in the given queue until it is empty.
+     * @param queue Scenes to load.
+     * @param loaded Latch counted down for each scene taken from the queue.
+     * @param failure Receives the first failure.
+     */
+    private static void loadQueued(Queue<HWScene> queue, CountDownLatch loaded, AtomicReference<HWException> failure) {
+        HWScene scene;
+        while ((scene = queue.poll()) != null) {
+            try {
+                scene.init(false);
+            } catch (HWException e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                loaded.countDown();
+            }
         }
     }
 
@@ -76,8 +201,8 @@ public class SceneManager extends AbstractManager<HWScene> {
     }
 
     @Override
-    protected Map<Integer, HWScene> getEntityMap() {
-        return scenes;
+    protected HWConnection getConnection() {
+        return connection;
     }
 
 }
@@ -1,19 +1,28 @@
 package nl.rgonline.homewizardlib.sensors;
 
-import java.text.DateFormat;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 import lombok.Getter;
 import lombok.ToString;
 import nl.rgonline.homewizardlib.AbstractHwEntity;
+import nl.rgonline.homewizardlib.config.HWConfig;
 import nl.rgonline.homewizardlib.connection.HWConnection;
 import nl.rgonline.homewizardlib.connection.Request;
+import nl.rgonline.homewizardlib.connection.ResponseCallback;
+import nl.rgonline.homewizardlib.connection.ResponseItemHandler;
 import nl.rgonline.homewizardlib.exceptions.HWException;
+import nl.rgonline.homewizardlib.store.RecordReader;
+import nl.rgonline.homewizardlib.store.RecordWriter;
+import nl.rgonline.homewizardlib.store.SegmentStore;
+import nl.rgonline.homewizardlib.util.TimestampParser;
 import nl.rgonline.homewizardlib.util.UrlUtil;
 
 import org.apache.commons.lang.BooleanUtils;
@@ -25,11 +34,13 @@ import org.json.JSONObject;
  * Represents a sensor in the HomeWizard system.
  * @author pdegeus
  */
-@ToString(callSuper=true, exclude="log")
+@ToString(callSuper=true, exclude={"log", "store"})
 public class HWSensor extends AbstractHwEntity {
 
-    // Date parser for timestamp: 2013-08-13 21:25:59
-    private final DateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+    private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+
+    // Payload of a stored event: the status
+    private static final int PAYLOAD_SIZE = 1;
 
     @Getter private SensorType type;
     @Getter private String lastEventTime;
@@ -38,6 +49,10 @@ public class HWSensor extends AbstractHwEntity {
     private TreeMap<Date, Boolean> log;
     private boolean logNeedsUpdate = false;
 
+    // Local store of the event log, opened on first use
+    private SegmentStore store;
+    private boolean storeOpened = false;
+
     /**
      * Constructor.
      * @param connection Connection to use.
@@ -80,12 +95,35 @@ public class HWSensor extends AbstractHwEntity {
     /**
      * Retrieves the event log of this sensor. Results are cached until the 'on' status of last event time
      * are changed by the sensor manager. This method is synchronized to prevent simultaneous updates.
+     * <p/>
+     * If a local store is configured using the 'store.directory' config property, events are retained in the store
+     * for 'sensors.retention.days', and this returns all retained events rather than only those still known to the
+     * HomeWizard. Use {@link #getLog(Date, Date)} to read only a time range.
      * @return TreeMap of timestamp/status pairs, sorted from oldest to newer.
      * @throws HWException On any update IO or JSON error.
      */
     public TreeMap<Date, Boolean> getLog() throws HWException {
         loadLog();
-        return log;
+        SegmentStore logStore = openStore();
+        return (logStore == null) ? log : readStoredLog(logStore, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Retrieves the events of this sensor within a time range. With a local store, only the requested range is read
+     * from the store.
+     * @param from Start of the range, inclusive.
+     * @param to End of the range, exclusive.
+     * @return TreeMap of timestamp/status pairs, sorted from oldest to newer.
+     * @throws HWException On any update IO or JSON error.
+     * @see #getLog()
+     */
+    public TreeMap<Date, Boolean> getLog(Date from, Date to) throws HWException {
+        loadLog();
+        SegmentStore logStore = openStore();
+        if (logStore == null) {
+            return new TreeMap<>(log.subMap(from, true, to, false));
+        }
+        return readStoredLog(logStore, from.getTime(), to.getTime());
     }
 
     /**
@@ -104,7 +142,12 @@ public class HWSensor extends AbstractHwEntity {
      * @throws HWException On any log update IO or JSON error.
      */
     public Entry<Date, Boolean> getLastEvent() throws HWException {
-        return getLog().lastEntry();
+        loadLog();
+        SegmentStore logStore = openStore();
+        if (logStore == null) {
+            return log.lastEntry();
+        }
+        return readStoredLog(logStore, logStore.getLastTime(), Long.MAX_VALUE).lastEntry();
     }
 
     /**
@@ -113,40 +156,153 @@ public class HWSensor extends AbstractHwEntity {
      */
     private synchronized void loadLog() throws HWException {
         if (log == null || logNeedsUpdate) {
-            Request request = new Request("/kks/get/", getId(), "/log").setReturnResponse(false);
-            JSONObject response = getConnection().request(request);
+            Request request = new Request("/kks/get/", getId(), "/log");
 
             // "response": [
             //   { t: "2013-07-16 22:15:04", status: "no"  },
             //   { t: "2013-07-16 22:15:11", status: "yes" },
             // ]
 
-            try {
-                JSONArray jsonArr = response.getJSONArray("response");
-                int numItems = jsonArr.length();
-                log = new TreeMap<>();
-
-                for (int i=0; i < numItems; i++) {
-                    JSONObject item = jsonArr.getJSONObject(i);
-
-                    //Parse timestamp
-                    Date date;
-                    String timestamp = item.getString("t");
-                    try {
-                        date = dateFormat.parse(timestamp);
-                    } catch (ParseException e) {
-                        throw new HWException("Could not parse timestamp: " + timestamp, e);
+            // Stream the events straight into the new log
+            final TreeMap<Date, Boolean> newLog = new TreeMap<>();
+            getConnection().requestStream(request, newLogHandler(newLog));
+
+            SegmentStore logStore = openStore();
+            if (logStore != null) {
+                storeLog(logStore, newLog);
+            }
+
+            log = newLog;
+            logNeedsUpdate = false;
+        }
+    }
+
+    /**
+     * Opens the local store of the event log on first use.
+     * @return The store, or null if not configured.
+     * @throws HWException If the store can not be opened, or was closed with the connection.
+     */
+    private synchronized SegmentStore openStore() throws HWException {
+        if (!storeOpened) {
+            store = getConnection().getStore("sensor-" + getId(), PAYLOAD_SIZE);
+            storeOpened = true;
+        }
+        if (store != null && getConnection().isClosed()) {
+            throw new HWException("HomeWizard connection is closed, the log of sensor " + getId()
+                + " is not available");
+        }
+        return store;
+    }
+
+    /**
+     * Appends the events newer than the stored ones to the store, and drops expired segments.
+     */
+    private static void storeLog(SegmentStore logStore, TreeMap<Date, Boolean> newLog) throws HWException {
+        long last = logStore.getLastTime();
+        try {
+            for (Entry<Date, Boolean> event : newLog.tailMap(new Date(last), false).entrySet()) {
+                final boolean status = event.getValue();
+                logStore.append(event.getKey().getTime(), new RecordWriter() {
+                    @Override
+                    public void write(ByteBuffer buffer, int offset) {
+                        buffer.put(offset, (byte) (status ? 1 : 0));
                     }
+                });
+            }
+        } catch (IOException e) {
+            throw new HWException("Could not store sensor log", e);
+        }
+        logStore.expire(getRetentionThreshold(logStore));
+    }
 
-                    boolean status = BooleanUtils.toBoolean(item.getString("status"));
-                    log.put(date, status);
+    private static TreeMap<Date, Boolean> readStoredLog(SegmentStore logStore, long from, long to) {
+        final TreeMap<Date, Boolean> result = new TreeMap<>();
+        logStore.read(Math.max(from, getRetentionThreshold(logStore)), to, new RecordReader() {
+            @Override
+            public void read(long time, ByteBuffer buffer, int offset) {
+                result.put(new Date(time), buffer.get(offset) != 0);
+            }
+        });
+        return result;
+    }
+
+    private static long getRetentionThreshold(SegmentStore logStore) {
+        long last = logStore.getLastTime();
+        long retention = HWConfig.SENSOR_RETENTION_DAYS.getValue() * DAY_MILLIS;
+        return (last == Long.MIN_VALUE) ? Long.MIN_VALUE : last - retention;
+    }
+
+    /**
+     * Creates a handler adding each log event to the given map.
+     * @param newLog Map to add the events to.
+     * @return Response item handler for {@code /kks/get/<id>/log} responses.
+     */
+    ResponseItemHandler newLogHandler(final TreeMap<Date, Boolean> newLog) {
+        final TimestampParser parser = getConnection().getTimestampParser();
+        return new ResponseItemHandler() {
+            @Override
+            public void handle(JSONObject item) throws JSONException, HWException {
+                //Parse timestamp: 2013-08-13 21:25:59
+                long time;
+                String timestamp = item.getString("t");
+                try {
+                    time = parser.parse(timestamp);
+                } catch (ParseException e) {
+                    throw new HWException("Could not parse timestamp: " + timestamp, e);
                 }
-            } catch (JSONException e) {
-                throw new HWException("Could not read sensor log data from JSON:\n" + response, e);
+
+                boolean status = BooleanUtils.toBoolean(item.getString("status"));
+                newLog.put(new Date(time), status);
             }
+        };
+    }
 
-            logNeedsUpdate = false;
+    /**
+     * Writes the cached event log as timestamp and status columns, for {@link #readLog(JSONObject)}.
+     * @return The event log, or null if not loaded or outdated.
+     * @throws JSONException On any JSON error.
+     */
+    synchronized JSONObject writeLog() throws JSONException {
+        if (log == null || logNeedsUpdate) {
+            return null;
+        }
+
+        JSONArray times = new JSONArray();
+        JSONArray states = new JSONArray();
+        for (Entry<Date, Boolean> event : log.entrySet()) {
+            times.put(event.getKey().getTime());
+            states.put(event.getValue().booleanValue());
         }
+        return new JSONObject().put("t", times).put("on", states);
+    }
+
+    /**
+     * Restores an event log written by {@link #writeLog()}. It is used until the state of this sensor changes.
+     * @param json The event log.
+     * @throws JSONException On any JSON error.
+     */
+    synchronized void readLog(JSONObject json) throws JSONException {
+        JSONArray times = json.getJSONArray("t");
+        JSONArray states = json.getJSONArray("on");
+
+        TreeMap<Date, Boolean> restored = new TreeMap<>();
+        for (int i = 0; i < times.length(); i++) {
+            restored.put(new Date(times.getLong(i)), states.getBoolean(i));
+        }
+        setLog(restored, false);
+    }
+
+    @Override
+    protected boolean updateFrom(AbstractHwEntity loaded) {
+        boolean changed = super.updateFrom(loaded);
+        HWSensor sensor = (HWSensor) loaded;
+        changed |= (type != sensor.type || on != sensor.on || !Objects.equals(lastEventTime, sensor.lastEventTime));
+
+        // Setters invalidate the log if needed
+        type = sensor.type;
+        setOn(sensor.on);
+        setLastEventTime(sensor.lastEventTime);
+        return changed;
     }
 
     @Override
@@ -157,4 +313,18 @@ public class HWSensor extends AbstractHwEntity {
         getConnection().request("/kks/edit/", getId(), "/", UrlUtil.encode(getName()), "/", fav);
     }
 
+    /**
+     * Asynchronous variant of {@link #getLog()}.
+     * @param callback Callback to notify on completion, or null.
+     * @return Future for the event log.
+     */
+    public Future<TreeMap<Date, Boolean>> getLogAsync(ResponseCallback<TreeMap<Date, Boolean>> callback) {
+        return getConnection().submit(new Callable<TreeMap<Date, Boolean>>() {
+            @Override
+            public TreeMap<Date, Boolean> call() throws HWException {
+                return getLog();
+            }
+        }, callback);
+    }
+
 }
@@ -1,13 +1,16 @@
 package nl.rgonline.homewizardlib.sensors;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import lombok.extern.slf4j.Slf4j;
 import nl.rgonline.homewizardlib.AbstractManager;
-import nl.rgonline.homewizardlib.connection.HWConnection;
+import nl.rgonline.homewizardlib.HWChangeType;
 import nl.rgonline.homewizardlib.config.HWConfig;
-import nl.rgonline.homewizardlib.connection.Request;
+import nl.rgonline.homewizardlib.connection.HWConnection;
+import nl.rgonline.homewizardlib.connection.StatusHub;
+import nl.rgonline.homewizardlib.connection.StatusListener;
 import nl.rgonline.homewizardlib.exceptions.HWException;
 
 import org.apache.commons.lang.BooleanUtils;
@@ -24,7 +27,6 @@ public class SensorManager extends AbstractManager<HWSensor> {
 
     private final HWConnection connection;
 
-    private Map<Integer, HWSensor> sensors;
     private volatile boolean initialized = false;
 
     /**
@@ -32,61 +34,129 @@ public class SensorManager extends AbstractManager<HWSensor> {
      * @param connection Connection to use.
      */
     public SensorManager(HWConnection connection) {
-        super(HWConfig.SENSOR_UPDATE_INTERVAL.getValue());
+        super(
+            HWConfig.SENSOR_UPDATE_INTERVAL.getValue(), HWConfig.SENSOR_UPDATE_INTERVAL_MIN.getValue(),
+            HWConfig.SENSOR_UPDATE_INTERVAL_MAX.getValue()
+        );
         this.connection = connection;
+
+        connection.getStatusHub().subscribe(StatusHub.GET_STATUS, new StatusListener() {
+            @Override
+            public void statusReceived(JSONObject response) throws HWException {
+                applyStatus(response);
+            }
+        });
     }
 
     @Override
     public void init(boolean forceReload) throws HWException {
         if (!initialized || forceReload) {
-            Request request = new Request(getUpdateInterval(), "/get-sensors");
-            JSONObject response = connection.request(request);
-
-            // "kakusensors": [
-            //   {"id": 0, "name": "Voordeur", "status": null, "type": "doorbell", "favorite": "no", "timestamp": "00:00"},
-            //   {"id": 1, "name": "Voordeur", "status": "no", "type": "contact", "favorite": "no", "timestamp": "10:22"},
-            //   {"id": 2, "name": "Achterdeur", "status": "yes", "type": "contact", "favorite": "no", "timestamp": "10:22"},
-            //   {"id": 3, "name": "Rookmelder", "status": null, "type": "smoke", "favorite": "no", "timestamp": "00:00"}
-            // ]
-
-            try {
-                JSONArray jsonSensors = response.getJSONArray("kakusensors");
-                int numSensors = jsonSensors.length();
-
-                sensors = new HashMap<>();
-
-                for (int i = 0; i < numSensors; i++) {
-                    JSONObject sensorJson = jsonSensors.getJSONObject(i);
-
-                    int id = sensorJson.getInt("id");
-                    String name = sensorJson.getString("name");
-                    SensorType type = SensorType.forString(sensorJson.getString("type"));
-                    boolean isFavorite = BooleanUtils.toBoolean(sensorJson.getString("favorite"));
-
-                    String status = sensorJson.getString("status");
-                    boolean isOn = BooleanUtils.toBoolean(status);
-                    String lastEvent = (status == null) ? null : sensorJson.getString("timestamp");
-
-                    HWSensor sensor;
-                    if (type == SensorType.SMOKE) {
-                        sensor= new HWSmokeSensor(connection, id, name, type, lastEvent, isFavorite, isOn);
-                    } else {
-                        sensor = new HWSensor(connection, id, name, type, lastEvent, isFavorite, isOn);
-                    }
-                    sensors.put(id, sensor);
+            long maxAge = forceReload ? 0 : getUpdateInterval();
+            loadSensors(connection.getStatusHub().getResponse(StatusHub.GET_SENSORS, maxAge));
+
+            initialized = true;
+        }
+    }
+
+    /**
+     * Reconciles the loaded sensors with the ones in the given {@code /get-sensors} response.
+     * @param response The 'response' object of {@code /get-sensors}.
+     * @throws HWException On any JSON error.
+     */
+    void loadSensors(JSONObject response) throws HWException {
+        // "kakusensors": [
+        //   {"id": 0, "name": "Voordeur", "status": null, "type": "doorbell", "favorite": "no", "timestamp": "00:00"},
+        //   {"id": 1, "name": "Voordeur", "status": "no", "type": "contact", "favorite": "no", "timestamp": "10:22"},
+        //   {"id": 2, "name": "Achterdeur", "status": "yes", "type": "contact", "favorite": "no", "timestamp": "10:22"},
+        //   {"id": 3, "name": "Rookmelder", "status": null, "type": "smoke", "favorite": "no", "timestamp": "00:00"}
+        // ]
+
+        try {
+            JSONArray jsonSensors = response.getJSONArray("kakusensors");
+            int numSensors = jsonSensors.length();
+
+            Map<Integer, HWSensor> newSensors = new HashMap<>();
+
+            for (int i = 0; i < numSensors; i++) {
+                JSONObject sensorJson = jsonSensors.getJSONObject(i);
+
+                int id = sensorJson.getInt("id");
+                String name = sensorJson.getString("name");
+                SensorType type = SensorType.forString(sensorJson.getString("type"));
+                boolean isFavorite = BooleanUtils.toBoolean(sensorJson.getString("favorite"));
+
+                String status = sensorJson.getString("status");
+                boolean isOn = BooleanUtils.toBoolean(status);
+                String lastEvent = (status == null) ? null : sensorJson.getString("timestamp");
+
+                HWSensor sensor;
+                if (type == SensorType.SMOKE) {
+                    sensor= new HWSmokeSensor(connection, id, name, type, lastEvent, isFavorite, isOn);
+                } else {
+                    sensor = new HWSensor(connection, id, name, type, lastEvent, isFavorite, isOn);
                 }
-            } catch (JSONException e) {
-                throw new HWException("Error initializing sensors", e);
+                newSensors.put(id, sensor);
             }
 
-            initialized = true;
+            publish(newSensors);
+        } catch (JSONException e) {
+            throw new HWException("Error initializing sensors", e);
+        }
+    }
+
+    @Override
+    protected JSONObject writeState() throws JSONException {
+        JSONArray sensors = new JSONArray();
+        for (HWSensor sensor : getEntityMap().values()) {
+            sensors.put(new JSONObject()
+                .put("id", sensor.getId())
+                .put("name", sensor.getName())
+                .put("status", BooleanUtils.toStringYesNo(sensor.isOn()))
+                .put("type", sensor.getType().getApiString())
+                .put("favorite", BooleanUtils.toStringYesNo(sensor.isFavorite()))
+                .put("timestamp", sensor.getLastEventTime())
+                .put("log", sensor.writeLog())
+            );
         }
+        return new JSONObject().put("kakusensors", sensors);
+    }
+
+    @Override
+    protected void readState(JSONObject state) throws HWException {
+        loadSensors(state);
+
+        try {
+            Map<Integer, HWSensor> sensors = getEntityMap();
+            JSONArray jsonSensors = state.getJSONArray("kakusensors");
+            for (int i = 0; i < jsonSensors.length(); i++) {
+                JSONObject sensorJson = jsonSensors.getJSONObject(i);
+                if (sensorJson.has("log")) {
+                    sensors.get(sensorJson.getInt("id")).readLog(sensorJson.getJSONObject("log"));
+                }
+            }
+        } catch (JSONException e) {
+            throw new HWException("Error restoring sensor logs", e);
+        }
+        initialized = true;
     }
 
     @Override
     protected void updateStatus() throws HWException {
-        Request request = new Request(getUpdateInterval(), "/get-status");
-        JSONObject response = connection.request(request);
+        // Status is applied by the StatusHub listener
+        connection.getStatusHub().refresh(StatusHub.GET_STATUS, getUpdateInterval());
+    }
+
+    /**
+     * Applies the sensor states from a {@code /get-status} snapshot to the loaded sensors.
+     * @param response The 'response' object of {@code /get-status}.
+     * @throws HWException On any JSON error.
+     */
+    void applyStatus(JSONObject response) throws HWException {
+        Map<Integer, HWSensor> sensors = getEntityMap();
+        if (sensors == null) {
+            // Not initialized yet, init will load the current state
+            return;
+        }
 
         // "kakusensors": [
         //   {"id": 0, "status": null, "timestamp": "00:00"},
@@ -109,19 +179,40 @@ public class SensorManager extends AbstractManager<HWSensor> {
                 if (sensor == null) {
                     log.warn("Unknown sensor ID: " + id);
                 } else {
+                    boolean wasOn = sensor.isOn();
+                    String oldEvent = sensor.getLastEventTime();
                     sensor.setOn(isOn);
                     sensor.setLastEventTime(lastEvent);
                     sensor.updated();
+
+                    fireIfChanged(sensor, HWChangeType.SENSOR_ON, wasOn, isOn);
+                    fireIfChanged(sensor, HWChangeType.LAST_EVENT_TIME, oldEvent, lastEvent);
                 }
             }
+            publishStatus();
         } catch (JSONException e) {
             throw new HWException("Error reloading sensor statuses", e);
         }
     }
 
+    /**
+     * Returns all sensors of the given type.
+     * @param type The type to search for.
+     * @return An unmodifiable list of sensors, sorted by ID.
+     * @throws HWException On HomeWizard communication errors.
+     */
+    public List<HWSensor> getByType(SensorType type) throws HWException {
+        return getSnapshot().getByType(type);
+    }
+
+    @Override
+    protected Enum<?> getEntityType(HWSensor entity) {
+        return entity.getType();
+    }
+
     @Override
-    protected Map<Integer, HWSensor> getEntityMap() {
-        return sensors;
+    protected HWConnection getConnection() {
+        return connection;
     }
 
 }
@@ -0,0 +1,20 @@
+package nl.rgonline.homewizardlib.store;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reads the records of a {@link SegmentStore} within a time range.
+ * @author pdegeus
+ */
+public interface RecordReader {
+
+    /**
+     * Called for each record in the range, in time order. The payload must be read using absolute gets, such as
+     * {@link ByteBuffer#getDouble(int)}, and is only valid during the call.
+     * @param time Timestamp of the record, in epoch milliseconds.
+     * @param buffer Read-only buffer of the segment.
+     * @param offset Offset of the payload in the buffer.
+     */
+    void read(long time, ByteBuffer buffer, int offset);
+
+}
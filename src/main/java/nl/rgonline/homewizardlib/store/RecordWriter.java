@@ -0,0 +1,18 @@
+package nl.rgonline.homewizardlib.store;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Writes the payload of a record appended to a {@link SegmentStore}.
+ * @author pdegeus
+ */
+public interface RecordWriter {
+
+    /**
+     * Writes the payload using absolute puts, such as {@link ByteBuffer#putDouble(int, double)}.
+     * @param buffer Buffer of the segment.
+     * @param offset Offset of the payload in the buffer.
+     */
+    void write(ByteBuffer buffer, int offset);
+
+}
@@ -0,0 +1,561 @@
+package nl.rgonline.homewizardlib.store;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Append-only store of fixed-width, timestamped records, kept in memory-mapped segment files in a directory of its
+ * own. Records must be appended in time order. Each segment holds a fixed number of records; when the last segment
+ * is full, a new one is started.
+ * <p/>
+ * The store keeps a small index of the segments in memory. Reading a time range binary searches the segments
+ * overlapping the range, so only the pages holding the requested records are touched. Old records are removed by
+ * dropping whole segments using {@link #expire(long)}, or by rewriting the remaining records into full segments
+ * using {@link #compact(long)}.
+ * <p/>
+ * Segment layout: a 16 byte header (magic, record size, capacity, record count), followed by the records, each
+ * holding an 8 byte timestamp followed by the payload. The record count is updated after writing a record, so a
+ * partially written record is ignored after a crash.
+ * <p/>
+ * A store holds a lock on its directory while open, so the directory can not be opened by a second store, in this or
+ * another process. Thread-safe.
+ * @author pdegeus
+ */
+@Slf4j
+public final class SegmentStore implements Closeable {
+
+    private static final int MAGIC = 0x48575347;
+    private static final int HEADER_SIZE = 16;
+    private static final int RECORD_SIZE_OFFSET = 4;
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int COUNT_OFFSET = 12;
+    private static final int TIME_SIZE = 8;
+
+    private static final String SUFFIX = ".seg";
+    private static final String COMPACT_SUFFIX = ".compact";
+    private static final String COMPACT_MARKER = "compact.done";
+    private static final String LOCK_FILE = "store.lock";
+
+    private final File directory;
+    private final FileChannel lockChannel;
+    private final int recordSize;
+    private final int segmentRecords;
+
+    private List<Segment> segments = new ArrayList<>();
+    private int nextSequence = 0;
+    private int size = 0;
+    private boolean closed = false;
+
+    /**
+     * Opens or creates a store. An interrupted compaction is completed or rolled back, and segments left partially
+     * filled are compacted.
+     * @param directory Directory of the store, created if needed.
+     * @param payloadSize Size of the payload of each record, in bytes.
+     * @param segmentRecords Number of records per new segment.
+     * @throws IOException If the store can not be opened, is opened by another store already, or holds records of
+     * another size.
+     */
+    public SegmentStore(File directory, int payloadSize, int segmentRecords) throws IOException {
+        if (payloadSize < 0 || segmentRecords <= 0) {
+            throw new IllegalArgumentException("Invalid payload size or segment records: " + payloadSize + ", "
+                + segmentRecords);
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create directory " + directory);
+        }
+
+        this.directory = directory;
+        this.recordSize = TIME_SIZE + payloadSize;
+        this.segmentRecords = segmentRecords;
+        this.lockChannel = lock(new File(directory, LOCK_FILE));
+
+        try {
+            recover();
+            load();
+
+            for (int i = 0; i < segments.size() - 1; i++) {
+                if (segments.get(i).count < segments.get(i).capacity) {
+                    compact(Long.MIN_VALUE);
+                    break;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            lockChannel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Takes an exclusive lock on the given file, held until the returned channel is closed.
+     */
+    private static FileChannel lock(File file) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // Locked within this JVM
+            lock = null;
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+
+        if (lock == null) {
+            channel.close();
+            throw new IOException("Store is opened by another store already: " + file.getParentFile());
+        }
+        return channel;
+    }
+
+    /**
+     * @return Number of records.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @return Number of segment files.
+     */
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * @return Timestamp of the oldest record, or {@link Long#MAX_VALUE} if empty.
+     */
+    public synchronized long getFirstTime() {
+        return segments.isEmpty() ? Long.MAX_VALUE : segments.get(0).firstTime();
+    }
+
+    /**
+     * @return Timestamp of the newest record, or {@link Long#MIN_VALUE} if empty.
+     */
+    public synchronized long getLastTime() {
+        return segments.isEmpty() ? Long.MIN_VALUE : segments.get(segments.size() - 1).lastTime();
+    }
+
+    /**
+     * Appends a record, if it is newer than the newest record.
+     * @param time Timestamp of the record, in epoch milliseconds.
+     * @param writer Writer of the payload.
+     * @return True if appended, false if not newer than the newest record.
+     * @throws IOException If a new segment can not be created.
+     */
+    public synchronized boolean append(long time, RecordWriter writer) throws IOException {
+        checkOpen();
+        Segment tail = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (tail != null && time <= tail.lastTime()) {
+            return false;
+        }
+
+        if (tail == null || tail.count == tail.capacity) {
+            tail = new Segment(new File(directory, name(nextSequence)), nextSequence++, segmentRecords);
+            segments.add(tail);
+        }
+
+        int offset = tail.offset(tail.count);
+        tail.buffer.putLong(offset, time);
+        writer.write(tail.buffer, offset + TIME_SIZE);
+        tail.setCount(tail.count + 1);
+        size++;
+        return true;
+    }
+
+    /**
+     * Reads the records within a time range.
+     * @param from Start of the range in epoch milliseconds, inclusive.
+     * @param to End of the range in epoch milliseconds, exclusive.
+     * @param reader Reader called for each record, in time order.
+     * @return Number of records read.
+     */
+    public synchronized int read(long from, long to, RecordReader reader) {
+        checkOpen();
+        int read = 0;
+        for (Segment segment : segments) {
+            if (segment.lastTime() < from) {
+                continue;
+            }
+            if (segment.firstTime() >= to) {
+                break;
+            }
+
+            ByteBuffer view = segment.buffer.asReadOnlyBuffer();
+            int end = segment.indexOf(to);
+            for (int i = segment.indexOf(from); i < end; i++) {
+                int offset = segment.offset(i);
+                reader.read(view.getLong(offset), view, offset + TIME_SIZE);
+                read++;
+            }
+        }
+        return read;
+    }
+
+    /**
+     * Counts the records within a time range, without reading them.
+     * @param from Start of the range in epoch milliseconds, inclusive.
+     * @param to End of the range in epoch milliseconds, exclusive.
+     * @return Number of records within the range.
+     */
+    public synchronized int count(long from, long to) {
+        checkOpen();
+        int count = 0;
+        for (Segment segment : segments) {
+            if (segment.lastTime() >= from && segment.firstTime() < to) {
+                count += segment.indexOf(to) - segment.indexOf(from);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Deletes the segments holding only records older than the given time. Older records in the remaining segments
+     * are kept; use {@link #compact(long)} to remove those as well.
+     * @param before Epoch milliseconds of the oldest record to keep.
+     * @return Number of removed records.
+     */
+    public synchronized int expire(long before) {
+        checkOpen();
+        int removed = 0;
+        while (!segments.isEmpty() && segments.get(0).lastTime() < before) {
+            Segment segment = segments.remove(0);
+            removed += segment.count;
+            segment.delete();
+        }
+        size -= removed;
+        return removed;
+    }
+
+    /**
+     * Rewrites the records newer than the given time into full segments. The new segments are written next to the
+     * old ones and swapped in afterwards, so an interrupted compaction is either completed or rolled back when the
+     * store is opened again.
+     * @param before Epoch milliseconds of the oldest record to keep.
+     * @return Number of removed records.
+     * @throws IOException If the new segments can not be written.
+     */
+    public synchronized int compact(long before) throws IOException {
+        checkOpen();
+        List<Segment> compacted = new ArrayList<>();
+        Segment target = null;
+        int sequence = nextSequence;
+        int kept = 0;
+
+        try {
+            for (Segment segment : segments) {
+                int index = segment.indexOf(before);
+                while (index < segment.count) {
+                    if (target == null || target.count == target.capacity) {
+                        File file = new File(directory, name(sequence) + COMPACT_SUFFIX);
+                        target = new Segment(file, sequence++, segmentRecords);
+                        compacted.add(target);
+                    }
+
+                    // Copy as many records as fit into the target at once
+                    int count = Math.min(segment.count - index, target.capacity - target.count);
+                    ByteBuffer source = segment.buffer.duplicate();
+                    source.limit(segment.offset(index + count)).position(segment.offset(index));
+                    ByteBuffer destination = target.buffer.duplicate();
+                    destination.position(target.offset(target.count));
+                    destination.put(source);
+
+                    target.setCount(target.count + count);
+                    index += count;
+                    kept += count;
+                }
+            }
+
+            for (Segment segment : compacted) {
+                segment.buffer.force();
+            }
+        } catch (IOException e) {
+            for (Segment segment : compacted) {
+                segment.delete();
+            }
+            throw e;
+        }
+
+        // Swap in the new segments. The marker holds the sequence of the first new segment, so recovery can tell
+        // the old segments from new segments that were already renamed.
+        File marker = new File(directory, COMPACT_MARKER);
+        Files.write(marker.toPath(), String.valueOf(nextSequence).getBytes(StandardCharsets.US_ASCII),
+            StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE, StandardOpenOption.SYNC);
+        for (Segment segment : segments) {
+            segment.delete();
+        }
+        for (Segment segment : compacted) {
+            segment.renameTo(new File(directory, name(segment.sequence)));
+        }
+        delete(marker);
+
+        int removed = size - kept;
+        segments = compacted;
+        nextSequence = sequence;
+        size = kept;
+        return removed;
+    }
+
+    /**
+     * Writes all changes to disk.
+     */
+    public synchronized void flush() {
+        for (Segment segment : segments) {
+            segment.buffer.force();
+        }
+    }
+
+    /**
+     * Flushes and closes the store, releasing the lock on its directory. The memory mappings are released once
+     * garbage collected.
+     */
+    @Override
+    public synchronized void close() {
+        if (!closed) {
+            flush();
+            closed = true;
+            try {
+                lockChannel.close();
+            } catch (IOException e) {
+                log.warn("Could not release the lock of store {}", directory, e);
+            }
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Store is closed: " + directory);
+        }
+    }
+
+    /**
+     * Completes a compaction that was interrupted after writing all new segments, or rolls it back otherwise. The
+     * new segments are numbered after the old ones, starting at the sequence held by the marker, so when completing,
+     * only the segments numbered below it are deleted; new segments renamed before the interruption are kept.
+     */
+    private void recover() throws IOException {
+        File marker = new File(directory, COMPACT_MARKER);
+        File[] pending = list(SUFFIX + COMPACT_SUFFIX);
+        if (marker.isFile() && pending.length > 0) {
+            int first;
+            try {
+                first = Integer.parseInt(new String(Files.readAllBytes(marker.toPath()), StandardCharsets.US_ASCII));
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid compaction marker " + marker, e);
+            }
+            for (File file : list(SUFFIX)) {
+                int sequence = sequence(file.getName());
+                if (sequence >= 0 && sequence < first) {
+                    delete(file);
+                }
+            }
+            for (File file : pending) {
+                String name = file.getName();
+                File target = new File(directory, name.substring(0, name.length() - COMPACT_SUFFIX.length()));
+                if (!file.renameTo(target)) {
+                    throw new IOException("Could not rename " + file + " to " + target);
+                }
+            }
+            delete(marker);
+        } else {
+            for (File file : pending) {
+                delete(file);
+            }
+            if (marker.isFile()) {
+                delete(marker);
+            }
+        }
+    }
+
+    private void load() throws IOException {
+        File[] files = list(SUFFIX);
+        Arrays.sort(files);
+
+        for (File file : files) {
+            int sequence = sequence(file.getName());
+            if (sequence < 0) {
+                log.warn("Ignoring unknown file {}", file);
+                continue;
+            }
+
+            Segment segment = new Segment(file, sequence);
+            nextSequence = Math.max(nextSequence, sequence + 1);
+            if (segment.count == 0) {
+                segment.delete();
+                continue;
+            }
+            if (!segments.isEmpty() && segment.firstTime() <= segments.get(segments.size() - 1).lastTime()) {
+                throw new IOException("Segment " + file + " overlaps the previous segment");
+            }
+
+            segments.add(segment);
+            size += segment.count;
+        }
+    }
+
+    private File[] list(final String suffix) throws IOException {
+        File[] files = directory.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.endsWith(suffix);
+            }
+        });
+        if (files == null) {
+            throw new IOException("Could not list " + directory);
+        }
+        return files;
+    }
+
+    private static void delete(File file) throws IOException {
+        if (!file.delete()) {
+            throw new IOException("Could not delete " + file);
+        }
+    }
+
+    /**
+     * @return Sequence number of a segment file name, or -1 if the name is not a segment file name.
+     */
+    private static int sequence(String name) {
+        try {
+            return Integer.parseInt(name.substring(0, name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static String name(int sequence) {
+        return String.format("%010d", sequence) + SUFFIX;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "SegmentStore[" + directory + ", segments=" + segments.size() + ", size=" + size + "]";
+    }
+
+    /**
+     * Memory-mapped segment file.
+     */
+    private final class Segment {
+
+        private final int sequence;
+        private final int capacity;
+        private final MappedByteBuffer buffer;
+        private File file;
+        private int count;
+
+        /**
+         * Creates a new, empty segment.
+         */
+        Segment(File file, int sequence, int capacity) throws IOException {
+            this.file = file;
+            this.sequence = sequence;
+            this.capacity = capacity;
+            this.buffer = map(file, HEADER_SIZE + (long) capacity * recordSize);
+
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(RECORD_SIZE_OFFSET, recordSize);
+            buffer.putInt(CAPACITY_OFFSET, capacity);
+            setCount(0);
+        }
+
+        /**
+         * Opens an existing segment.
+         */
+        Segment(File file, int sequence) throws IOException {
+            this.file = file;
+            this.sequence = sequence;
+            if (file.length() < HEADER_SIZE) {
+                throw new IOException("Invalid segment " + file);
+            }
+            this.buffer = map(file, file.length());
+
+            this.capacity = buffer.getInt(CAPACITY_OFFSET);
+            this.count = buffer.getInt(COUNT_OFFSET);
+            if (buffer.getInt(0) != MAGIC || capacity < 0 || count < 0 || count > capacity
+                || file.length() < HEADER_SIZE + (long) capacity * recordSize) {
+                throw new IOException("Invalid segment " + file);
+            }
+            if (buffer.getInt(RECORD_SIZE_OFFSET) != recordSize) {
+                throw new IOException("Segment " + file + " holds records of " + buffer.getInt(RECORD_SIZE_OFFSET)
+                    + " bytes instead of " + recordSize);
+            }
+        }
+
+        private MappedByteBuffer map(File file, long length) throws IOException {
+            // The mapping stays valid after closing the file
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(length);
+                return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, length);
+            }
+        }
+
+        int offset(int index) {
+            return HEADER_SIZE + index * recordSize;
+        }
+
+        long time(int index) {
+            return buffer.getLong(offset(index));
+        }
+
+        long firstTime() {
+            return time(0);
+        }
+
+        long lastTime() {
+            return time(count - 1);
+        }
+
+        void setCount(int count) {
+            this.count = count;
+            buffer.putInt(COUNT_OFFSET, count);
+        }
+
+        /**
+         * Finds the index of the first record at or after the given time.
+         */
+        int indexOf(long time) {
+            int low = 0;
+            int high = count;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (time(mid) < time) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        void renameTo(File target) throws IOException {
+            if (!file.renameTo(target)) {
+                throw new IOException("Could not rename " + file + " to " + target);
+            }
+            file = target;
+        }
+
+        void delete() {
+            if (!file.delete()) {
+                log.warn("Could not delete segment {}", file);
+            }
+        }
+
+    }
+
+}
@@ -1,8 +1,13 @@
 package nl.rgonline.homewizardlib.switches;
 
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
 import lombok.Getter;
 import lombok.ToString;
+import nl.rgonline.homewizardlib.AbstractHwEntity;
 import nl.rgonline.homewizardlib.connection.HWConnection;
+import nl.rgonline.homewizardlib.connection.ResponseCallback;
 import nl.rgonline.homewizardlib.exceptions.HWException;
 
 /**
@@ -40,6 +45,23 @@ public class HWDimmer extends HWSwitch {
         return true;
     }
 
+    @Override
+    protected boolean updateFrom(AbstractHwEntity loaded) {
+        boolean changed = super.updateFrom(loaded);
+        int loadedLevel = ((HWDimmer) loaded).dimLevel;
+        changed |= (dimLevel != loadedLevel);
+        dimLevel = loadedLevel;
+        return changed;
+    }
+
+    /**
+     * Sets the dim-level as reported by the HomeWizard, without updating the HomeWizard.
+     * @param dimLevel Current dim-level.
+     */
+    void updateDimLevel(int dimLevel) {
+        this.dimLevel = dimLevel;
+    }
+
     /**
      * Sets dim-level of this dimmer. Updates HomeWizard immediately (no need to call {@link #saveChanges()}.
      * Equivalent of http://[ip]/[password]/sw/dim/[id]/[dim-level].
@@ -50,5 +72,21 @@ public class HWDimmer extends HWSwitch {
         this.dimLevel = dimLevel;
         getConnection().request("/sw/dim/", getId(), "/", dimLevel);
     }
-	
+
+    /**
+     * Asynchronous variant of {@link #setDimLevel(int)}.
+     * @param dimLevel New dim-level.
+     * @param callback Callback to notify on completion, or null.
+     * @return Future completing when the dim-level is set.
+     */
+    public Future<Void> setDimLevelAsync(final int dimLevel, ResponseCallback<Void> callback) {
+        return getConnection().submit(new Callable<Void>() {
+            @Override
+            public Void call() throws HWException {
+                setDimLevel(dimLevel);
+                return null;
+            }
+        }, callback);
+    }
+
 }
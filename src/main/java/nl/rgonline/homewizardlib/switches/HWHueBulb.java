@@ -1,8 +1,14 @@
 package nl.rgonline.homewizardlib.switches;
 
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
 import lombok.Getter;
 import lombok.ToString;
+import nl.rgonline.homewizardlib.AbstractHwEntity;
 import nl.rgonline.homewizardlib.connection.HWConnection;
+import nl.rgonline.homewizardlib.connection.ResponseCallback;
 import nl.rgonline.homewizardlib.exceptions.HWException;
 import nl.rgonline.homewizardlib.util.HueColor;
 
@@ -35,6 +41,23 @@ public class HWHueBulb extends HWSwitch {
         return SwitchType.HUE_BULB;
     }
 
+    @Override
+    protected boolean updateFrom(AbstractHwEntity loaded) {
+        boolean changed = super.updateFrom(loaded);
+        HueColor loadedColor = ((HWHueBulb) loaded).color;
+        changed |= !Objects.equals(color, loadedColor);
+        color = loadedColor;
+        return changed;
+    }
+
+    /**
+     * Sets the color as reported by the HomeWizard, without updating the HomeWizard.
+     * @param color Current color.
+     */
+    void updateColor(HueColor color) {
+        this.color = color;
+    }
+
     /**
      * Sets the bulb color. Updates HomeWizard immediately (no need to call {@link #saveChanges()}.
      * Equivalent of http://[ip]/[password]/sw/[id]/[on|off]/[hue]/[sat]/[bri]
@@ -47,4 +70,20 @@ public class HWHueBulb extends HWSwitch {
         getConnection().request("/sw/", getId(), "/", onOff, "/", color.getHue(), "/", color.getSaturation(), "/", color.getBrightness());
     }
 
+    /**
+     * Asynchronous variant of {@link #setColor(HueColor)}.
+     * @param color Color to set.
+     * @param callback Callback to notify on completion, or null.
+     * @return Future completing when the color is set.
+     */
+    public Future<Void> setColorAsync(final HueColor color, ResponseCallback<Void> callback) {
+        return getConnection().submit(new Callable<Void>() {
+            @Override
+            public Void call() throws HWException {
+                setColor(color);
+                return null;
+            }
+        }, callback);
+    }
+
 }
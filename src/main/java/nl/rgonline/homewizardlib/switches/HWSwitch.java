@@ -1,5 +1,8 @@
 package nl.rgonline.homewizardlib.switches;
 
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
@@ -7,6 +10,7 @@ import lombok.extern.slf4j.Slf4j;
 import nl.rgonline.homewizardlib.AbstractHwEntity;
 import nl.rgonline.homewizardlib.connection.HWConnection;
 import nl.rgonline.homewizardlib.connection.Request;
+import nl.rgonline.homewizardlib.connection.ResponseCallback;
 import nl.rgonline.homewizardlib.exceptions.HWException;
 import nl.rgonline.homewizardlib.util.UrlUtil;
 
@@ -108,6 +112,15 @@ public class HWSwitch extends AbstractHwEntity {
         getConnection().request(request);
     }
 
+    @Override
+    protected boolean updateFrom(AbstractHwEntity loaded) {
+        boolean changed = super.updateFrom(loaded);
+        boolean loadedOn = ((HWSwitch) loaded).on;
+        changed |= (on != loadedOn);
+        on = loadedOn;
+        return changed;
+    }
+
     @Override
     protected void saveInternal() throws HWException {
         String fav = BooleanUtils.toStringYesNo(isFavorite());
@@ -118,4 +131,34 @@ public class HWSwitch extends AbstractHwEntity {
         getConnection().request(request);
     }
 
+    /**
+     * Asynchronous variant of {@link #turnOn()}.
+     * @param callback Callback to notify on completion, or null.
+     * @return Future completing when the switch is turned on.
+     */
+    public Future<Void> turnOnAsync(ResponseCallback<Void> callback) {
+        return getConnection().submit(new Callable<Void>() {
+            @Override
+            public Void call() throws HWException {
+                turnOn();
+                return null;
+            }
+        }, callback);
+    }
+
+    /**
+     * Asynchronous variant of {@link #turnOff()}.
+     * @param callback Callback to notify on completion, or null.
+     * @return Future completing when the switch is turned off.
+     */
+    public Future<Void> turnOffAsync(ResponseCallback<Void> callback) {
+        return getConnection().submit(new Callable<Void>() {
+            @Override
+            public Void call() throws HWException {
+                turnOff();
+                return null;
+            }
+        }, callback);
+    }
+
 }
@@ -1,14 +1,21 @@
 package nl.rgonline.homewizardlib.switches;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import lombok.extern.slf4j.Slf4j;
 import nl.rgonline.homewizardlib.AbstractManager;
+import nl.rgonline.homewizardlib.HWChangeType;
+import nl.rgonline.homewizardlib.RefreshResult;
 import nl.rgonline.homewizardlib.config.HWConfig;
+import nl.rgonline.homewizardlib.connection.CommandListener;
 import nl.rgonline.homewizardlib.connection.HWConnection;
 import nl.rgonline.homewizardlib.connection.Request;
+import nl.rgonline.homewizardlib.connection.StatusHub;
+import nl.rgonline.homewizardlib.connection.StatusListener;
 import nl.rgonline.homewizardlib.exceptions.HWException;
+import nl.rgonline.homewizardlib.metrics.EndpointFamily;
 import nl.rgonline.homewizardlib.util.HueColor;
 
 import org.apache.commons.lang.BooleanUtils;
@@ -25,7 +32,6 @@ public class SwitchManager extends AbstractManager<HWSwitch> {
 
     private final HWConnection connection;
 
-    private Map<Integer, HWSwitch> switches;
     private volatile boolean initialized = false;
 
     /**
@@ -33,71 +39,141 @@ public class SwitchManager extends AbstractManager<HWSwitch> {
      * @param connection Connection to use.
      */
     public SwitchManager(HWConnection connection) {
-        super(HWConfig.SWITCH_UPDATE_INTERVAL.getValue());
+        super(
+            HWConfig.SWITCH_UPDATE_INTERVAL.getValue(), HWConfig.SWITCH_UPDATE_INTERVAL_MIN.getValue(),
+            HWConfig.SWITCH_UPDATE_INTERVAL_MAX.getValue()
+        );
         this.connection = connection;
+
+        connection.getStatusHub().subscribe(StatusHub.GET_STATUS, new StatusListener() {
+            @Override
+            public void statusReceived(JSONObject response) throws HWException {
+                applyStatus(response);
+            }
+        });
+
+        // Switch and scene commands change switch states, so check them soon
+        connection.addCommandListener(new CommandListener() {
+            @Override
+            public void commandSent(EndpointFamily family) {
+                if (family == EndpointFamily.SWITCH_COMMAND || family == EndpointFamily.SCENE_COMMAND) {
+                    tightenUpdateInterval();
+                }
+            }
+        });
     }
 
     @Override
     public void init(boolean forceReload) throws HWException {
         if (!initialized || forceReload) {
             Request request = new Request("/swlist").setReturnResponse(false);
-            JSONObject response = connection.request(request);
-
-            // "response": [
-            //   { "id": 5, "name": "TestDim", "type": "dimmer", "status": "off", "dimlevel": 0, "favorite": "yes" },
-            //   { "id": 6, "name": "Bijkeuken", "type": "switch", "status": "off", "favorite": "no" },
-            //   { "id": 7, "name": "TV kast", "type": "hue", "status": "on", "hue_id": 0, "light_id": 3,
-            //     "color": {
-            //       "hue": 76, "sat": 92, "bri": 79
-            //     }, "favorite": "no"
-            //   }
-            // ]
-
-            try {
-                JSONArray jsonSwitches = response.getJSONArray("response");
-                int numSwitches = jsonSwitches.length();
-
-                switches = new HashMap<>();
-
-                for (int i = 0; i < numSwitches; i++) {
-                    JSONObject switchJson = jsonSwitches.getJSONObject(i);
-
-                    int id = switchJson.getInt("id");
-                    String name = switchJson.getString("name");
-                    boolean isFavorite = BooleanUtils.toBoolean(switchJson.getString("favorite"));
-                    boolean isOn = BooleanUtils.toBoolean(switchJson.getString("status"));
-                    SwitchType type = SwitchType.forString(switchJson.getString("type"));
-
-                    switch (type) {
-                        case STANDARD:
-                            HWSwitch theSwitch = new HWSwitch(connection, id, name, isFavorite, isOn);
-                            switches.put(id, theSwitch);
-                            break;
-                        case DIMMER:
-                            int dimlevel = switchJson.getInt("dimlevel");
-                            HWDimmer dimmer = new HWDimmer(connection, id, name, isFavorite, isOn, dimlevel);
-                            switches.put(id, dimmer);
-                            break;
-                        case HUE_BULB:
-                            HueColor color = new HueColor(switchJson.getJSONObject("color"));
-                            HWHueBulb hue = new HWHueBulb(connection, id, name, isFavorite, isOn, color);
-                            switches.put(id, hue);
-                            break;
-                    }
+            loadSwitches(connection.request(request));
 
+            initialized = true;
+        }
+    }
+
+    /**
+     * Reconciles the loaded switches with the ones in the given {@code /swlist} response.
+     * @param response The complete {@code /swlist} response.
+     * @return The added, removed and changed switches.
+     * @throws HWException On any JSON error.
+     */
+    RefreshResult<HWSwitch> loadSwitches(JSONObject response) throws HWException {
+        // "response": [
+        //   { "id": 5, "name": "TestDim", "type": "dimmer", "status": "off", "dimlevel": 0, "favorite": "yes" },
+        //   { "id": 6, "name": "Bijkeuken", "type": "switch", "status": "off", "favorite": "no" },
+        //   { "id": 7, "name": "TV kast", "type": "hue", "status": "on", "hue_id": 0, "light_id": 3,
+        //     "color": {
+        //       "hue": 76, "sat": 92, "bri": 79
+        //     }, "favorite": "no"
+        //   }
+        // ]
+
+        try {
+            JSONArray jsonSwitches = response.getJSONArray("response");
+            int numSwitches = jsonSwitches.length();
+
+            Map<Integer, HWSwitch> newSwitches = new HashMap<>();
+
+            for (int i = 0; i < numSwitches; i++) {
+                JSONObject switchJson = jsonSwitches.getJSONObject(i);
+
+                int id = switchJson.getInt("id");
+                String name = switchJson.getString("name");
+                boolean isFavorite = BooleanUtils.toBoolean(switchJson.getString("favorite"));
+                boolean isOn = BooleanUtils.toBoolean(switchJson.getString("status"));
+                SwitchType type = SwitchType.forString(switchJson.getString("type"));
+
+                switch (type) {
+                    case STANDARD:
+                        HWSwitch theSwitch = new HWSwitch(connection, id, name, isFavorite, isOn);
+                        newSwitches.put(id, theSwitch);
+                        break;
+                    case DIMMER:
+                        int dimlevel = switchJson.getInt("dimlevel");
+                        HWDimmer dimmer = new HWDimmer(connection, id, name, isFavorite, isOn, dimlevel);
+                        newSwitches.put(id, dimmer);
+                        break;
+                    case HUE_BULB:
+                        HueColor color = new HueColor(switchJson.getJSONObject("color"));
+                        HWHueBulb hue = new HWHueBulb(connection, id, name, isFavorite, isOn, color);
+                        newSwitches.put(id, hue);
+                        break;
                 }
-            } catch (JSONException e) {
-                throw new HWException("Error initializing switches", e);
+
             }
 
-            initialized = true;
+            return publish(newSwitches);
+        } catch (JSONException e) {
+            throw new HWException("Error initializing switches", e);
         }
     }
 
+    @Override
+    protected JSONObject writeState() throws JSONException {
+        JSONArray switches = new JSONArray();
+        for (HWSwitch hwSwitch : getEntityMap().values()) {
+            JSONObject switchJson = new JSONObject()
+                .put("id", hwSwitch.getId())
+                .put("name", hwSwitch.getName())
+                .put("type", hwSwitch.getType().getApiString())
+                .put("status", hwSwitch.isOn() ? "on" : "off")
+                .put("favorite", BooleanUtils.toStringYesNo(hwSwitch.isFavorite()));
+
+            if (hwSwitch instanceof HWDimmer) {
+                switchJson.put("dimlevel", ((HWDimmer) hwSwitch).getDimLevel());
+            } else if (hwSwitch instanceof HWHueBulb) {
+                switchJson.put("color", ((HWHueBulb) hwSwitch).getColor().toJson());
+            }
+            switches.put(switchJson);
+        }
+        return new JSONObject().put("response", switches);
+    }
+
+    @Override
+    protected void readState(JSONObject state) throws HWException {
+        loadSwitches(state);
+        initialized = true;
+    }
+
     @Override
     protected void updateStatus() throws HWException {
-        Request request = new Request(getUpdateInterval(), "/get-status");
-        JSONObject response = connection.request(request);
+        // Status is applied by the StatusHub listener
+        connection.getStatusHub().refresh(StatusHub.GET_STATUS, getUpdateInterval());
+    }
+
+    /**
+     * Applies the switch states from a {@code /get-status} snapshot to the loaded switches.
+     * @param response The 'response' object of {@code /get-status}.
+     * @throws HWException On any JSON error.
+     */
+    void applyStatus(JSONObject response) throws HWException {
+        Map<Integer, HWSwitch> switches = getEntityMap();
+        if (switches == null) {
+            // Not initialized yet, init will load the current state
+            return;
+        }
 
         // "switches": [
         //   { "id": 5, "type": "dimmer", "status": "off", "dimlevel": 0 },
@@ -118,11 +194,29 @@ public class SwitchManager extends AbstractManager<HWSwitch> {
                 HWSwitch curSwitch = switches.get(id);
                 if (curSwitch == null) {
                     log.warn("Unknown switch ID: " + id);
-                } else {
-                    curSwitch.setOn(isOn);
-                    curSwitch.updated();
+                    continue;
+                }
+
+                boolean wasOn = curSwitch.isOn();
+                curSwitch.setOn(isOn);
+                curSwitch.updated();
+                fireIfChanged(curSwitch, HWChangeType.SWITCH_ON, wasOn, isOn);
+
+                if (curSwitch instanceof HWDimmer && switchJson.has("dimlevel")) {
+                    HWDimmer dimmer = (HWDimmer) curSwitch;
+                    int oldLevel = dimmer.getDimLevel();
+                    int dimLevel = switchJson.getInt("dimlevel");
+                    dimmer.updateDimLevel(dimLevel);
+                    fireIfChanged(curSwitch, HWChangeType.DIM_LEVEL, oldLevel, dimLevel);
+                } else if (curSwitch instanceof HWHueBulb && switchJson.has("color")) {
+                    HWHueBulb bulb = (HWHueBulb) curSwitch;
+                    HueColor oldColor = bulb.getColor();
+                    HueColor color = new HueColor(switchJson.getJSONObject("color"));
+                    bulb.updateColor(color);
+                    fireIfChanged(curSwitch, HWChangeType.COLOR, oldColor, color);
                 }
             }
+            publishStatus();
         } catch (JSONException e) {
             throw new HWException("Error reloading switch statuses", e);
         }
@@ -130,7 +224,27 @@ public class SwitchManager extends AbstractManager<HWSwitch> {
 
     @Override
     public Map<Integer, HWSwitch> getEntityMap() {
-        return switches;
+        return super.getEntityMap();
+    }
+
+    /**
+     * Returns all switches of the given type.
+     * @param type The type to search for.
+     * @return An unmodifiable list of switches, sorted by ID.
+     * @throws HWException On HomeWizard communication errors.
+     */
+    public List<HWSwitch> getByType(SwitchType type) throws HWException {
+        return getSnapshot().getByType(type);
+    }
+
+    @Override
+    protected Enum<?> getEntityType(HWSwitch entity) {
+        return entity.getType();
+    }
+
+    @Override
+    protected HWConnection getConnection() {
+        return connection;
     }
 
 }
@@ -1,13 +1,14 @@
 package nl.rgonline.homewizardlib.thermo;
 
-import java.text.DateFormat;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
 import java.util.Date;
-import java.util.HashMap;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 import lombok.AccessLevel;
 import lombok.EqualsAndHashCode;
@@ -15,10 +16,14 @@ import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
 import nl.rgonline.homewizardlib.AbstractHwEntity;
-import nl.rgonline.homewizardlib.connection.HWConnection;
 import nl.rgonline.homewizardlib.config.HWConfig;
+import nl.rgonline.homewizardlib.connection.HWConnection;
 import nl.rgonline.homewizardlib.connection.Request;
+import nl.rgonline.homewizardlib.connection.ResponseCallback;
+import nl.rgonline.homewizardlib.connection.ResponseItemHandler;
 import nl.rgonline.homewizardlib.exceptions.HWException;
+import nl.rgonline.homewizardlib.store.SegmentStore;
+import nl.rgonline.homewizardlib.util.TimestampParser;
 import nl.rgonline.homewizardlib.util.UrlUtil;
 
 import org.apache.commons.lang.BooleanUtils;
@@ -30,12 +35,16 @@ import org.json.JSONObject;
  * Represents a thermometer in the HomeWizard system.
  * @author pdegeus
  */
-@EqualsAndHashCode(exclude={"temperature", "humidity", "humidityCache", "temperatureCache"}, callSuper = true)
+@EqualsAndHashCode(
+    exclude={
+        "temperature", "humidity", "history", "historyUpdated", "retention", "archive", "rollups", "rollupTimeZone"
+    },
+    callSuper = true
+)
 @ToString(callSuper = true)
 public class HWThermometer extends AbstractHwEntity {
 
-    // Date parser for timestamp: 2013-08-13 21:25
-    private final DateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm");
+    private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
 
     @Getter @Setter
     private int channel;
@@ -64,8 +73,15 @@ public class HWThermometer extends AbstractHwEntity {
     @Getter @Setter(AccessLevel.PROTECTED)
     private String maxHumidityTime;
 
-    private Map<TimeSpan, TimeValueCache<Integer>> humidityCache = new HashMap<>();
-    private Map<TimeSpan, TimeValueCache<Double>> temperatureCache = new HashMap<>();
+    private final Map<TimeSpan, ThermoSeries> history = new EnumMap<>(TimeSpan.class);
+    private final Map<TimeSpan, Long> historyUpdated = new EnumMap<>(TimeSpan.class);
+
+    // Retained day graph data and rollups, opened on first use; null if retention is disabled
+    private final long retention;
+    private final long rollupRetention;
+    private ThermoArchive archive;
+    private Map<RollupResolution, ThermoRollup> rollups;
+    private TimeZone rollupTimeZone;
 
     /**
      * Constructor.
@@ -78,6 +94,129 @@ public class HWThermometer extends AbstractHwEntity {
     protected HWThermometer(HWConnection connection, int id, String name, boolean isFavorite, int channel) {
         super(connection, id, name, isFavorite);
         this.channel = channel;
+
+        this.retention = HWConfig.THERMO_RETENTION_DAYS.getValue() * DAY_MILLIS;
+        this.rollupRetention = HWConfig.THERMO_ROLLUP_RETENTION_DAYS.getValue() * DAY_MILLIS;
+    }
+
+    /**
+     * Opens the archive of retained data on first use, in the local store if configured.
+     * @return The archive, or null if retention is disabled.
+     * @throws HWException If the store can not be opened, or was closed with the connection.
+     */
+    private synchronized ThermoArchive openArchive() throws HWException {
+        if (archive == null && retention > 0) {
+            SegmentStore store = getConnection().getStore("thermo-" + getId(), ThermoArchive.PAYLOAD_SIZE);
+            archive = new ThermoArchive(retention, store);
+        }
+        if (archive != null && archive.isStored() && getConnection().isClosed()) {
+            throw new HWException("HomeWizard connection is closed, the data of thermometer " + getId()
+                + " is not available");
+        }
+        return archive;
+    }
+
+    /**
+     * Returns the rollups, aligned to the current time zone of the HomeWizard, see
+     * {@link HWConnection#getTimestampParser()}. The rollups are built from the retained data on first use, and
+     * rebuilt from it if the time zone changed since, as existing buckets can not be realigned.
+     * @return The rollups, or null if retention is disabled.
+     * @throws HWException If the store can not be opened.
+     */
+    private synchronized Map<RollupResolution, ThermoRollup> openRollups() throws HWException {
+        ThermoArchive retained = openArchive();
+        if (retained == null) {
+            return null;
+        }
+
+        TimeZone timeZone = getConnection().getTimestampParser().getTimeZone();
+        if (rollups == null || !timeZone.hasSameRules(rollupTimeZone)) {
+            Map<RollupResolution, ThermoRollup> created = new EnumMap<>(RollupResolution.class);
+            for (RollupResolution resolution : RollupResolution.values()) {
+                created.put(resolution, new ThermoRollup(resolution, timeZone, rollupRetention));
+            }
+            if (retained.size() > 0) {
+                ThermoSeries series = retained.getSeries();
+                for (ThermoRollup rollup : created.values()) {
+                    rollup.add(series);
+                }
+            }
+            rollups = created;
+            rollupTimeZone = timeZone;
+        }
+        return rollups;
+    }
+
+    /**
+     * Retrieves the historic temperature and humidity data for the given time span. The returned data is cached, per
+     * time span, according to configuration.
+     * @param timeSpan Time span to retrieve data for.
+     * @return Series of data points, sorted by time.
+     * @throws HWException On any data retrieval or parse error.
+     */
+    public ThermoSeries getHistory(TimeSpan timeSpan) throws HWException {
+        return loadData(timeSpan);
+    }
+
+    /**
+     * Retrieves all day graph data retained locally, according to the 'thermo.retention.days' config property. The
+     * day graph is updated first if expired. Without retention, this is the same as the day graph.
+     * @return Series of data points, sorted by time.
+     * @throws HWException On any data retrieval or parse error.
+     */
+    public ThermoSeries getRetainedHistory() throws HWException {
+        ThermoSeries day = loadData(TimeSpan.DAY);
+        ThermoArchive retained = openArchive();
+        return (retained == null) ? day : retained.getSeries();
+    }
+
+    /**
+     * Retrieves the day graph data retained locally within a time range. The day graph is updated first if expired.
+     * @param from Start of the range, inclusive.
+     * @param to End of the range, exclusive.
+     * @return Series of data points, sorted by time.
+     * @throws HWException On any data retrieval or parse error.
+     * @see #getRetainedHistory()
+     */
+    public ThermoSeries getRetainedHistory(Date from, Date to) throws HWException {
+        ThermoSeries day = loadData(TimeSpan.DAY);
+        ThermoArchive retained = openArchive();
+        if (retained != null) {
+            return retained.getSeries(from.getTime(), to.getTime());
+        }
+
+        ThermoSeries.Builder builder = new ThermoSeries.Builder();
+        for (int i = 0; i < day.size(); i++) {
+            long time = day.getTime(i);
+            if (time >= from.getTime() && time < to.getTime()) {
+                builder.add(time, day.getTemperature(i), day.getHumidity(i));
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Retrieves the minimum, maximum and average temperature and humidity per hour, day or week within a time range.
+     * With retention enabled, the rollups are maintained locally as day graph data arrives, and cover up to
+     * 'thermo.rollup.retention.days'. Without retention, they are computed from the day graph. The day graph is
+     * updated first if expired.
+     * @param resolution Bucket size.
+     * @param from Start of the range, inclusive.
+     * @param to End of the range, exclusive.
+     * @return Buckets starting within the range, sorted by time.
+     * @throws HWException On any data retrieval or parse error.
+     */
+    public RollupSeries getRollup(RollupResolution resolution, Date from, Date to) throws HWException {
+        ThermoSeries day = loadData(TimeSpan.DAY);
+        Map<RollupResolution, ThermoRollup> current = openRollups();
+        ThermoRollup rollup;
+        if (current != null) {
+            rollup = current.get(resolution);
+        } else {
+            rollup = new ThermoRollup(resolution, getConnection().getTimestampParser().getTimeZone(), Long.MAX_VALUE);
+            rollup.add(day);
+        }
+        return rollup.getSeries(from.getTime(), to.getTime());
     }
 
     /**
@@ -86,10 +225,11 @@ public class HWThermometer extends AbstractHwEntity {
      * @param timeSpan Time span to retrieve data for.
      * @return List of timestamp/value data points.
      * @throws HWException On any data retrieval or parse error.
+     * @deprecated Use {@link #getHistory(TimeSpan)}, which does not create an object per data point.
      */
+    @Deprecated
     public List<TimeValue<Integer>> getHumidityHistory(TimeSpan timeSpan) throws HWException {
-        loadData(timeSpan);
-        return humidityCache.get(timeSpan).getData();
+        return loadData(timeSpan).humidityList();
     }
 
     /**
@@ -98,16 +238,24 @@ public class HWThermometer extends AbstractHwEntity {
      * @param timeSpan Time span to retrieve data for.
      * @return List of timestamp/value data points.
      * @throws HWException On any data retrieval or parse error.
+     * @deprecated Use {@link #getHistory(TimeSpan)}, which does not create an object per data point.
      */
+    @Deprecated
     public List<TimeValue<Double>> getTemperatureHistory(TimeSpan timeSpan) throws HWException {
-        loadData(timeSpan);
-        return temperatureCache.get(timeSpan).getData();
+        return loadData(timeSpan).temperatureList();
     }
 
-    private synchronized void loadData(TimeSpan timeSpan) throws HWException {
-        if (needsUpdate(timeSpan)) {
-            Request request = new Request("/te/graph/", getId(), "/", timeSpan.getApiString()).setReturnResponse(false);
-            JSONObject response = getConnection().request(request);
+    private synchronized ThermoSeries loadData(TimeSpan timeSpan) throws HWException {
+        if (timeSpan != TimeSpan.DAY && retention > 0) {
+            ThermoSeries rolledUp = loadRollup(timeSpan);
+            if (rolledUp != null) {
+                return rolledUp;
+            }
+        }
+
+        ThermoSeries series = history.get(timeSpan);
+        if (series == null || isExpired(timeSpan)) {
+            Request request = new Request("/te/graph/", getId(), "/", timeSpan.getApiString());
 
             // "response": [
             //   { "t": "2013-07-16 12:00", "te+": 26.9, "te-": 21.1, "hu+": 60, "hu-": 55},
@@ -119,68 +267,263 @@ public class HWThermometer extends AbstractHwEntity {
             //   { "t": "2013-08-13 00:25", "te": 15.2, "hu": 66}
             // ]
 
-            try {
-                JSONArray jsonArr = response.getJSONArray("response");
-                int numItems = jsonArr.length();
+            // Stream the data points straight into the columns
+            ThermoSeries.Builder builder = new ThermoSeries.Builder();
+            if (timeSpan == TimeSpan.DAY && openArchive() != null) {
+                // Only decode the points newer than the retained ones, and serve the day window from the archive
+                Map<RollupResolution, ThermoRollup> current = openRollups();
+                getConnection().requestStream(request, newDataHandler(builder, archive.getLastTime()));
+                ThermoSeries newPoints = builder.build();
+                archive.merge(newPoints);
+                for (ThermoRollup rollup : current.values()) {
+                    rollup.add(newPoints);
+                }
+                long last = archive.getLastTime();
+                series = (last == Long.MIN_VALUE)
+                    ? ThermoSeries.EMPTY : archive.getSeries(last - DAY_MILLIS + 1, Long.MAX_VALUE);
+            } else {
+                getConnection().requestStream(request, newDataHandler(builder));
+                series = builder.build();
+            }
+            history.put(timeSpan, series);
+            historyUpdated.put(timeSpan, System.currentTimeMillis());
+        }
+        return series;
+    }
 
-                List<TimeValue<Integer>> huList = new ArrayList<>(numItems);
-                List<TimeValue<Double>> teList = new ArrayList<>(numItems);
+    /**
+     * Serves a longer time span from the local rollups, if they cover the whole time span. The week is served with
+     * hourly buckets, the month with daily buckets and the year with weekly buckets.
+     * @param timeSpan Time span other than a day.
+     * @return Min/max series, or null if not covered.
+     * @throws HWException On any data retrieval or parse error while updating the day graph.
+     */
+    private ThermoSeries loadRollup(TimeSpan timeSpan) throws HWException {
+        RollupResolution resolution;
+        switch (timeSpan) {
+            case WEEK:
+                resolution = RollupResolution.HOUR;
+                break;
+            case MONTH:
+                resolution = RollupResolution.DAY;
+                break;
+            default:
+                resolution = RollupResolution.WEEK;
+                break;
+        }
 
-                for (int i=0; i < numItems; i++) {
-                    JSONObject item = jsonArr.getJSONObject(i);
+        loadData(TimeSpan.DAY);
+        long last = openArchive().getLastTime();
+        ThermoRollup rollup = openRollups().get(resolution);
+        if (last == Long.MIN_VALUE || rollup.getCoveredFrom() > last - timeSpan.getDuration()) {
+            return null;
+        }
+        return rollup.getSeries(last - timeSpan.getDuration(), Long.MAX_VALUE).toThermoSeries();
+    }
 
-                    //Parse timestamp
-                    Date date;
-                    String timestamp = item.getString("t");
-                    try {
-                        date = dateFormat.parse(timestamp);
-                    } catch (ParseException e) {
-                        throw new HWException("Could not parse timestamp: " + timestamp, e);
-                    }
+    private boolean isExpired(TimeSpan timeSpan) {
+        long expire;
+        if (timeSpan == TimeSpan.DAY) {
+            expire = HWConfig.THERMO_GRAPH_UPDATE_INTERVAL_DAY.getValue();
+        } else {
+            expire = HWConfig.THERMO_GRAPH_UPDATE_INTERVAL_OTHER.getValue();
+        }
 
-                    Double te, teMax = null;
-                    Integer hu, huMax = null;
-
-                    //Single or min/max value?
-                    if (item.has("te")) {
-                        te = item.getDouble("te");
-                        hu = item.getInt("hu");
-                    } else {
-                        te = item.getDouble("te-");
-                        hu = item.getInt("hu-");
-                        teMax = item.getDouble("te+");
-                        huMax = item.getInt("hu+");
-                    }
+        Long lastUpdate = historyUpdated.get(timeSpan);
+        return (lastUpdate == null || (System.currentTimeMillis() - lastUpdate > expire));
+    }
 
-                    teList.add(new TimeValue<>(date, te, teMax));
-                    huList.add(new TimeValue<>(date, hu, huMax));
+    /**
+     * Creates a handler adding each graph data point to the given builder.
+     * @param builder Builder to add the data points to.
+     * @return Response item handler for {@code /te/graph} responses.
+     */
+    ResponseItemHandler newDataHandler(ThermoSeries.Builder builder) {
+        return newDataHandler(builder, Long.MIN_VALUE);
+    }
+
+    /**
+     * Creates a handler adding each graph data point newer than the given time to the given builder. Values of
+     * older points are not decoded.
+     * @param builder Builder to add the data points to.
+     * @param after Epoch milliseconds of the newest point to skip.
+     * @return Response item handler for {@code /te/graph} responses.
+     */
+    ResponseItemHandler newDataHandler(final ThermoSeries.Builder builder, final long after) {
+        final TimestampParser parser = getConnection().getTimestampParser();
+        return new ResponseItemHandler() {
+            @Override
+            public void handle(JSONObject item) throws JSONException, HWException {
+                //Parse timestamp: 2013-08-13 21:25
+                long time;
+                String timestamp = item.getString("t");
+                try {
+                    time = parser.parse(timestamp);
+                } catch (ParseException e) {
+                    throw new HWException("Could not parse timestamp: " + timestamp, e);
+                }
+                if (time <= after) {
+                    return;
                 }
 
-                humidityCache.get(timeSpan).setData(huList);
-                temperatureCache.get(timeSpan).setData(teList);
-            } catch (JSONException e) {
-                throw new HWException("Could not read graph data from JSON:\n" + response, e);
+                //Single or min/max value?
+                if (item.has("te")) {
+                    builder.add(time, item.getDouble("te"), item.getInt("hu"));
+                } else {
+                    builder.add(
+                        time, item.getDouble("te-"), item.getDouble("te+"), item.getInt("hu-"), item.getInt("hu+")
+                    );
+                }
             }
+        };
+    }
+
+    /**
+     * Writes the cached graph data as columns per time span, for {@link #readHistory(JSONObject)}.
+     * Retained data is written under "retained", unless kept in the local store, and rollups under "rollups", with
+     * the time of the newest retained point they include.
+     * @return The graph data, or null if none is cached.
+     * @throws JSONException On any JSON error.
+     */
+    synchronized JSONObject writeHistory() throws JSONException {
+        boolean retained = archive != null && archive.getLastTime() != Long.MIN_VALUE;
+        if (history.isEmpty() && !retained) {
+            return null;
+        }
+
+        JSONObject json = new JSONObject();
+        for (Map.Entry<TimeSpan, ThermoSeries> entry : history.entrySet()) {
+            JSONObject span = writeSeries(entry.getValue()).put("updated", historyUpdated.get(entry.getKey()));
+            json.put(entry.getKey().getApiString(), span);
         }
+        if (retained) {
+            if (!archive.isStored()) {
+                json.put("retained", writeSeries(archive.getSeries()));
+            }
+
+            if (rollups != null) {
+                JSONObject rollupJson = new JSONObject().put("last", archive.getLastTime());
+                for (Map.Entry<RollupResolution, ThermoRollup> entry : rollups.entrySet()) {
+                    rollupJson.put(entry.getKey().name(), entry.getValue().writeBuckets());
+                }
+                json.put("rollups", rollupJson);
+            }
+        }
+        return json;
     }
 
-    private boolean needsUpdate(TimeSpan timeSpan) {
-        TimeValueCache<Integer> cache = humidityCache.get(timeSpan);
-        if (cache == null) {
-            humidityCache.put(timeSpan, new TimeValueCache<Integer>());
-            temperatureCache.put(timeSpan, new TimeValueCache<Double>());
-            return true;
+    private static JSONObject writeSeries(ThermoSeries series) throws JSONException {
+        JSONArray times = new JSONArray();
+        JSONArray te = new JSONArray();
+        JSONArray teMax = new JSONArray();
+        JSONArray hu = new JSONArray();
+        JSONArray huMax = new JSONArray();
+        for (int i = 0; i < series.size(); i++) {
+            times.put(series.getTime(i));
+            te.put(series.getTemperature(i));
+            teMax.put(series.getMaxTemperature(i));
+            hu.put(series.getHumidity(i));
+            huMax.put(series.getMaxHumidity(i));
         }
 
-        long expire;
-        if (timeSpan == TimeSpan.DAY) {
-            expire = HWConfig.THERMO_GRAPH_UPDATE_INTERVAL_DAY.getValue();
-        } else {
-            expire = HWConfig.THERMO_GRAPH_UPDATE_INTERVAL_OTHER.getValue();
+        JSONObject json = new JSONObject().put("t", times).put("te", te).put("hu", hu);
+        if (series.isMinMax()) {
+            json.put("te+", teMax).put("hu+", huMax);
+        }
+        return json;
+    }
+
+    /**
+     * Restores graph data written by {@link #writeHistory()}. The data expires as if it was loaded at the time it
+     * was originally retrieved.
+     * @param json The graph data.
+     * @throws JSONException On any JSON error.
+     * @throws HWException If the local store can not be opened.
+     */
+    synchronized void readHistory(JSONObject json) throws JSONException, HWException {
+        for (TimeSpan timeSpan : TimeSpan.values()) {
+            if (!json.has(timeSpan.getApiString())) {
+                continue;
+            }
+
+            JSONObject span = json.getJSONObject(timeSpan.getApiString());
+            history.put(timeSpan, readSeries(span));
+            historyUpdated.put(timeSpan, span.getLong("updated"));
         }
 
-        Long cacheLastUp = cache.getLastUpdate();
-        return (cacheLastUp == null || (System.currentTimeMillis() - cacheLastUp > expire));
+        // Retained data is dropped if retention has been disabled since; the store holds its own data
+        Map<RollupResolution, ThermoRollup> current = openRollups();
+        if (current != null) {
+            ThermoArchive retained = openArchive();
+            long before = retained.getLastTime();
+            if (!retained.isStored() && json.has("retained")) {
+                retained.merge(readSeries(json.getJSONObject("retained")));
+            }
+            ThermoSeries accepted = (retained.getLastTime() == before)
+                ? ThermoSeries.EMPTY : retained.getSeries(before + 1, Long.MAX_VALUE);
+
+            // Rollups from the snapshot replace the current ones, and are completed with any newer retained data, such
+            // as data stored after the snapshot was written. Other rollups only add the newly retained data.
+            JSONObject rollupJson = json.optJSONObject("rollups");
+            long last = (rollupJson == null) ? Long.MAX_VALUE : rollupJson.optLong("last", Long.MAX_VALUE);
+            for (Map.Entry<RollupResolution, ThermoRollup> entry : current.entrySet()) {
+                String key = entry.getKey().name();
+                ThermoRollup rollup = entry.getValue();
+                if (rollupJson != null && rollupJson.has(key) && rollup.readBuckets(rollupJson.getJSONObject(key))) {
+                    if (last < Long.MAX_VALUE) {
+                        rollup.add(retained.getSeries(last + 1, Long.MAX_VALUE));
+                    }
+                } else {
+                    rollup.add(accepted);
+                }
+            }
+        }
+    }
+
+    private static ThermoSeries readSeries(JSONObject json) throws JSONException {
+        JSONArray times = json.getJSONArray("t");
+        JSONArray te = json.getJSONArray("te");
+        JSONArray hu = json.getJSONArray("hu");
+        JSONArray teMax = json.optJSONArray("te+");
+        JSONArray huMax = json.optJSONArray("hu+");
+
+        ThermoSeries.Builder builder = new ThermoSeries.Builder();
+        for (int i = 0; i < times.length(); i++) {
+            if (teMax == null) {
+                builder.add(times.getLong(i), te.getDouble(i), hu.getInt(i));
+            } else {
+                builder.add(times.getLong(i), te.getDouble(i), teMax.getDouble(i), hu.getInt(i), huMax.getInt(i));
+            }
+        }
+        return builder.build();
+    }
+
+    @Override
+    protected boolean updateFrom(AbstractHwEntity loaded) {
+        boolean changed = super.updateFrom(loaded);
+        HWThermometer thermo = (HWThermometer) loaded;
+        changed |= channel != thermo.channel
+            || !Objects.equals(humidity, thermo.humidity) || !Objects.equals(temperature, thermo.temperature)
+            || !Objects.equals(minTemp, thermo.minTemp) || !Objects.equals(minTempTime, thermo.minTempTime)
+            || !Objects.equals(maxTemp, thermo.maxTemp) || !Objects.equals(maxTempTime, thermo.maxTempTime)
+            || !Objects.equals(minHumidity, thermo.minHumidity)
+            || !Objects.equals(minHumidityTime, thermo.minHumidityTime)
+            || !Objects.equals(maxHumidity, thermo.maxHumidity)
+            || !Objects.equals(maxHumidityTime, thermo.maxHumidityTime);
+
+        // Graph caches are kept, they expire on their own
+        channel = thermo.channel;
+        humidity = thermo.humidity;
+        temperature = thermo.temperature;
+        minTemp = thermo.minTemp;
+        minTempTime = thermo.minTempTime;
+        maxTemp = thermo.maxTemp;
+        maxTempTime = thermo.maxTempTime;
+        minHumidity = thermo.minHumidity;
+        minHumidityTime = thermo.minHumidityTime;
+        maxHumidity = thermo.maxHumidity;
+        maxHumidityTime = thermo.maxHumidityTime;
+        return changed;
     }
 
     @Override
@@ -191,4 +534,57 @@ public class HWThermometer extends AbstractHwEntity {
         getConnection().request("/te/edit/", getId(), "/", UrlUtil.encode(getName()), "/", getChannel(), "/", fav);
     }
 
+    /**
+     * Asynchronous variant of {@link #getHistory(TimeSpan)}.
+     * @param timeSpan Time span to retrieve data for.
+     * @param callback Callback to notify on completion, or null.
+     * @return Future for the series of data points.
+     */
+    public Future<ThermoSeries> getHistoryAsync(final TimeSpan timeSpan, ResponseCallback<ThermoSeries> callback) {
+        return getConnection().submit(new Callable<ThermoSeries>() {
+            @Override
+            public ThermoSeries call() throws HWException {
+                return getHistory(timeSpan);
+            }
+        }, callback);
+    }
+
+    /**
+     * Asynchronous variant of {@link #getHumidityHistory(TimeSpan)}.
+     * @param timeSpan Time span to retrieve data for.
+     * @param callback Callback to notify on completion, or null.
+     * @return Future for the list of timestamp/value data points.
+     * @deprecated Use {@link #getHistoryAsync(TimeSpan, ResponseCallback)}.
+     */
+    @Deprecated
+    public Future<List<TimeValue<Integer>>> getHumidityHistoryAsync(
+        final TimeSpan timeSpan, ResponseCallback<List<TimeValue<Integer>>> callback
+    ) {
+        return getConnection().submit(new Callable<List<TimeValue<Integer>>>() {
+            @Override
+            public List<TimeValue<Integer>> call() throws HWException {
+                return getHumidityHistory(timeSpan);
+            }
+        }, callback);
+    }
+
+    /**
+     * Asynchronous variant of {@link #getTemperatureHistory(TimeSpan)}.
+     * @param timeSpan Time span to retrieve data for.
+     * @param callback Callback to notify on completion, or null.
+     * @return Future for the list of timestamp/value data points.
+     * @deprecated Use {@link #getHistoryAsync(TimeSpan, ResponseCallback)}.
+     */
+    @Deprecated
+    public Future<List<TimeValue<Double>>> getTemperatureHistoryAsync(
+        final TimeSpan timeSpan, ResponseCallback<List<TimeValue<Double>>> callback
+    ) {
+        return getConnection().submit(new Callable<List<TimeValue<Double>>>() {
+            @Override
+            public List<TimeValue<Double>> call() throws HWException {
+                return getTemperatureHistory(timeSpan);
+            }
+        }, callback);
+    }
+
 }
@@ -0,0 +1,37 @@
+package nl.rgonline.homewizardlib.thermo;
+
+import lombok.Getter;
+
+/**
+ * Bucket sizes of the thermometer rollups maintained from retained graph data. Buckets are aligned to the local time
+ * of the HomeWizard; weeks start on Monday.
+ * @author pdegeus
+ */
+public enum RollupResolution {
+
+    /** Hourly buckets */
+    HOUR (60L * 60 * 1000, 0),
+    /** Daily buckets */
+    DAY (24L * 60 * 60 * 1000, 0),
+    /** Weekly buckets, starting on Monday */
+    WEEK (7L * 24 * 60 * 60 * 1000, 4L * 24 * 60 * 60 * 1000);
+
+    /** Bucket width in milliseconds */
+    @Getter
+    private final long width;
+
+    /** Offset of the first bucket from 1970-01-01 00:00 local time, in milliseconds */
+    @Getter
+    private final long origin;
+
+    /**
+     * Constructor.
+     * @param width Bucket width in milliseconds.
+     * @param origin Offset of the first bucket from 1970-01-01 00:00 local time, which was a Thursday.
+     */
+    RollupResolution(long width, long origin) {
+        this.width = width;
+        this.origin = origin;
+    }
+
+}
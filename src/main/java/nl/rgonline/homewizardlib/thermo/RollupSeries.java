@@ -0,0 +1,147 @@
+package nl.rgonline.homewizardlib.thermo;
+
+/**
+ * Thermometer data aggregated into time buckets, with the minimum, maximum and average temperature and humidity of
+ * each bucket. Like {@link ThermoSeries}, data is stored in primitive columns and accessed by index.
+ * <p/>
+ * Instances are immutable, and created by a {@link ThermoRollup}.
+ * @author pdegeus
+ */
+public final class RollupSeries {
+
+    private final int size;
+    private final long[] times;
+    private final int[] counts;
+    private final double[] minTemperatures;
+    private final double[] maxTemperatures;
+    private final double[] averageTemperatures;
+    private final int[] minHumidities;
+    private final int[] maxHumidities;
+    private final double[] averageHumidities;
+
+    /**
+     * Constructor. The arrays are owned by the new instance.
+     */
+    RollupSeries(int size, long[] times, int[] counts, double[] minTemperatures, double[] maxTemperatures,
+        double[] averageTemperatures, int[] minHumidities, int[] maxHumidities, double[] averageHumidities) {
+        this.size = size;
+        this.times = times;
+        this.counts = counts;
+        this.minTemperatures = minTemperatures;
+        this.maxTemperatures = maxTemperatures;
+        this.averageTemperatures = averageTemperatures;
+        this.minHumidities = minHumidities;
+        this.maxHumidities = maxHumidities;
+        this.averageHumidities = averageHumidities;
+    }
+
+    /**
+     * @return Number of buckets.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return True if this series has no buckets.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param index Bucket index.
+     * @return Start of the bucket, in epoch milliseconds.
+     */
+    public long getTime(int index) {
+        checkIndex(index);
+        return times[index];
+    }
+
+    /**
+     * @param index Bucket index.
+     * @return Number of data points aggregated into the bucket.
+     */
+    public int getCount(int index) {
+        checkIndex(index);
+        return counts[index];
+    }
+
+    /**
+     * @param index Bucket index.
+     * @return Minimum temperature.
+     */
+    public double getMinTemperature(int index) {
+        checkIndex(index);
+        return minTemperatures[index];
+    }
+
+    /**
+     * @param index Bucket index.
+     * @return Maximum temperature.
+     */
+    public double getMaxTemperature(int index) {
+        checkIndex(index);
+        return maxTemperatures[index];
+    }
+
+    /**
+     * @param index Bucket index.
+     * @return Average temperature.
+     */
+    public double getAverageTemperature(int index) {
+        checkIndex(index);
+        return averageTemperatures[index];
+    }
+
+    /**
+     * @param index Bucket index.
+     * @return Minimum humidity.
+     */
+    public int getMinHumidity(int index) {
+        checkIndex(index);
+        return minHumidities[index];
+    }
+
+    /**
+     * @param index Bucket index.
+     * @return Maximum humidity.
+     */
+    public int getMaxHumidity(int index) {
+        checkIndex(index);
+        return maxHumidities[index];
+    }
+
+    /**
+     * @param index Bucket index.
+     * @return Average humidity.
+     */
+    public double getAverageHumidity(int index) {
+        checkIndex(index);
+        return averageHumidities[index];
+    }
+
+    /**
+     * Converts the buckets to a min/max series, as returned by the HomeWizard for longer time spans.
+     * @return Min/max series.
+     */
+    public ThermoSeries toThermoSeries() {
+        ThermoSeries.Builder builder = new ThermoSeries.Builder();
+        for (int i = 0; i < size; i++) {
+            builder.add(times[i], minTemperatures[i], maxTemperatures[i], minHumidities[i], maxHumidities[i]);
+        }
+        return builder.build();
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "RollupSeries[size=" + size + "]";
+    }
+
+}
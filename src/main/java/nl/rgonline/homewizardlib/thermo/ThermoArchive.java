@@ -0,0 +1,263 @@
+package nl.rgonline.homewizardlib.thermo;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import nl.rgonline.homewizardlib.exceptions.HWException;
+import nl.rgonline.homewizardlib.store.RecordReader;
+import nl.rgonline.homewizardlib.store.RecordWriter;
+import nl.rgonline.homewizardlib.store.SegmentStore;
+
+/**
+ * Growing series of fine-grained thermometer data, retained beyond the day window of the HomeWizard. New day graphs
+ * are merged by appending only the points newer than the last retained point, and points older than the retention
+ * period, relative to the newest point, are dropped.
+ * <p/>
+ * The data is kept on-heap, or in a {@link SegmentStore}. With a store, the data survives restarts without a
+ * snapshot, expired data is removed a segment at a time, and reading a time range only touches the pages holding
+ * that range.
+ * <p/>
+ * Thread-safe. Retained data is returned as immutable {@link ThermoSeries} copies.
+ * @author pdegeus
+ */
+public final class ThermoArchive {
+
+    /** Size of a stored data point after its timestamp: the temperature and the humidity */
+    static final int PAYLOAD_SIZE = 12;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final long retention;
+    private final SegmentStore store;
+    private final PointWriter writer = new PointWriter();
+
+    // Retained points are stored in [start, end) of the columns
+    private long[] times = new long[0];
+    private double[] temperatures = new double[0];
+    private int[] humidities = new int[0];
+    private int start = 0;
+    private int end = 0;
+
+    /**
+     * Constructor for an on-heap archive.
+     * @param retention Retention period in milliseconds.
+     * @throws IllegalArgumentException If the retention period is not positive.
+     */
+    public ThermoArchive(long retention) {
+        this(retention, null);
+    }
+
+    /**
+     * Constructor.
+     * @param retention Retention period in milliseconds.
+     * @param store Store holding the data, with a payload size of 12 bytes, or null to keep the data on-heap.
+     * @throws IllegalArgumentException If the retention period is not positive.
+     */
+    public ThermoArchive(long retention, SegmentStore store) {
+        if (retention <= 0) {
+            throw new IllegalArgumentException("Invalid retention: " + retention);
+        }
+        this.retention = retention;
+        this.store = store;
+    }
+
+    /**
+     * @return True if the data is kept in a store rather than on-heap.
+     */
+    public boolean isStored() {
+        return store != null;
+    }
+
+    /**
+     * @return Retention period in milliseconds.
+     */
+    public long getRetention() {
+        return retention;
+    }
+
+    /**
+     * @return Number of retained data points.
+     */
+    public synchronized int size() {
+        return (store == null) ? end - start : store.count(threshold(), Long.MAX_VALUE);
+    }
+
+    /**
+     * @return Timestamp of the newest retained data point, or {@link Long#MIN_VALUE} if empty.
+     */
+    public synchronized long getLastTime() {
+        if (store != null) {
+            return store.getLastTime();
+        }
+        return (end == start) ? Long.MIN_VALUE : times[end - 1];
+    }
+
+    /**
+     * Merges a series of single values, such as a day graph, by appending the points newer than the newest retained
+     * point. Expired points are dropped afterwards.
+     * @param series Series to merge, sorted by time.
+     * @return Number of appended data points.
+     * @throws IllegalArgumentException If the series holds min/max values.
+     * @throws HWException If the data can not be written to the store.
+     */
+    public synchronized int merge(ThermoSeries series) throws HWException {
+        if (series.isMinMax()) {
+            throw new IllegalArgumentException("Only single value series can be retained");
+        }
+        if (store != null) {
+            return mergeIntoStore(series);
+        }
+
+        int appended = 0;
+        for (int i = 0; i < series.size(); i++) {
+            long time = series.getTime(i);
+            if (end == start || time > times[end - 1]) {
+                append(time, series.getTemperature(i), series.getHumidity(i));
+                appended++;
+            }
+        }
+
+        if (appended > 0) {
+            expire();
+        }
+        return appended;
+    }
+
+    private int mergeIntoStore(ThermoSeries series) throws HWException {
+        int appended = 0;
+        try {
+            for (int i = 0; i < series.size(); i++) {
+                writer.temperature = series.getTemperature(i);
+                writer.humidity = series.getHumidity(i);
+                if (store.append(series.getTime(i), writer)) {
+                    appended++;
+                }
+            }
+        } catch (IOException e) {
+            throw new HWException("Could not store thermometer data", e);
+        }
+
+        if (appended > 0) {
+            store.expire(threshold());
+        }
+        return appended;
+    }
+
+    /**
+     * @return Timestamp of the oldest data point within the retention period.
+     */
+    private long threshold() {
+        long last = getLastTime();
+        return (last == Long.MIN_VALUE) ? Long.MIN_VALUE : last - retention;
+    }
+
+    /**
+     * @return All retained data points.
+     */
+    public ThermoSeries getSeries() {
+        return getSeries(Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Returns the retained data points within a time range.
+     * @param from Start of the range in epoch milliseconds, inclusive.
+     * @param to End of the range in epoch milliseconds, exclusive.
+     * @return Retained data points within the range.
+     */
+    public synchronized ThermoSeries getSeries(long from, long to) {
+        if (store != null) {
+            final ThermoSeries.Builder builder = new ThermoSeries.Builder();
+            store.read(Math.max(from, threshold()), to, new RecordReader() {
+                @Override
+                public void read(long time, ByteBuffer buffer, int offset) {
+                    builder.add(time, buffer.getDouble(offset), buffer.getInt(offset + 8));
+                }
+            });
+            return builder.build();
+        }
+
+        int first = indexOf(from);
+        int last = indexOf(to);
+
+        ThermoSeries.Builder builder = new ThermoSeries.Builder();
+        for (int i = first; i < last; i++) {
+            builder.add(times[i], temperatures[i], humidities[i]);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Finds the index of the first retained point at or after the given time.
+     */
+    private int indexOf(long time) {
+        int index = Arrays.binarySearch(times, start, end, time);
+        return (index < 0) ? -index - 1 : index;
+    }
+
+    private void append(long time, double temperature, int humidity) {
+        if (end == times.length) {
+            int size = end - start;
+            int capacity = Math.max(INITIAL_CAPACITY, (size < times.length / 2) ? times.length : size * 2);
+
+            // Compact expired points away while growing
+            times = copy(times, capacity);
+            temperatures = copy(temperatures, capacity);
+            humidities = copy(humidities, capacity);
+            start = 0;
+            end = size;
+        }
+
+        times[end] = time;
+        temperatures[end] = temperature;
+        humidities[end] = humidity;
+        end++;
+    }
+
+    private long[] copy(long[] column, int capacity) {
+        long[] result = new long[capacity];
+        System.arraycopy(column, start, result, 0, end - start);
+        return result;
+    }
+
+    private double[] copy(double[] column, int capacity) {
+        double[] result = new double[capacity];
+        System.arraycopy(column, start, result, 0, end - start);
+        return result;
+    }
+
+    private int[] copy(int[] column, int capacity) {
+        int[] result = new int[capacity];
+        System.arraycopy(column, start, result, 0, end - start);
+        return result;
+    }
+
+    private void expire() {
+        long threshold = times[end - 1] - retention;
+        while (start < end && times[start] < threshold) {
+            start++;
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "ThermoArchive[size=" + size() + ", retention=" + retention + ", stored=" + isStored() + "]";
+    }
+
+    /**
+     * Writer of the stored data points, reused for each point.
+     */
+    private static final class PointWriter implements RecordWriter {
+
+        private double temperature;
+        private int humidity;
+
+        @Override
+        public void write(ByteBuffer buffer, int offset) {
+            buffer.putDouble(offset, temperature);
+            buffer.putInt(offset + 8, humidity);
+        }
+
+    }
+
+}
@@ -5,6 +5,7 @@ import java.util.Map;
 
 import lombok.extern.slf4j.Slf4j;
 import nl.rgonline.homewizardlib.AbstractManager;
+import nl.rgonline.homewizardlib.HWChangeType;
 import nl.rgonline.homewizardlib.config.HWConfig;
 import nl.rgonline.homewizardlib.connection.HWConnection;
 import nl.rgonline.homewizardlib.connection.Request;
@@ -25,7 +26,6 @@ public class ThermoManager extends AbstractManager<HWThermometer> {
 
     private final HWConnection connection;
 
-    private Map<Integer, HWThermometer> thermos;
     private volatile boolean initialized = false;
 
     /**
@@ -33,47 +33,59 @@ public class ThermoManager extends AbstractManager<HWThermometer> {
      * @param connection Connection to use.
      */
     public ThermoManager(HWConnection connection) {
-        super(HWConfig.THERMO_UPDATE_INTERVAL.getValue());
+        super(
+            HWConfig.THERMO_UPDATE_INTERVAL.getValue(), HWConfig.THERMO_UPDATE_INTERVAL_MIN.getValue(),
+            HWConfig.THERMO_UPDATE_INTERVAL_MAX.getValue()
+        );
         this.connection = connection;
     }
 
     @Override
     public void init(boolean forceReload) throws HWException {
         if (!initialized || forceReload) {
-            JSONObject response = connection.request(new Request("/telist").setReturnResponse(false));
+            loadThermos(connection.request(new Request("/telist").setReturnResponse(false)));
 
-            // "response": [
-            //   { "id": 0, "hu": null, "name": "Binnen", "te": null, "favorite": "no", "channel": 2 },
-            //   { "id": 1, "hu": 72,   "name": "Buiten", "te": 15.5, "favorite": "no", "channel": 1,
-            //     "te+t": "12:53", "te+": 21.4, "te-": 13, "te-t": "06:39",
-            //     "hu+t": "07:24", "hu+": 78,   "hu-": 60, "hu-t": "13:11"
-            //   }
-            // ]
+            initialized = true;
+        }
+    }
+
+    /**
+     * Reconciles the loaded thermometers with the ones in the given {@code /telist} response.
+     * @param response The complete {@code /telist} response.
+     * @throws HWException On any JSON error.
+     */
+    void loadThermos(JSONObject response) throws HWException {
+        // "response": [
+        //   { "id": 0, "hu": null, "name": "Binnen", "te": null, "favorite": "no", "channel": 2 },
+        //   { "id": 1, "hu": 72,   "name": "Buiten", "te": 15.5, "favorite": "no", "channel": 1,
+        //     "te+t": "12:53", "te+": 21.4, "te-": 13, "te-t": "06:39",
+        //     "hu+t": "07:24", "hu+": 78,   "hu-": 60, "hu-t": "13:11"
+        //   }
+        // ]
 
-            try {
-                JSONArray jsonThermos = response.getJSONArray("response");
-                int numThermos = jsonThermos.length();
+        try {
+            JSONArray jsonThermos = response.getJSONArray("response");
+            int numThermos = jsonThermos.length();
 
-                thermos = new HashMap<>();
+            Map<Integer, HWThermometer> newThermos = new HashMap<>();
 
-                for (int i = 0; i < numThermos; i++) {
-                    JSONObject thermoJson = jsonThermos.getJSONObject(i);
+            for (int i = 0; i < numThermos; i++) {
+                JSONObject thermoJson = jsonThermos.getJSONObject(i);
 
-                    int id = thermoJson.getInt("id");
-                    String name = thermoJson.getString("name");
-                    boolean isFavorite = BooleanUtils.toBoolean(thermoJson.getString("favorite"));
-                    int channel = thermoJson.getInt("channel");
+                int id = thermoJson.getInt("id");
+                String name = thermoJson.getString("name");
+                boolean isFavorite = BooleanUtils.toBoolean(thermoJson.getString("favorite"));
+                int channel = thermoJson.getInt("channel");
 
-                    HWThermometer thermo = new HWThermometer(connection, id, name, isFavorite, channel);
-                    setData(thermo, thermoJson);
+                HWThermometer thermo = new HWThermometer(connection, id, name, isFavorite, channel);
+                setData(thermo, thermoJson);
 
-                    thermos.put(id, thermo);
-                }
-            } catch (JSONException e) {
-                throw new HWException("Error initializing thermometers", e);
+                newThermos.put(id, thermo);
             }
 
-            initialized = true;
+            publish(newThermos);
+        } catch (JSONException e) {
+            throw new HWException("Error initializing thermometers", e);
         }
     }
 
@@ -90,6 +102,7 @@ public class ThermoManager extends AbstractManager<HWThermometer> {
         //   }
         // ]
 
+        Map<Integer, HWThermometer> thermos = getEntityMap();
         try {
             JSONArray jsonThermos = response.getJSONArray("response");
 
@@ -103,16 +116,66 @@ public class ThermoManager extends AbstractManager<HWThermometer> {
                 if (curThermo == null) {
                     log.warn("Unknown thermometer ID: " + id);
                 } else {
+                    Double oldTemperature = curThermo.getTemperature();
+                    Integer oldHumidity = curThermo.getHumidity();
                     setData(curThermo, thermoJson);
                     curThermo.updated();
+
+                    fireIfChanged(curThermo, HWChangeType.TEMPERATURE, oldTemperature, curThermo.getTemperature());
+                    fireIfChanged(curThermo, HWChangeType.HUMIDITY, oldHumidity, curThermo.getHumidity());
                 }
             }
+            publishStatus();
         } catch (JSONException e) {
             throw new HWException("Error reloading thermometer data", e);
         }
     }
 
-    private void setData(HWThermometer thermo, JSONObject thermoJson) {
+    @Override
+    protected JSONObject writeState() throws JSONException {
+        JSONArray thermos = new JSONArray();
+        for (HWThermometer thermo : getEntityMap().values()) {
+            thermos.put(new JSONObject()
+                .put("id", thermo.getId())
+                .put("name", thermo.getName())
+                .put("favorite", BooleanUtils.toStringYesNo(thermo.isFavorite()))
+                .put("channel", thermo.getChannel())
+                .put("hu", thermo.getHumidity())
+                .put("hu-", thermo.getMinHumidity())
+                .put("hu+", thermo.getMaxHumidity())
+                .put("hu-t", thermo.getMinHumidityTime())
+                .put("hu+t", thermo.getMaxHumidityTime())
+                .put("te", thermo.getTemperature())
+                .put("te-", thermo.getMinTemp())
+                .put("te+", thermo.getMaxTemp())
+                .put("te-t", thermo.getMinTempTime())
+                .put("te+t", thermo.getMaxTempTime())
+                .put("history", thermo.writeHistory())
+            );
+        }
+        return new JSONObject().put("response", thermos);
+    }
+
+    @Override
+    protected void readState(JSONObject state) throws HWException {
+        loadThermos(state);
+
+        try {
+            Map<Integer, HWThermometer> thermos = getEntityMap();
+            JSONArray jsonThermos = state.getJSONArray("response");
+            for (int i = 0; i < jsonThermos.length(); i++) {
+                JSONObject thermoJson = jsonThermos.getJSONObject(i);
+                if (thermoJson.has("history")) {
+                    thermos.get(thermoJson.getInt("id")).readHistory(thermoJson.getJSONObject("history"));
+                }
+            }
+        } catch (JSONException e) {
+            throw new HWException("Error restoring thermometer history", e);
+        }
+        initialized = true;
+    }
+
+    void setData(HWThermometer thermo, JSONObject thermoJson) {
         thermo.setHumidity(JsonUtil.readInteger(thermoJson, "hu"));
         thermo.setMinHumidity(JsonUtil.readInteger(thermoJson, "hu-"));
         thermo.setMaxHumidity(JsonUtil.readInteger(thermoJson, "hu+"));
@@ -128,7 +191,12 @@ public class ThermoManager extends AbstractManager<HWThermometer> {
 
     @Override
     public Map<Integer, HWThermometer> getEntityMap() {
-        return thermos;
+        return super.getEntityMap();
+    }
+
+    @Override
+    protected HWConnection getConnection() {
+        return connection;
     }
 
 }
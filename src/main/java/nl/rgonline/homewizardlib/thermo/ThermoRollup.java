@@ -0,0 +1,318 @@
+package nl.rgonline.homewizardlib.thermo;
+
+import java.util.Arrays;
+import java.util.TimeZone;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Incrementally maintained aggregation of thermometer data into time buckets of a fixed width, keeping the minimum,
+ * maximum and sum of the temperature and humidity of each bucket. Adding a data point updates a single bucket, so
+ * rollups can be kept up to date as data arrives and outlive the data points they were computed from.
+ * <p/>
+ * Buckets are aligned to the local time of the given time zone, so daily buckets start at midnight. Buckets older
+ * than the retention period, relative to the newest bucket, are dropped. Thread-safe.
+ * @author pdegeus
+ */
+public final class ThermoRollup {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final long width;
+    private final long origin;
+    private final long retention;
+    private final TimeZone timeZone;
+
+    private int size = 0;
+    private long[] keys = new long[0];
+    private long[] times = new long[0];
+    private int[] counts = new int[0];
+    private double[] minTemperatures = new double[0];
+    private double[] maxTemperatures = new double[0];
+    private double[] sumTemperatures = new double[0];
+    private int[] minHumidities = new int[0];
+    private int[] maxHumidities = new int[0];
+    private long[] sumHumidities = new long[0];
+
+    private long coveredFrom = Long.MAX_VALUE;
+
+    /**
+     * Constructor using one of the standard resolutions.
+     * @param resolution Bucket size.
+     * @param timeZone Time zone the buckets are aligned to.
+     * @param retention Retention period in milliseconds.
+     */
+    public ThermoRollup(RollupResolution resolution, TimeZone timeZone, long retention) {
+        this(resolution.getWidth(), resolution.getOrigin(), timeZone, retention);
+    }
+
+    /**
+     * Constructor.
+     * @param width Bucket width in milliseconds.
+     * @param origin Offset of the first bucket from 1970-01-01 00:00 local time, in milliseconds.
+     * @param timeZone Time zone the buckets are aligned to. The time zone is copied.
+     * @param retention Retention period in milliseconds.
+     * @throws IllegalArgumentException If the width or retention period is not positive.
+     */
+    public ThermoRollup(long width, long origin, TimeZone timeZone, long retention) {
+        if (width <= 0 || retention <= 0) {
+            throw new IllegalArgumentException("Invalid width or retention: " + width + ", " + retention);
+        }
+        this.width = width;
+        this.origin = origin;
+        this.retention = retention;
+        this.timeZone = (TimeZone) timeZone.clone();
+    }
+
+    /**
+     * @return Bucket width in milliseconds.
+     */
+    public long getWidth() {
+        return width;
+    }
+
+    /**
+     * @return Number of buckets.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @return Epoch milliseconds from which on all data points were aggregated, or {@link Long#MAX_VALUE} if empty.
+     */
+    public synchronized long getCoveredFrom() {
+        return coveredFrom;
+    }
+
+    /**
+     * Aggregates all data points of a series of single values.
+     * @param series Series to add.
+     * @throws IllegalArgumentException If the series holds min/max values.
+     */
+    public synchronized void add(ThermoSeries series) {
+        if (series.isMinMax()) {
+            throw new IllegalArgumentException("Only single value series can be rolled up");
+        }
+        for (int i = 0; i < series.size(); i++) {
+            add(series.getTime(i), series.getTemperature(i), series.getHumidity(i));
+        }
+    }
+
+    /**
+     * Aggregates a data point into its bucket. Points are expected in time order, but older points are accepted.
+     * @param time Timestamp in epoch milliseconds.
+     * @param temperature Temperature.
+     * @param humidity Humidity.
+     */
+    public synchronized void add(long time, double temperature, int humidity) {
+        long local = time + timeZone.getOffset(time);
+        long key = floorDiv(local - origin, width) * width + origin;
+
+        int index;
+        if (size > 0 && key == keys[size - 1]) {
+            index = size - 1;
+        } else if (size == 0 || key > keys[size - 1]) {
+            index = insert(size, key, time - (local - key));
+        } else {
+            index = Arrays.binarySearch(keys, 0, size, key);
+            if (index < 0) {
+                if (key < keys[size - 1] - retention) {
+                    // Already expired
+                    return;
+                }
+                index = insert(-index - 1, key, time - (local - key));
+            }
+        }
+
+        counts[index]++;
+        minTemperatures[index] = Math.min(minTemperatures[index], temperature);
+        maxTemperatures[index] = Math.max(maxTemperatures[index], temperature);
+        sumTemperatures[index] += temperature;
+        minHumidities[index] = Math.min(minHumidities[index], humidity);
+        maxHumidities[index] = Math.max(maxHumidities[index], humidity);
+        sumHumidities[index] += humidity;
+
+        coveredFrom = Math.min(coveredFrom, time);
+        if (index == size - 1) {
+            expire();
+        }
+    }
+
+    /**
+     * Returns the buckets starting within a time range.
+     * @param from Start of the range in epoch milliseconds, inclusive.
+     * @param to End of the range in epoch milliseconds, exclusive.
+     * @return Buckets starting within the range.
+     */
+    public synchronized RollupSeries getSeries(long from, long to) {
+        int first = indexOf(from);
+        int count = Math.max(0, indexOf(to) - first);
+
+        double[] averageTemperatures = new double[count];
+        double[] averageHumidities = new double[count];
+        for (int i = 0; i < count; i++) {
+            averageTemperatures[i] = sumTemperatures[first + i] / counts[first + i];
+            averageHumidities[i] = (double) sumHumidities[first + i] / counts[first + i];
+        }
+
+        return new RollupSeries(
+            count, Arrays.copyOfRange(times, first, first + count), Arrays.copyOfRange(counts, first, first + count),
+            Arrays.copyOfRange(minTemperatures, first, first + count),
+            Arrays.copyOfRange(maxTemperatures, first, first + count), averageTemperatures,
+            Arrays.copyOfRange(minHumidities, first, first + count),
+            Arrays.copyOfRange(maxHumidities, first, first + count), averageHumidities
+        );
+    }
+
+    /**
+     * Finds the index of the first bucket starting at or after the given time. Bucket start times increase with
+     * their local keys.
+     */
+    private int indexOf(long time) {
+        int index = Arrays.binarySearch(times, 0, size, time);
+        return (index < 0) ? -index - 1 : index;
+    }
+
+    /**
+     * Inserts an empty bucket.
+     * @return Index of the new bucket.
+     */
+    private int insert(int index, long key, long time) {
+        if (size == keys.length) {
+            int capacity = Math.max(INITIAL_CAPACITY, size * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            times = Arrays.copyOf(times, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+            minTemperatures = Arrays.copyOf(minTemperatures, capacity);
+            maxTemperatures = Arrays.copyOf(maxTemperatures, capacity);
+            sumTemperatures = Arrays.copyOf(sumTemperatures, capacity);
+            minHumidities = Arrays.copyOf(minHumidities, capacity);
+            maxHumidities = Arrays.copyOf(maxHumidities, capacity);
+            sumHumidities = Arrays.copyOf(sumHumidities, capacity);
+        }
+
+        move(index, index + 1, size - index);
+        keys[index] = key;
+        times[index] = time;
+        counts[index] = 0;
+        minTemperatures[index] = Double.POSITIVE_INFINITY;
+        maxTemperatures[index] = Double.NEGATIVE_INFINITY;
+        sumTemperatures[index] = 0;
+        minHumidities[index] = Integer.MAX_VALUE;
+        maxHumidities[index] = Integer.MIN_VALUE;
+        sumHumidities[index] = 0;
+        size++;
+        return index;
+    }
+
+    private void expire() {
+        long threshold = keys[size - 1] - retention;
+        int expired = 0;
+        while (expired < size && keys[expired] < threshold) {
+            expired++;
+        }
+
+        if (expired > 0) {
+            move(expired, 0, size - expired);
+            size -= expired;
+            coveredFrom = Math.max(coveredFrom, times[0]);
+        }
+    }
+
+    private void move(int from, int to, int length) {
+        System.arraycopy(keys, from, keys, to, length);
+        System.arraycopy(times, from, times, to, length);
+        System.arraycopy(counts, from, counts, to, length);
+        System.arraycopy(minTemperatures, from, minTemperatures, to, length);
+        System.arraycopy(maxTemperatures, from, maxTemperatures, to, length);
+        System.arraycopy(sumTemperatures, from, sumTemperatures, to, length);
+        System.arraycopy(minHumidities, from, minHumidities, to, length);
+        System.arraycopy(maxHumidities, from, maxHumidities, to, length);
+        System.arraycopy(sumHumidities, from, sumHumidities, to, length);
+    }
+
+    private static long floorDiv(long x, long y) {
+        long q = x / y;
+        return (x % y != 0 && (x < 0) != (y < 0)) ? q - 1 : q;
+    }
+
+    /**
+     * Writes the buckets as columns, for {@link #readBuckets(JSONObject)}.
+     * @return The buckets.
+     * @throws JSONException On any JSON error.
+     */
+    synchronized JSONObject writeBuckets() throws JSONException {
+        JSONArray[] columns = new JSONArray[9];
+        for (int c = 0; c < columns.length; c++) {
+            columns[c] = new JSONArray();
+        }
+        for (int i = 0; i < size; i++) {
+            columns[0].put(keys[i]);
+            columns[1].put(times[i]);
+            columns[2].put(counts[i]);
+            columns[3].put(minTemperatures[i]);
+            columns[4].put(maxTemperatures[i]);
+            columns[5].put(sumTemperatures[i]);
+            columns[6].put(minHumidities[i]);
+            columns[7].put(maxHumidities[i]);
+            columns[8].put(sumHumidities[i]);
+        }
+
+        return new JSONObject()
+            .put("width", width)
+            .put("zone", timeZone.getID())
+            .put("from", coveredFrom)
+            .put("k", columns[0]).put("t", columns[1]).put("n", columns[2])
+            .put("te-", columns[3]).put("te+", columns[4]).put("te", columns[5])
+            .put("hu-", columns[6]).put("hu+", columns[7]).put("hu", columns[8]);
+    }
+
+    /**
+     * Replaces the buckets with the ones written by {@link #writeBuckets()}.
+     * @param json The buckets.
+     * @return False if the buckets were written with another width or aligned to another time zone, and were not
+     * read.
+     * @throws JSONException On any JSON error.
+     */
+    synchronized boolean readBuckets(JSONObject json) throws JSONException {
+        if (json.getLong("width") != width) {
+            return false;
+        }
+        if (json.has("zone") && !TimeZone.getTimeZone(json.getString("zone")).hasSameRules(timeZone)) {
+            return false;
+        }
+
+        JSONArray keyColumn = json.getJSONArray("k");
+        JSONArray timeColumn = json.getJSONArray("t");
+        JSONArray countColumn = json.getJSONArray("n");
+        JSONArray teMin = json.getJSONArray("te-");
+        JSONArray teMax = json.getJSONArray("te+");
+        JSONArray teSum = json.getJSONArray("te");
+        JSONArray huMin = json.getJSONArray("hu-");
+        JSONArray huMax = json.getJSONArray("hu+");
+        JSONArray huSum = json.getJSONArray("hu");
+
+        size = 0;
+        for (int i = 0; i < keyColumn.length(); i++) {
+            int index = insert(size, keyColumn.getLong(i), timeColumn.getLong(i));
+            counts[index] = countColumn.getInt(i);
+            minTemperatures[index] = teMin.getDouble(i);
+            maxTemperatures[index] = teMax.getDouble(i);
+            sumTemperatures[index] = teSum.getDouble(i);
+            minHumidities[index] = huMin.getInt(i);
+            maxHumidities[index] = huMax.getInt(i);
+            sumHumidities[index] = huSum.getLong(i);
+        }
+        coveredFrom = json.getLong("from");
+        return true;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "ThermoRollup[width=" + width + ", size=" + size + "]";
+    }
+
+}
@@ -0,0 +1,254 @@
+package nl.rgonline.homewizardlib.thermo;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Thermometer graph data, stored in primitive columns. Temperature and humidity share a single timestamp column, so a
+ * data point takes a few dozen bytes instead of several objects. Points are accessed by index, which does not
+ * allocate:
+ * <pre>
+ * for (int i = 0; i &lt; series.size(); i++) {
+ *     long time = series.getTime(i);
+ *     double temperature = series.getTemperature(i);
+ * }
+ * </pre>
+ * A series either holds single values, as returned for a day, or minimum and maximum values, as returned for longer
+ * time spans. For single values, the minimum and maximum accessors both return the single value.
+ * <p/>
+ * Instances are immutable, and created using a {@link Builder}.
+ * @author pdegeus
+ */
+public final class ThermoSeries {
+
+    /** Empty series */
+    public static final ThermoSeries EMPTY = new Builder().build();
+
+    private final int size;
+    private final boolean minMax;
+    private final long[] times;
+    private final double[] temperatures;
+    private final double[] maxTemperatures;
+    private final int[] humidities;
+    private final int[] maxHumidities;
+
+    private ThermoSeries(Builder builder) {
+        this.size = builder.size;
+        this.minMax = builder.minMax;
+        this.times = Arrays.copyOf(builder.times, size);
+        this.temperatures = Arrays.copyOf(builder.temperatures, size);
+        this.humidities = Arrays.copyOf(builder.humidities, size);
+        this.maxTemperatures = minMax ? Arrays.copyOf(builder.maxTemperatures, size) : temperatures;
+        this.maxHumidities = minMax ? Arrays.copyOf(builder.maxHumidities, size) : humidities;
+    }
+
+    /**
+     * @return Number of data points.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return True if this series has no data points.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return True if this series holds minimum and maximum values, false for single values.
+     */
+    public boolean isMinMax() {
+        return minMax;
+    }
+
+    /**
+     * @param index Data point index.
+     * @return Timestamp of the data point, in epoch milliseconds.
+     */
+    public long getTime(int index) {
+        checkIndex(index);
+        return times[index];
+    }
+
+    /**
+     * @param index Data point index.
+     * @return Single or minimum temperature.
+     */
+    public double getTemperature(int index) {
+        checkIndex(index);
+        return temperatures[index];
+    }
+
+    /**
+     * @param index Data point index.
+     * @return Maximum temperature, or the single temperature.
+     */
+    public double getMaxTemperature(int index) {
+        checkIndex(index);
+        return maxTemperatures[index];
+    }
+
+    /**
+     * @param index Data point index.
+     * @return Single or minimum humidity.
+     */
+    public int getHumidity(int index) {
+        checkIndex(index);
+        return humidities[index];
+    }
+
+    /**
+     * @param index Data point index.
+     * @return Maximum humidity, or the single humidity.
+     */
+    public int getMaxHumidity(int index) {
+        checkIndex(index);
+        return maxHumidities[index];
+    }
+
+    /**
+     * Returns the temperatures as a list of {@link TimeValue TimeValues}, for compatibility. The list is a view;
+     * its elements are created on each access.
+     * @return Unmodifiable list view.
+     */
+    public List<TimeValue<Double>> temperatureList() {
+        return new TimeValueList<Double>() {
+            @Override
+            public TimeValue<Double> get(int index) {
+                checkIndex(index);
+                Double max = minMax ? maxTemperatures[index] : null;
+                return new TimeValue<>(new Date(times[index]), temperatures[index], max);
+            }
+        };
+    }
+
+    /**
+     * Returns the humidities as a list of {@link TimeValue TimeValues}, for compatibility. The list is a view;
+     * its elements are created on each access.
+     * @return Unmodifiable list view.
+     */
+    public List<TimeValue<Integer>> humidityList() {
+        return new TimeValueList<Integer>() {
+            @Override
+            public TimeValue<Integer> get(int index) {
+                checkIndex(index);
+                Integer max = minMax ? maxHumidities[index] : null;
+                return new TimeValue<>(new Date(times[index]), humidities[index], max);
+            }
+        };
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ThermoSeries[size=" + size + ", minMax=" + minMax + "]";
+    }
+
+    /**
+     * Base class of the list views.
+     * @param <T> Type of the values.
+     */
+    private abstract class TimeValueList<T extends Number> extends AbstractList<TimeValue<T>> implements RandomAccess {
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+    }
+
+    /**
+     * Builder collecting data points in growing columns. Not thread-safe.
+     */
+    public static final class Builder {
+
+        private static final int INITIAL_CAPACITY = 16;
+
+        private int size = 0;
+        private boolean minMax = false;
+        private long[] times = new long[INITIAL_CAPACITY];
+        private double[] temperatures = new double[INITIAL_CAPACITY];
+        private double[] maxTemperatures = new double[INITIAL_CAPACITY];
+        private int[] humidities = new int[INITIAL_CAPACITY];
+        private int[] maxHumidities = new int[INITIAL_CAPACITY];
+
+        /**
+         * Adds a single value data point. A series can not mix single and min/max values.
+         * @param time Timestamp in epoch milliseconds.
+         * @param temperature Temperature.
+         * @param humidity Humidity.
+         * @return This builder.
+         */
+        public Builder add(long time, double temperature, int humidity) {
+            checkShape(false);
+            return append(time, temperature, temperature, humidity, humidity);
+        }
+
+        /**
+         * Adds a min/max data point. A series can not mix single and min/max values.
+         * @param time Timestamp in epoch milliseconds.
+         * @param minTemperature Minimum temperature.
+         * @param maxTemperature Maximum temperature.
+         * @param minHumidity Minimum humidity.
+         * @param maxHumidity Maximum humidity.
+         * @return This builder.
+         */
+        public Builder add(long time, double minTemperature, double maxTemperature, int minHumidity, int maxHumidity) {
+            checkShape(true);
+            return append(time, minTemperature, maxTemperature, minHumidity, maxHumidity);
+        }
+
+        /**
+         * @return Number of data points added so far.
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * @return A series containing the added data points.
+         */
+        public ThermoSeries build() {
+            return new ThermoSeries(this);
+        }
+
+        private void checkShape(boolean pointMinMax) {
+            if (size == 0) {
+                minMax = pointMinMax;
+            } else if (minMax != pointMinMax) {
+                throw new IllegalArgumentException("Can not mix single and min/max values in one series");
+            }
+        }
+
+        private Builder append(long time, double te, double teMax, int hu, int huMax) {
+            if (size == times.length) {
+                int capacity = size * 2;
+                times = Arrays.copyOf(times, capacity);
+                temperatures = Arrays.copyOf(temperatures, capacity);
+                maxTemperatures = Arrays.copyOf(maxTemperatures, capacity);
+                humidities = Arrays.copyOf(humidities, capacity);
+                maxHumidities = Arrays.copyOf(maxHumidities, capacity);
+            }
+
+            times[size] = time;
+            temperatures[size] = te;
+            maxTemperatures[size] = teMax;
+            humidities[size] = hu;
+            maxHumidities[size] = huMax;
+            size++;
+            return this;
+        }
+
+    }
+
+}
@@ -9,23 +9,31 @@ import lombok.Getter;
 public enum TimeSpan {
 
     /** Timespan of one day (24h) */
-    DAY ("day"),
+    DAY ("day", 1),
     /** One week */
-    WEEK ("week"),
+    WEEK ("week", 7),
     /** One month */
-    MONTH ("month"),
+    MONTH ("month", 31),
     /** One year */
-    YEAR ("year");
+    YEAR ("year", 365);
+
+    private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
 
     @Getter
     private final String apiString;
 
+    /** Length of the time span in milliseconds, up to the last data point */
+    @Getter
+    private final long duration;
+
     /**
      * Constructor.
      * @param apiString API string.
+     * @param days Length of the time span in days.
      */
-    TimeSpan(String apiString) {
+    TimeSpan(String apiString, int days) {
         this.apiString = apiString;
+        this.duration = days * DAY_MILLIS;
     }
 
 }
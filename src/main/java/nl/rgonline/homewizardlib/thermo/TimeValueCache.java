@@ -10,7 +10,9 @@ import lombok.Setter;
  * Cache for a list of {@link TimeValue TimeValues}.
  * @param <T> Type of the TimeValue values.
  * @author pdegeus
+ * @deprecated No longer used by {@link HWThermometer}, which caches graph data as a {@link ThermoSeries}.
  */
+@Deprecated
 @NoArgsConstructor
 public class TimeValueCache<T extends Number> {
 
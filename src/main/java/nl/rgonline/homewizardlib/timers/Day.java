@@ -71,6 +71,22 @@ public enum Day {
         return days;
     }
 
+    /**
+     * Creates a JSONArray of day numbers from the given set of Days, as read by {@link #readArray(JSONArray)}.
+     * @param days Set of Days.
+     * @return API days array.
+     */
+    public static JSONArray writeArray(Set<Day> days) {
+        JSONArray jsonArray = new JSONArray();
+        if (days.isEmpty()) {
+            jsonArray.put(7); // Execute once
+        }
+        for (Day day : days) {
+            jsonArray.put(day.getApiNumber());
+        }
+        return jsonArray;
+    }
+
     /**
      * Generates a comma-separated string from the given set of Days, as used by the HW API.
      * @param days Set of Days.
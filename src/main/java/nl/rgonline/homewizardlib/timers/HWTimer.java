@@ -1,5 +1,7 @@
 package nl.rgonline.homewizardlib.timers;
 
+import java.util.Collections;
+import java.util.Objects;
 import java.util.Set;
 
 import lombok.EqualsAndHashCode;
@@ -13,6 +15,8 @@ import nl.rgonline.homewizardlib.connection.Request;
 import nl.rgonline.homewizardlib.exceptions.HWException;
 
 import org.apache.commons.lang.BooleanUtils;
+import org.json.JSONException;
+import org.json.JSONObject;
 
 /**
  * Represents a timer in the HomeWizard system.
@@ -77,6 +81,41 @@ public class HWTimer extends AbstractHwEntity {
         return !days.isEmpty();
     }
 
+    @Override
+    protected boolean updateFrom(AbstractHwEntity loaded) {
+        boolean changed = super.updateFrom(loaded);
+        HWTimer timer = (HWTimer) loaded;
+        changed |= trigger != timer.trigger || !Objects.equals(action, timer.action) || subject != timer.subject
+            || subjectId != timer.subjectId || active != timer.active
+            || !Objects.equals(timeOrOffset, timer.timeOrOffset) || !Objects.equals(days, timer.days);
+
+        trigger = timer.trigger;
+        action = timer.action;
+        subject = timer.subject;
+        subjectId = timer.subjectId;
+        active = timer.active;
+        timeOrOffset = timer.timeOrOffset;
+        days = timer.days;
+        return changed;
+    }
+
+    /**
+     * @return JSON object containing the timer data in the format of the HomeWizard {@code /timers} response.
+     * @throws JSONException On any JSON write error.
+     */
+    public JSONObject toJson() throws JSONException {
+        String subjectIdField = (subject == TimerSubject.SCENE) ? "gpid" : "swid";
+        return new JSONObject()
+            .put("id", getId())
+            .put(subjectIdField, subjectId)
+            .put("type", subject.getApiString())
+            .put("action", action.getApiString())
+            .put("trigger", trigger.getApiString())
+            .put("time", timeOrOffset)
+            .put("days", Day.writeArray((days == null) ? Collections.<Day>emptySet() : days))
+            .put("active", BooleanUtils.toStringYesNo(active));
+    }
+
     @Override
     protected void saveInternal() throws HWException {
         String dayStr = (days == null || days.isEmpty()) ? "7" : Day.toApiFormat(days);
@@ -26,7 +26,6 @@ public class TimerManager extends AbstractManager<HWTimer> {
 
     private final HWConnection connection;
 
-    private Map<Integer, HWTimer> timers;
     private volatile boolean initialized = false;
 
     /**
@@ -42,50 +41,74 @@ public class TimerManager extends AbstractManager<HWTimer> {
     public void init(boolean forceReload) throws HWException {
         if (!initialized || forceReload) {
             Request request = new Request("/timers").setReturnResponse(false);
-            JSONObject response = connection.request(request);
+            loadTimers(connection.request(request));
 
-            // "response": [
-            //   {"id":0,"gpid":1,"type":"scene","sensor_id":1,"action":"off","trigger":"sunrise","time":"-0","days":[0, 6],"active":"yes"},
-            //   {"id":1,"gpid":1,"type":"scene","sensor_id":1,"action":"on","trigger":"sunset","time":"-183","days":[2],"active":"no"},
-            //   {"id":2,"gpid":1,"type":"scene","sensor_id":1,"action":"off","trigger":"time","time":"10:01","days":[7],"active":"yes"},
-            //   {"id":3,"swid":3,"type":"switch","sensor_id":3,"action":"off","trigger":"time","time":"16:30","days":[1],"active":"yes"}
-            // ]
+            initialized = true;
+        }
+    }
 
-            try {
-                JSONArray jsonSwitches = response.getJSONArray("response");
-                int numSwitches = jsonSwitches.length();
+    /**
+     * Reconciles the loaded timers with the ones in the given {@code /timers} response.
+     * @param response The complete {@code /timers} response.
+     * @throws HWException On any JSON error.
+     */
+    void loadTimers(JSONObject response) throws HWException {
+        // "response": [
+        //   {"id":0,"gpid":1,"type":"scene","sensor_id":1,"action":"off","trigger":"sunrise","time":"-0","days":[0, 6],"active":"yes"},
+        //   {"id":1,"gpid":1,"type":"scene","sensor_id":1,"action":"on","trigger":"sunset","time":"-183","days":[2],"active":"no"},
+        //   {"id":2,"gpid":1,"type":"scene","sensor_id":1,"action":"off","trigger":"time","time":"10:01","days":[7],"active":"yes"},
+        //   {"id":3,"swid":3,"type":"switch","sensor_id":3,"action":"off","trigger":"time","time":"16:30","days":[1],"active":"yes"}
+        // ]
 
-                timers = new HashMap<>();
+        try {
+            JSONArray jsonSwitches = response.getJSONArray("response");
+            int numSwitches = jsonSwitches.length();
 
-                for (int i = 0; i < numSwitches; i++) {
-                    JSONObject timerJson = jsonSwitches.getJSONObject(i);
+            Map<Integer, HWTimer> newTimers = new HashMap<>();
 
-                    //Simple data
-                    int id = timerJson.getInt("id");
-                    TimerTrigger trigger = TimerTrigger.forString(timerJson.getString("trigger"));
-                    HWAction action = HWAction.forString(timerJson.getString("action"));
-                    TimerSubject subject = TimerSubject.forString(timerJson.getString("type"));
+            for (int i = 0; i < numSwitches; i++) {
+                JSONObject timerJson = jsonSwitches.getJSONObject(i);
 
-                    String subjectIdField = (subject == TimerSubject.SCENE) ? "gpid" : "swid";
-                    int subjectId = JsonUtil.readInteger(timerJson, subjectIdField);
+                //Simple data
+                int id = timerJson.getInt("id");
+                TimerTrigger trigger = TimerTrigger.forString(timerJson.getString("trigger"));
+                HWAction action = HWAction.forString(timerJson.getString("action"));
+                TimerSubject subject = TimerSubject.forString(timerJson.getString("type"));
 
-                    boolean active = BooleanUtils.toBoolean(timerJson.getString("active"));
-                    String timeOrOffset = timerJson.getString("time");
-                    Set<Day> days = Day.readArray(timerJson.getJSONArray("days"));
+                String subjectIdField = (subject == TimerSubject.SCENE) ? "gpid" : "swid";
+                int subjectId = JsonUtil.readInteger(timerJson, subjectIdField);
 
-                    //Create & add timer
-                    HWTimer timer = new HWTimer(connection, id, trigger, action, subject, subjectId, active, timeOrOffset, days);
-                    timers.put(id, timer);
+                boolean active = BooleanUtils.toBoolean(timerJson.getString("active"));
+                String timeOrOffset = timerJson.getString("time");
+                Set<Day> days = Day.readArray(timerJson.getJSONArray("days"));
+
+                //Create & add timer
+                HWTimer timer = new HWTimer(connection, id, trigger, action, subject, subjectId, active, timeOrOffset, days);
+                newTimers.put(id, timer);
 
-                }
-            } catch (JSONException e) {
-                throw new HWException("Error initializing timers", e);
             }
 
-            initialized = true;
+            publish(newTimers);
+        } catch (JSONException e) {
+            throw new HWException("Error initializing timers", e);
         }
     }
 
+    @Override
+    protected JSONObject writeState() throws JSONException {
+        JSONArray timers = new JSONArray();
+        for (HWTimer timer : getEntityMap().values()) {
+            timers.put(timer.toJson());
+        }
+        return new JSONObject().put("response", timers);
+    }
+
+    @Override
+    protected void readState(JSONObject state) throws HWException {
+        loadTimers(state);
+        initialized = true;
+    }
+
     @Override
     protected void updateStatus() throws HWException {
         //Nothing to do
@@ -93,7 +116,12 @@ public class TimerManager extends AbstractManager<HWTimer> {
 
     @Override
     public Map<Integer, HWTimer> getEntityMap() {
-        return timers;
+        return super.getEntityMap();
+    }
+
+    @Override
+    protected HWConnection getConnection() {
+        return connection;
     }
 
 }
@@ -31,4 +31,12 @@ public class HueColor {
         brightness = jsonObject.getInt("bri");
     }
 
+    /**
+     * @return JSON object containing the color data in the HomeWizard API format.
+     * @throws JSONException On any JSON write error.
+     */
+    public JSONObject toJson() throws JSONException {
+        return new JSONObject().put("hue", hue).put("sat", saturation).put("bri", brightness);
+    }
+
 }
@@ -1,5 +1,8 @@
 package nl.rgonline.homewizardlib.util;
 
+import java.util.Iterator;
+
+import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
@@ -58,6 +61,46 @@ public final class JsonUtil {
         }
     }
 
+    /**
+     * Creates a deep copy of a JSON object. Nested objects and arrays are copied as well; other values are immutable.
+     * @param json JSON object to copy.
+     * @return The copy.
+     * @throws JSONException On any JSON error.
+     */
+    public static JSONObject copy(JSONObject json) throws JSONException {
+        JSONObject copy = new JSONObject();
+        Iterator<?> keys = json.keys();
+        while (keys.hasNext()) {
+            String key = (String) keys.next();
+            copy.put(key, copyValue(json.get(key)));
+        }
+        return copy;
+    }
+
+    /**
+     * Creates a deep copy of a JSON array.
+     * @param json JSON array to copy.
+     * @return The copy.
+     * @throws JSONException On any JSON error.
+     * @see #copy(JSONObject)
+     */
+    public static JSONArray copy(JSONArray json) throws JSONException {
+        JSONArray copy = new JSONArray();
+        for (int i = 0; i < json.length(); i++) {
+            copy.put(copyValue(json.get(i)));
+        }
+        return copy;
+    }
+
+    private static Object copyValue(Object value) throws JSONException {
+        if (value instanceof JSONObject) {
+            return copy((JSONObject) value);
+        } else if (value instanceof JSONArray) {
+            return copy((JSONArray) value);
+        }
+        return value;
+    }
+
     private JsonUtil() {
     }
 }
@@ -0,0 +1,152 @@
+package nl.rgonline.homewizardlib.util;
+
+import java.text.ParseException;
+import java.util.TimeZone;
+
+/**
+ * Parser for the timestamps used by the HomeWizard in graphs and logs, formatted as {@code yyyy-MM-dd HH:mm} or
+ * {@code yyyy-MM-dd HH:mm:ss}. Timestamps are interpreted in the time zone of the HomeWizard and converted to epoch
+ * milliseconds.
+ * <p/>
+ * Unlike {@link java.text.SimpleDateFormat}, this parser is thread-safe, so a single instance can be shared by all
+ * entities of a connection, and parsing a valid timestamp does not allocate any objects. Local times that do not
+ * exist or are ambiguous because of a daylight saving time transition are resolved like
+ * {@link java.util.GregorianCalendar} does.
+ * @author pdegeus
+ */
+public final class TimestampParser {
+
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+    // Days from 0000-03-01 to 1970-01-01 in the proleptic Gregorian calendar
+    private static final long DAYS_TO_EPOCH = 719468;
+
+    private static final int LENGTH_MINUTES = 16;
+    private static final int LENGTH_SECONDS = 19;
+
+    private final TimeZone timeZone;
+    private final int rawOffset;
+
+    /**
+     * Constructor.
+     * @param timeZone Time zone the timestamps are in. The time zone is copied.
+     */
+    public TimestampParser(TimeZone timeZone) {
+        this.timeZone = (TimeZone) timeZone.clone();
+        this.rawOffset = timeZone.getRawOffset();
+    }
+
+    /**
+     * @return A copy of the time zone the timestamps are in.
+     */
+    public TimeZone getTimeZone() {
+        return (TimeZone) timeZone.clone();
+    }
+
+    /**
+     * Parses a timestamp.
+     * @param text Timestamp formatted as {@code yyyy-MM-dd HH:mm} or {@code yyyy-MM-dd HH:mm:ss}.
+     * @return The timestamp in epoch milliseconds.
+     * @throws ParseException If the text is not a valid timestamp.
+     */
+    public long parse(CharSequence text) throws ParseException {
+        int length = text.length();
+        if (length != LENGTH_MINUTES && length != LENGTH_SECONDS) {
+            throw new ParseException("Invalid timestamp length: \"" + text + "\"", 0);
+        }
+
+        int year = digits(text, 0, 4);
+        separator(text, 4, '-');
+        int month = digits(text, 5, 2);
+        separator(text, 7, '-');
+        int day = digits(text, 8, 2);
+        separator(text, 10, ' ');
+        int hour = digits(text, 11, 2);
+        separator(text, 13, ':');
+        int minute = digits(text, 14, 2);
+        int second = 0;
+        if (length == LENGTH_SECONDS) {
+            separator(text, 16, ':');
+            second = digits(text, 17, 2);
+        }
+
+        if (month < 1 || month > 12) {
+            throw new ParseException("Invalid month: \"" + text + "\"", 5);
+        }
+        if (day < 1 || day > daysInMonth(year, month)) {
+            throw new ParseException("Invalid day: \"" + text + "\"", 8);
+        }
+        if (hour > 23) {
+            throw new ParseException("Invalid hour: \"" + text + "\"", 11);
+        }
+        if (minute > 59) {
+            throw new ParseException("Invalid minute: \"" + text + "\"", 14);
+        }
+        if (second > 59) {
+            throw new ParseException("Invalid second: \"" + text + "\"", 17);
+        }
+
+        long local = epochDay(year, month, day) * MILLIS_PER_DAY + ((hour * 60L + minute) * 60 + second) * 1000;
+        return toEpochMillis(local);
+    }
+
+    /**
+     * Converts a local time to epoch milliseconds. Within a daylight saving time gap, the offset before the
+     * transition is used, like GregorianCalendar does.
+     * @param local Local time as milliseconds since 1970-01-01 00:00 local time.
+     * @return Epoch milliseconds.
+     */
+    private long toEpochMillis(long local) {
+        int offset = timeZone.getOffset(local - rawOffset);
+        long utc = local - offset;
+        int actualOffset = timeZone.getOffset(utc);
+        return (actualOffset == offset) ? utc : local - actualOffset;
+    }
+
+    private static int digits(CharSequence text, int start, int count) throws ParseException {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new ParseException("Digit expected: \"" + text + "\"", i);
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static void separator(CharSequence text, int index, char expected) throws ParseException {
+        if (text.charAt(index) != expected) {
+            throw new ParseException("'" + expected + "' expected: \"" + text + "\"", index);
+        }
+    }
+
+    private static int daysInMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                boolean leap = (year % 4 == 0) && (year % 100 != 0 || year % 400 == 0);
+                return leap ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * Computes the number of days since 1970-01-01, counting years from March so the leap day is the last day of
+     * the year.
+     */
+    private static long epochDay(int year, int month, int day) {
+        int y = (month <= 2) ? year - 1 : year;
+        int era = ((y >= 0) ? y : y - 399) / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - DAYS_TO_EPOCH;
+    }
+
+}
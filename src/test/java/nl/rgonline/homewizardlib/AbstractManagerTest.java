@@ -0,0 +1,133 @@
+package nl.rgonline.homewizardlib;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import nl.rgonline.homewizardlib.switches.HWSwitch;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Unit tests for the status refresh of the {@link AbstractManager}.
+ * @author pdegeus
+ */
+public class AbstractManagerTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testReadersDoNotWaitForRefresh() throws Exception {
+        final TestManager manager = new TestManager(1);
+        manager.updateStatusIfExpired();
+        Thread.sleep(5);
+
+        // First reader blocks inside the status update
+        manager.block();
+        Future<?> refresh = executor.submit(new Callable<Object>() {
+            @Override
+            public Object call() throws Exception {
+                manager.getAll();
+                return null;
+            }
+        });
+        assertTrue(manager.updating.await(2, TimeUnit.SECONDS));
+
+        // Other readers return the current state
+        assertEquals(0, manager.getAll().size());
+        assertEquals(1, manager.getRefreshStats().getContended());
+        assertEquals(0, manager.getRefreshStats().getWaits());
+
+        manager.release.countDown();
+        refresh.get(2, TimeUnit.SECONDS);
+        assertEquals(2, manager.updates.get());
+    }
+
+    @Test
+    public void testReadersWaitForFirstLoad() throws Exception {
+        final TestManager manager = new TestManager(60000);
+
+        manager.block();
+        Future<?> init = executor.submit(new Callable<Object>() {
+            @Override
+            public Object call() throws Exception {
+                manager.getAll();
+                return null;
+            }
+        });
+        assertTrue(manager.updating.await(2, TimeUnit.SECONDS));
+
+        Future<?> reader = executor.submit(new Callable<Object>() {
+            @Override
+            public Object call() throws Exception {
+                return manager.getAll();
+            }
+        });
+        Thread.sleep(50);
+        manager.release.countDown();
+
+        assertEquals(Collections.emptyList(), reader.get(2, TimeUnit.SECONDS));
+        init.get(2, TimeUnit.SECONDS);
+        assertEquals(1, manager.updates.get());
+        assertEquals(1, manager.getRefreshStats().getWaits());
+    }
+
+    @Test
+    public void testConcurrentPublish() throws Exception {
+        final TestManager manager = new TestManager(-1);
+        final HWSwitch first = new HWSwitch(null, 1, "Bijkeuken", false, false);
+        final HWSwitch second = new HWSwitch(null, 2, "Garage", false, false);
+        manager.publish(Collections.singletonMap(1, first));
+
+        // Status changes published by another thread, as done for status responses requested by other managers
+        final AtomicBoolean done = new AtomicBoolean(false);
+        Future<?> status = executor.submit(new Callable<Object>() {
+            @Override
+            public Object call() {
+                boolean on = false;
+                while (!done.get()) {
+                    manager.fireIfChanged(first, HWChangeType.SWITCH_ON, on, !on);
+                    manager.publishStatus();
+                    on = !on;
+                }
+                return null;
+            }
+        });
+
+        Map<Integer, HWSwitch> one = Collections.singletonMap(1, first);
+        Map<Integer, HWSwitch> two = new HashMap<>();
+        two.put(1, first);
+        two.put(2, second);
+        try {
+            Map<Integer, HWSwitch> published = one;
+            for (int i = 0; i < 20000; i++) {
+                long version = manager.getVersion();
+                assertEquals(published.keySet(), manager.getEntityMap().keySet());
+
+                published = (i % 2 == 0) ? two : one;
+                manager.publish(published);
+                assertTrue(manager.getVersion() > version);
+            }
+        } finally {
+            done.set(true);
+            status.get(2, TimeUnit.SECONDS);
+        }
+        assertEquals(Collections.singleton(1), manager.getEntityMap().keySet());
+    }
+
+}
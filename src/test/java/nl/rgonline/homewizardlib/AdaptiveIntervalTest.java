@@ -0,0 +1,42 @@
+package nl.rgonline.homewizardlib;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link AdaptiveInterval}.
+ * @author pdegeus
+ */
+public class AdaptiveIntervalTest {
+
+    @Test
+    public void testBacksOffWithinBounds() {
+        AdaptiveInterval interval = new AdaptiveInterval(2000, 1000, 10000, 2);
+        assertEquals(2000, interval.getInterval());
+
+        interval.backOff();
+        assertEquals(4000, interval.getInterval());
+        interval.backOff();
+        interval.backOff();
+        assertEquals(10000, interval.getInterval());
+        interval.backOff();
+        assertEquals(10000, interval.getInterval());
+    }
+
+    @Test
+    public void testTightensToMinimum() {
+        AdaptiveInterval interval = new AdaptiveInterval(50000, 1000, 10000, 2);
+        assertEquals(10000, interval.getInterval());
+
+        assertTrue(interval.tighten());
+        assertEquals(1000, interval.getInterval());
+        assertFalse(interval.tighten());
+
+        interval.backOff();
+        assertEquals(2000, interval.getInterval());
+    }
+
+}
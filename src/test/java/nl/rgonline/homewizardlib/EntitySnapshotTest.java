@@ -0,0 +1,59 @@
+package nl.rgonline.homewizardlib;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import nl.rgonline.homewizardlib.switches.HWDimmer;
+import nl.rgonline.homewizardlib.switches.HWSwitch;
+import nl.rgonline.homewizardlib.switches.SwitchType;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link EntitySnapshot} indexes.
+ * @author pdegeus
+ */
+public class EntitySnapshotTest {
+
+    @Test
+    public void testIndexes() {
+        Map<Integer, HWSwitch> switches = new HashMap<>();
+        switches.put(3, new HWSwitch(null, 3, "Bijkeuken", false, false));
+        switches.put(1, new HWDimmer(null, 1, "Woonkamer", true, true, 40));
+        switches.put(2, new HWSwitch(null, 2, "bijkeuken", true, false));
+
+        EntitySnapshot<HWSwitch> snapshot = new EntitySnapshot<>(1, switches, new TestManager(-1));
+
+        assertEquals(3, snapshot.getByName("Bijkeuken").getId());
+        assertEquals(2, snapshot.getByNameIgnoreCase("BIJKEUKEN").getId());
+        assertNull(snapshot.getByName("Garage"));
+
+        assertEquals(2, snapshot.getFavorites().size());
+        assertEquals(1, snapshot.getFavorites().get(0).getId());
+        assertEquals(1, snapshot.getByType(SwitchType.DIMMER).size());
+        assertEquals(2, snapshot.getByType(SwitchType.STANDARD).size());
+        assertTrue(snapshot.getByType(SwitchType.HUE_BULB).isEmpty());
+
+        assertEquals(1, snapshot.getEntities().get(0).getId());
+        assertSame(snapshot.getByType(SwitchType.DIMMER), snapshot.nextVersion().getByType(SwitchType.DIMMER));
+    }
+
+    @Test
+    public void testRenamedEntityIsNotFoundByOldName() {
+        Map<Integer, HWSwitch> switches = new HashMap<>();
+        HWSwitch theSwitch = new HWSwitch(null, 1, "Bijkeuken", false, false);
+        switches.put(1, theSwitch);
+
+        EntitySnapshot<HWSwitch> snapshot = new EntitySnapshot<>(1, switches, new TestManager(-1));
+        theSwitch.setName("Garage");
+
+        assertNull(snapshot.getByName("Bijkeuken"));
+        assertNull(snapshot.getByNameIgnoreCase("bijkeuken"));
+    }
+
+}
@@ -0,0 +1,164 @@
+package nl.rgonline.homewizardlib;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import nl.rgonline.homewizardlib.BootstrapReport.Outcome;
+import nl.rgonline.homewizardlib.BootstrapReport.Phase;
+import nl.rgonline.homewizardlib.connection.StubHomeWizard;
+import nl.rgonline.homewizardlib.switches.HWSwitch;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for the snapshots and bootstrap of the {@link HWSystem}, against a {@link StubHomeWizard}.
+ * @author pdegeus
+ */
+public class HWSystemTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private StubHomeWizard homeWizard;
+
+    @Before
+    public void setUp() throws Exception {
+        homeWizard = new StubHomeWizard();
+        homeWizard.respond("/get-status", "{\"switches\":[{\"id\":6,\"type\":\"switch\",\"status\":\"on\"}],"
+            + "\"kakusensors\":[]}");
+        homeWizard.respond("/get-sensors", "{\"kakusensors\":[],\"cameras\":[]}");
+        homeWizard.respond("/swlist", "[{\"id\":6,\"name\":\"Lamp\",\"type\":\"switch\",\"status\":\"on\","
+            + "\"favorite\":\"no\"}]");
+        homeWizard.respond("/telist", "[]");
+        homeWizard.respond("/gplist", "[]");
+        homeWizard.respond("/timers", "[]");
+    }
+
+    @After
+    public void tearDown() {
+        homeWizard.close();
+    }
+
+    @Test
+    public void testSnapshotRoundTrip() throws Exception {
+        File file = new File(folder.getRoot(), "snapshot.json");
+        try (HWSystem system = connect()) {
+            assertEquals(3.4, system.getHwVersion(), 0);
+            assertEquals("Lamp", system.getSwitchManager().get(6).getName());
+            system.saveSnapshot(file);
+
+            // Saving again replaces the file, without leaving the temporary file behind
+            system.saveSnapshot(file);
+        }
+        assertTrue(file.isFile());
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+
+        try (HWSystem system = connect()) {
+            int switchLists = homeWizard.getRequests("/swlist");
+            homeWizard.respond("/swlist", "[{\"id\":6,\"name\":\"Renamed\",\"type\":\"switch\",\"status\":\"on\","
+                + "\"favorite\":\"no\"}]");
+
+            // Served from the snapshot while the revalidation is held
+            homeWizard.hold();
+            assertTrue(system.restoreSnapshot(file));
+            HWSwitch restored = system.getSwitchManager().get(6);
+            assertEquals("Lamp", restored.getName());
+            assertTrue(restored.isOn());
+
+            // Revalidation reconciles the restored switch
+            homeWizard.release();
+            long deadline = System.currentTimeMillis() + 5000;
+            while (!"Renamed".equals(restored.getName())) {
+                assertTrue("Switch was not revalidated", System.currentTimeMillis() < deadline);
+                Thread.sleep(5);
+            }
+            assertEquals(switchLists + 1, homeWizard.getRequests("/swlist"));
+            assertSame(restored, system.getSwitchManager().get(6));
+        }
+    }
+
+    @Test
+    public void testSnapshotFilePerSystem() throws Exception {
+        File file = new File(folder.getRoot(), "snapshot.json");
+        try (HWSystem system = connect(file)) {
+            assertEquals("status", system.getBootstrapReport().getPhases().get(0).getName());
+            system.getSwitchManager().get(6);
+        }
+        assertTrue(file.isFile());
+
+        // Restored on construction by a system for the same HomeWizard only
+        try (HWSystem system = connect(file)) {
+            assertEquals("snapshot", system.getBootstrapReport().getPhases().get(0).getName());
+        }
+        try (StubHomeWizard other = new StubHomeWizard()) {
+            other.respond("/get-status", "{\"switches\":[],\"kakusensors\":[]}");
+            try (HWSystem system = new HWSystem("127.0.0.1", other.getPort(), StubHomeWizard.PASSWORD)) {
+                assertFalse(system.restoreSnapshot(file));
+                assertEquals(0, other.getRequests("/swlist"));
+            }
+        }
+    }
+
+    @Test
+    public void testRestoreUnreadableSnapshot() throws Exception {
+        File file = folder.newFile("snapshot.json");
+        try (HWSystem system = connect()) {
+            assertFalse(system.restoreSnapshot(file));
+            assertFalse(system.restoreSnapshot(new File(folder.getRoot(), "missing.json")));
+        }
+    }
+
+    @Test
+    public void testEagerBootstrap() throws Exception {
+        try (HWSystem system = connect()) {
+            BootstrapReport report = system.bootstrap(5000);
+            assertTrue(report.toString(), report.isComplete());
+            assertEquals(7, report.getPhases().size());
+            assertEquals(1, homeWizard.getRequests("/swlist"));
+            assertEquals(1, homeWizard.getRequests("/gplist"));
+            assertEquals(1, homeWizard.getRequests("/timers"));
+
+            // Managers are initialized, so reading them does no IO
+            system.getSwitchManager().get(6);
+            assertEquals(1, homeWizard.getRequests("/swlist"));
+        }
+    }
+
+    @Test
+    public void testBootstrapDeadline() throws Exception {
+        try (HWSystem system = connect()) {
+            // The status is cached from construction, the managers are held beyond the deadline
+            homeWizard.hold();
+            long start = System.currentTimeMillis();
+            BootstrapReport report = system.bootstrap(200);
+            assertTrue(System.currentTimeMillis() - start < 2000);
+            homeWizard.release();
+
+            assertFalse(report.isComplete());
+            assertEquals(Outcome.COMPLETED, report.getPhase("status").getOutcome());
+            for (Phase phase : report.getPhases().subList(1, report.getPhases().size())) {
+                assertEquals(phase.getName(), Outcome.TIMED_OUT, phase.getOutcome());
+            }
+
+            // Timed out managers complete their initialization on first use
+            assertEquals("Lamp", system.getSwitchManager().get(6).getName());
+        }
+    }
+
+    private HWSystem connect() throws Exception {
+        return connect(null);
+    }
+
+    private HWSystem connect(File snapshotFile) throws Exception {
+        return new HWSystem("127.0.0.1", homeWizard.getPort(), StubHomeWizard.PASSWORD, snapshotFile);
+    }
+
+}
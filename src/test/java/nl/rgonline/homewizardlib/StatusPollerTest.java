@@ -0,0 +1,54 @@
+package nl.rgonline.homewizardlib;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link StatusPoller}.
+ * @author pdegeus
+ */
+public class StatusPollerTest {
+
+    @Test
+    public void testPollsOnInterval() throws Exception {
+        TestManager manager = new TestManager(10);
+        CountDownLatch polled = manager.expectUpdates(3);
+        StatusPoller poller = new StatusPoller(Arrays.asList(manager));
+
+        poller.start();
+        try {
+            assertTrue(polled.await(2, TimeUnit.SECONDS));
+            assertTrue(manager.isPolled());
+            assertEquals(1, manager.inits.get());
+        } finally {
+            poller.stop();
+        }
+        assertFalse(manager.isPolled());
+    }
+
+    @Test
+    public void testPolledReadsDoNoIO() throws Exception {
+        TestManager manager = new TestManager(60000);
+        CountDownLatch polled = manager.expectUpdates(1);
+        StatusPoller poller = new StatusPoller(Arrays.asList(manager));
+
+        poller.start();
+        try {
+            assertTrue(polled.await(2, TimeUnit.SECONDS));
+            for (int i = 0; i < 10; i++) {
+                manager.getAll();
+            }
+            assertEquals(1, manager.updates.get());
+        } finally {
+            poller.stop();
+        }
+    }
+
+}
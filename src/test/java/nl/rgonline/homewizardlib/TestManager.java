@@ -0,0 +1,96 @@
+package nl.rgonline.homewizardlib;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import nl.rgonline.homewizardlib.connection.HWConnection;
+import nl.rgonline.homewizardlib.switches.HWSwitch;
+
+/**
+ * Switch manager without a connection, shared by the manager tests. It loads a fixed set of switches indexed by
+ * type, counts its initializations and status updates, and can be blocked inside them.
+ * @author pdegeus
+ */
+class TestManager extends AbstractManager<HWSwitch> {
+
+    final AtomicInteger inits = new AtomicInteger();
+    final AtomicInteger updates = new AtomicInteger();
+
+    /** Counted down when blocked inside an initialization or status update */
+    volatile CountDownLatch updating = new CountDownLatch(0);
+    /** Releases a blocked initialization or status update */
+    volatile CountDownLatch release = new CountDownLatch(0);
+
+    private volatile Map<Integer, HWSwitch> switches = Collections.emptyMap();
+    private volatile CountDownLatch updated = new CountDownLatch(0);
+
+    /**
+     * Constructor.
+     * @param updateInterval The interval (in milliseconds) between status updates, or -1.
+     */
+    TestManager(int updateInterval) {
+        super(updateInterval);
+    }
+
+    /**
+     * @param switches Switches loaded by the next initialization.
+     */
+    void setSwitches(Map<Integer, HWSwitch> switches) {
+        this.switches = switches;
+    }
+
+    /**
+     * Blocks the next initialization or status update until {@link #release} is counted down.
+     */
+    void block() {
+        updating = new CountDownLatch(1);
+        release = new CountDownLatch(1);
+    }
+
+    /**
+     * @param count Number of status updates to wait for.
+     * @return Latch counted down by each following status update.
+     */
+    CountDownLatch expectUpdates(int count) {
+        updated = new CountDownLatch(count);
+        return updated;
+    }
+
+    @Override
+    public void init(boolean forceReload) {
+        if (getEntityMap() == null || forceReload) {
+            inits.incrementAndGet();
+            hold();
+            publish(switches);
+        }
+    }
+
+    @Override
+    protected void updateStatus() {
+        updates.incrementAndGet();
+        updated.countDown();
+        hold();
+    }
+
+    private void hold() {
+        updating.countDown();
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    protected Enum<?> getEntityType(HWSwitch entity) {
+        return entity.getType();
+    }
+
+    @Override
+    protected HWConnection getConnection() {
+        return null;
+    }
+
+}
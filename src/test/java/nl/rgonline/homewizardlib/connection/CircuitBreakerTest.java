@@ -0,0 +1,123 @@
+package nl.rgonline.homewizardlib.connection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+
+import nl.rgonline.homewizardlib.connection.CircuitBreaker.State;
+import nl.rgonline.homewizardlib.exceptions.CircuitOpenException;
+import nl.rgonline.homewizardlib.exceptions.HWException;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link CircuitBreaker}.
+ * @author pdegeus
+ */
+public class CircuitBreakerTest {
+
+    @Test
+    public void testOpensAfterThreshold() {
+        CircuitBreaker breaker = new CircuitBreaker(2, 1000, 5000, false);
+        breaker.onFailure();
+        assertEquals(State.CLOSED, breaker.getState());
+        breaker.onSuccess();
+
+        // Failures must be consecutive
+        breaker.onFailure();
+        assertTrue(breaker.allowRequest());
+        breaker.onFailure();
+        assertEquals(State.OPEN, breaker.getState());
+        assertFalse(breaker.allowRequest());
+    }
+
+    @Test
+    public void testProbe() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(1, 20, 1000, false);
+        final List<State> transitions = new ArrayList<>();
+        breaker.addListener(new CircuitBreakerListener() {
+            @Override
+            public void stateChanged(CircuitBreaker breaker, State from, State to) {
+                transitions.add(to);
+            }
+        });
+
+        breaker.onFailure();
+        Thread.sleep(30);
+
+        // Only a single probe is allowed
+        assertTrue(breaker.allowRequest());
+        assertEquals(State.HALF_OPEN, breaker.getState());
+        assertFalse(breaker.allowRequest());
+
+        // A failed probe opens the breaker with a doubled backoff
+        long failed = System.currentTimeMillis();
+        breaker.onFailure();
+        assertEquals(State.OPEN, breaker.getState());
+        assertTrue(breaker.getOpenUntil() >= failed + 40);
+        Thread.sleep(50);
+
+        assertTrue(breaker.allowRequest());
+        breaker.onSuccess();
+        assertEquals(State.CLOSED, breaker.getState());
+        assertTrue(breaker.allowRequest());
+
+        assertEquals(5, transitions.size());
+        assertEquals(State.OPEN, transitions.get(0));
+        assertEquals(State.HALF_OPEN, transitions.get(1));
+        assertEquals(State.OPEN, transitions.get(2));
+        assertEquals(State.HALF_OPEN, transitions.get(3));
+        assertEquals(State.CLOSED, transitions.get(4));
+    }
+
+    @Test
+    public void testInvalidRequestDoesNotTakeProbe() throws Exception {
+        try (HWConnection connection = new HWConnection("127.0.0.1", unusedPort(), "test")) {
+            CircuitBreaker breaker = connection.getCircuitBreaker();
+            for (int i = 0; i < breaker.getFailureThreshold(); i++) {
+                try {
+                    connection.request(new Request("/get-sensors"));
+                    fail("Expected connection failure");
+                } catch (CircuitOpenException e) {
+                    fail("Opened too early");
+                } catch (HWException e) {
+                    // Expected
+                }
+            }
+            assertEquals(State.OPEN, breaker.getState());
+            Thread.sleep(breaker.getOpenUntil() - System.currentTimeMillis() + 10);
+
+            try {
+                connection.request(new Request("/invalid path"));
+                fail("Expected invalid URL");
+            } catch (IllegalArgumentException e) {
+                // Expected
+            }
+            assertEquals(State.OPEN, breaker.getState());
+
+            // The probe is still available
+            try {
+                connection.request(new Request("/get-sensors"));
+                fail("Expected connection failure");
+            } catch (CircuitOpenException e) {
+                fail("Probe was not allowed");
+            } catch (HWException e) {
+                // Expected
+            }
+            assertEquals(State.OPEN, breaker.getState());
+        }
+    }
+
+    private static int unusedPort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+}
@@ -0,0 +1,257 @@
+package nl.rgonline.homewizardlib.connection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import nl.rgonline.homewizardlib.exceptions.HWException;
+import nl.rgonline.homewizardlib.metrics.EndpointFamily;
+import nl.rgonline.homewizardlib.metrics.InMemoryMetrics;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the request coalescing and asynchronous calls of the {@link HWConnection}, against a
+ * {@link StubHomeWizard}.
+ * @author pdegeus
+ */
+public class HWConnectionTest {
+
+    private static final String PATH = "/get-sensors";
+    private static final int CALLERS = 4;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private StubHomeWizard homeWizard;
+    private HWConnection connection;
+
+    @Before
+    public void setUp() throws Exception {
+        homeWizard = new StubHomeWizard();
+        connection = homeWizard.connect();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        connection.close();
+        homeWizard.close();
+    }
+
+    @Test
+    public void testConcurrentRequestsShareOneCall() throws Exception {
+        homeWizard.respond(PATH, "{\"switches\":[]}");
+        List<Future<JSONObject>> results = requestConcurrently();
+
+        // Each caller receives its own copy of the shared result
+        JSONObject first = results.get(0).get(5, TimeUnit.SECONDS);
+        for (Future<JSONObject> result : results.subList(1, CALLERS)) {
+            JSONObject other = result.get(5, TimeUnit.SECONDS);
+            assertNotSame(first, other);
+            assertEquals(first.toString(), other.toString());
+        }
+        assertEquals(1, homeWizard.getRequests(PATH));
+        assertEquals(CALLERS - 1, (long) connection.getCoalescedRequests().get(PATH));
+    }
+
+    @Test
+    public void testCachedResultCanNotBeModified() throws Exception {
+        homeWizard.respond(PATH, "{\"switches\":[{\"id\":1,\"name\":\"Lamp\"}]}");
+        Request request = new Request(Request.Method.GET, 60000L, new Object[] {PATH});
+        JSONObject first = connection.request(request);
+        first.getJSONArray("switches").getJSONObject(0).put("name", "Modified");
+        first.put("extra", true);
+
+        JSONObject second = connection.request(request);
+        assertEquals(1, homeWizard.getRequests(PATH));
+        assertFalse(second.has("extra"));
+        assertEquals("Lamp", second.getJSONArray("switches").getJSONObject(0).getString("name"));
+    }
+
+    @Test
+    public void testFailureReachesAllWaiters() throws Exception {
+        homeWizard.respondRaw(PATH, "{\"status\":\"error\",\"error\":1,\"errorMessage\":\"Incorrect password\"}");
+        List<Future<JSONObject>> results = requestConcurrently();
+
+        for (Future<JSONObject> result : results) {
+            try {
+                result.get(5, TimeUnit.SECONDS);
+                fail("Expected failure");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof HWException);
+            }
+        }
+        assertEquals(1, homeWizard.getRequests(PATH));
+
+        // The failed request is no longer in flight, the next request is performed again
+        homeWizard.respond(PATH, "{\"switches\":[]}");
+        connection.request(new Request(Request.Method.GET, 60000L, new Object[] {PATH}));
+        assertEquals(2, homeWizard.getRequests(PATH));
+    }
+
+    @Test
+    public void testBytesReceived() throws Exception {
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        connection.setMetrics(metrics);
+
+        // Counted in bytes of the body, not in characters of the trimmed response
+        String body = "{\"status\":\"ok\",\"response\":{\"name\":\"Caf\u00e9\"}}\n";
+        homeWizard.respondRaw(PATH, body);
+        connection.request(new Request(Request.Method.GET, 60000L, new Object[] {PATH}));
+        assertEquals(
+            body.getBytes(StandardCharsets.UTF_8).length,
+            metrics.getSnapshot(EndpointFamily.GET_SENSORS).getBytesReceived()
+        );
+    }
+
+    @Test
+    public void testCloseWaitsForAsyncCalls() throws Exception {
+        homeWizard.respond(PATH, "{\"switches\":[]}");
+        homeWizard.hold();
+        Future<JSONObject> result = connection.requestAsync(new Request(Request.Method.GET, 60000L, new Object[] {PATH}));
+        assertTrue(homeWizard.awaitRequests(1));
+
+        executor.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws InterruptedException {
+                Thread.sleep(100);
+                homeWizard.release();
+                return null;
+            }
+        });
+        connection.close();
+        assertTrue(result.isDone());
+        assertNotNull(result.get());
+    }
+
+    @Test
+    public void testCallbackCompleted() throws Exception {
+        homeWizard.respond(PATH, "{\"switches\":[]}");
+        RecordingCallback<JSONObject> callback = new RecordingCallback<>();
+        JSONObject result = connection.requestAsync(new Request(PATH), callback).get(5, TimeUnit.SECONDS);
+
+        assertSame(result, callback.result);
+        assertNull(callback.failure);
+    }
+
+    @Test
+    public void testCallbackFailed() throws Exception {
+        homeWizard.respondRaw(PATH, "{\"status\":\"error\",\"error\":1,\"errorMessage\":\"Incorrect password\"}");
+        RecordingCallback<JSONObject> callback = new RecordingCallback<>();
+        HWException failure = awaitFailure(connection.requestAsync(new Request(PATH), callback));
+
+        assertSame(failure, callback.failure);
+        assertNull(callback.result);
+    }
+
+    @Test
+    public void testUnexpectedFailureIsWrapped() throws Exception {
+        final IllegalStateException cause = new IllegalStateException("Unexpected");
+        RecordingCallback<Void> callback = new RecordingCallback<>();
+        HWException failure = awaitFailure(connection.submit(new Callable<Void>() {
+            @Override
+            public Void call() {
+                throw cause;
+            }
+        }, callback));
+
+        assertSame(cause, failure.getCause());
+        assertSame(failure, callback.failure);
+    }
+
+    @Test
+    public void testSubmitAfterClose() throws Exception {
+        homeWizard.respond(PATH, "{\"switches\":[]}");
+        connection.close();
+
+        // Fails without executing the call
+        RecordingCallback<JSONObject> callback = new RecordingCallback<>();
+        Future<JSONObject> result = connection.requestAsync(new Request(PATH), callback);
+        assertTrue(result.isDone());
+        assertSame(awaitFailure(result), callback.failure);
+
+        try {
+            connection.requestAll(Arrays.asList(new Request(PATH), new Request(PATH)));
+            fail("Expected failure");
+        } catch (HWException e) {
+            // Expected
+        }
+        assertEquals(0, homeWizard.getRequests(PATH));
+    }
+
+    private static HWException awaitFailure(Future<?> result) throws Exception {
+        try {
+            result.get(5, TimeUnit.SECONDS);
+            fail("Expected failure");
+            return null;
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof HWException);
+            return (HWException) e.getCause();
+        }
+    }
+
+    /**
+     * Performs the same cacheable request from several threads, while the HomeWizard holds the response until all
+     * threads joined the request in flight.
+     */
+    private List<Future<JSONObject>> requestConcurrently() throws Exception {
+        homeWizard.hold();
+        List<Future<JSONObject>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(new Callable<JSONObject>() {
+                @Override
+                public JSONObject call() throws HWException {
+                    return connection.request(new Request(Request.Method.GET, 60000L, new Object[] {PATH}));
+                }
+            }));
+        }
+
+        assertTrue(homeWizard.awaitRequests(1));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!Long.valueOf(CALLERS - 1).equals(connection.getCoalescedRequests().get(PATH))) {
+            assertTrue("Callers did not join the request in flight", System.currentTimeMillis() < deadline);
+            Thread.sleep(5);
+        }
+        homeWizard.release();
+        return results;
+    }
+
+    /**
+     * Callback remembering the result or failure it was notified of.
+     */
+    private static final class RecordingCallback<T> implements ResponseCallback<T> {
+
+        private volatile T result;
+        private volatile HWException failure;
+
+        @Override
+        public void completed(T result) {
+            this.result = result;
+        }
+
+        @Override
+        public void failed(HWException e) {
+            this.failure = e;
+        }
+
+    }
+
+}
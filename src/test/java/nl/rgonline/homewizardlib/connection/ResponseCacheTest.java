@@ -0,0 +1,77 @@
+package nl.rgonline.homewizardlib.connection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link ResponseCache}.
+ * @author pdegeus
+ */
+public class ResponseCacheTest {
+
+    @Test
+    public void testHitAndMiss() throws Exception {
+        ResponseCache cache = new ResponseCache(10, 1024);
+        cache.add("/a", json("data"), "data");
+
+        assertEquals("data", cache.get("/a", 1000).getString("value"));
+        assertNull(cache.get("/b", 1000));
+
+        CacheStats stats = cache.getStats();
+        assertEquals(1, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(8, stats.getBytes());
+    }
+
+    @Test
+    public void testExpiredEntryIsOnlyServedStale() throws Exception {
+        ResponseCache cache = new ResponseCache(10, 1024);
+        cache.add("/a", json("data"), "data");
+        Thread.sleep(5);
+
+        assertNull(cache.get("/a", 1));
+        assertEquals("data", cache.getStale("/a").getString("value"));
+        assertEquals(1, cache.getStats().getMisses());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() throws Exception {
+        ResponseCache cache = new ResponseCache(2, 1024);
+        cache.add("/a", json("a"), "a");
+        cache.add("/b", json("b"), "b");
+        cache.get("/a", 1000);
+        cache.add("/c", json("c"), "c");
+
+        assertEquals("a", cache.get("/a", 1000).getString("value"));
+        assertNull(cache.get("/b", 1000));
+        assertEquals("c", cache.get("/c", 1000).getString("value"));
+    }
+
+    @Test
+    public void testByteBudget() throws Exception {
+        ResponseCache cache = new ResponseCache(10, 10);
+        cache.add("/a", json("aaaa"), "aaaa");
+        cache.add("/b", json("bbbb"), "bbbb");
+
+        assertNull(cache.get("/a", 1000));
+        assertEquals(8, cache.getStats().getBytes());
+    }
+
+    @Test
+    public void testHitReturnsSameInstance() throws Exception {
+        ResponseCache cache = new ResponseCache(10, 1024);
+        JSONObject data = json("data");
+        cache.add("/a", data, "data");
+
+        assertSame(data, cache.get("/a", 1000));
+    }
+
+    private static JSONObject json(String value) throws Exception {
+        return new JSONObject().put("value", value);
+    }
+
+}
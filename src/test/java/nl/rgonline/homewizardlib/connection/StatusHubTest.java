@@ -0,0 +1,154 @@
+package nl.rgonline.homewizardlib.connection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import nl.rgonline.homewizardlib.exceptions.HWException;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link StatusHub}.
+ * @author pdegeus
+ */
+public class StatusHubTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private StubHomeWizard homeWizard;
+    private HWConnection connection;
+
+    @Before
+    public void setUp() throws Exception {
+        homeWizard = new StubHomeWizard();
+        homeWizard.respond(StatusHub.GET_STATUS, "{\"switches\":[]}");
+        connection = homeWizard.connect();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        connection.close();
+        homeWizard.close();
+    }
+
+    @Test
+    public void testSingleFetchPerCycle() throws Exception {
+        StatusHub hub = connection.getStatusHub();
+        CountingListener first = new CountingListener();
+        CountingListener second = new CountingListener();
+        hub.subscribe(StatusHub.GET_STATUS, first);
+        hub.subscribe(StatusHub.GET_STATUS, second);
+
+        JSONObject response = hub.getResponse(StatusHub.GET_STATUS, 60000);
+        assertTrue(response.has("switches"));
+        hub.refresh(StatusHub.GET_STATUS, 60000);
+        assertEquals("ok", hub.get(StatusHub.GET_STATUS, 60000).getString("status"));
+
+        assertEquals(1, homeWizard.getRequests(StatusHub.GET_STATUS));
+        assertEquals(1, first.calls.get());
+        assertEquals(1, second.calls.get());
+
+        // Forced fetch
+        hub.refresh(StatusHub.GET_STATUS, 0);
+        assertEquals(2, homeWizard.getRequests(StatusHub.GET_STATUS));
+        assertEquals(2, first.calls.get());
+        assertEquals(2, second.calls.get());
+    }
+
+    @Test
+    public void testListenerErrorsAreIsolated() throws Exception {
+        StatusHub hub = connection.getStatusHub();
+        hub.subscribe(StatusHub.GET_STATUS, new StatusListener() {
+            @Override
+            public void statusReceived(JSONObject response) {
+                throw new IllegalStateException("Listener bug");
+            }
+        });
+        hub.subscribe(StatusHub.GET_STATUS, new StatusListener() {
+            @Override
+            public void statusReceived(JSONObject response) throws HWException {
+                throw new HWException("Unexpected JSON");
+            }
+        });
+        CountingListener counting = new CountingListener();
+        hub.subscribe(StatusHub.GET_STATUS, counting);
+
+        // Neither error reaches the caller, nor prevents the last listener from being notified
+        hub.refresh(StatusHub.GET_STATUS, 0);
+        assertEquals(1, counting.calls.get());
+    }
+
+    @Test
+    public void testSlowListenerDoesNotBlockFetch() throws Exception {
+        final StatusHub hub = connection.getStatusHub();
+        final CountDownLatch notifying = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountingListener counting = new CountingListener();
+        hub.subscribe(StatusHub.GET_STATUS, new StatusListener() {
+            @Override
+            public void statusReceived(JSONObject response) {
+                if (counting.calls.get() == 0) {
+                    notifying.countDown();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        });
+        hub.subscribe(StatusHub.GET_STATUS, counting);
+
+        Future<?> slow = executor.submit(new Callable<Object>() {
+            @Override
+            public Object call() throws Exception {
+                hub.refresh(StatusHub.GET_STATUS, 0);
+                return null;
+            }
+        });
+        assertTrue(notifying.await(5, TimeUnit.SECONDS));
+
+        // Another fetch completes while the listener is busy
+        Future<?> fetch = executor.submit(new Callable<Object>() {
+            @Override
+            public Object call() throws Exception {
+                hub.refresh(StatusHub.GET_STATUS, 0);
+                return null;
+            }
+        });
+        fetch.get(5, TimeUnit.SECONDS);
+        assertEquals(2, homeWizard.getRequests(StatusHub.GET_STATUS));
+        assertEquals(0, counting.calls.get());
+
+        // The notifying thread delivers the newer snapshot as well
+        release.countDown();
+        slow.get(5, TimeUnit.SECONDS);
+        assertEquals(2, counting.calls.get());
+    }
+
+    /**
+     * Listener counting its calls.
+     */
+    private static final class CountingListener implements StatusListener {
+
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public void statusReceived(JSONObject response) {
+            calls.incrementAndGet();
+        }
+
+    }
+
+}
@@ -0,0 +1,108 @@
+package nl.rgonline.homewizardlib.connection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import nl.rgonline.homewizardlib.exceptions.HWException;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link StreamingResponseParser}, comparing the streamed items with the items parsed by org.json.
+ * @author pdegeus
+ */
+public class StreamingResponseParserTest {
+
+    private static final String ITEMS = "["
+        + "{\"id\":0,\"name\":\"Caf\\u00e9 \\\"Oost\\\"\",\"path\":\"a\\/b\\\\c\",\"note\":\"tab\\tnew\\nline\\u2603\"},"
+        + "{\"id\":1,\"t\":{\"te\":[1.5,-2.25,{\"min\":-0.5}],\"hu\":[]},\"tags\":[[\"x\"],[],{}],\"on\":true,\"off\":null},"
+        + "{\"id\":2,\"int\":42,\"neg\":-7,\"exp\":1e3,\"Exp\":2.5E-2,\"zero\":0,\"big\":12345678901}"
+        + "]";
+
+    @Test
+    public void testItemsMatchOrgJson() throws Exception {
+        String text = "{\"status\":\"ok\",\"version\":\"3.4\",\"request\":{\"route\":\"/te/graph\"},\"response\":" + ITEMS
+            + "}";
+        List<JSONObject> items = parse(text);
+        assertItems(new JSONObject(text).getJSONArray("response"), items);
+
+        assertEquals("Caf\u00e9 \"Oost\"", items.get(0).getString("name"));
+        assertEquals("a/b\\c", items.get(0).getString("path"));
+        assertEquals("tab\tnew\nline\u2603", items.get(0).getString("note"));
+        assertEquals(-0.5, items.get(1).getJSONObject("t").getJSONArray("te").getJSONObject(2).getDouble("min"), 0);
+        assertEquals(1000, items.get(2).getDouble("exp"), 0);
+        assertEquals(0.025, items.get(2).getDouble("Exp"), 0);
+        assertEquals(12345678901L, items.get(2).getLong("big"));
+    }
+
+    @Test
+    public void testStatusAfterResponse() throws Exception {
+        String text = "{ \"response\" : " + ITEMS + " ,\n \"status\" : \"ok\" }";
+        assertItems(new JSONObject(text).getJSONArray("response"), parse(text));
+    }
+
+    @Test
+    public void testEmptyResponse() throws Exception {
+        assertEquals(0, parse("{\"status\":\"ok\",\"response\":[]}").size());
+        assertEquals(0, parse("{\"status\":\"ok\"}").size());
+    }
+
+    @Test
+    public void testErrorStatus() {
+        assertFails("{\"status\":\"error\",\"error\":1,\"errorMessage\":\"Incorrect password\",\"response\":[]}");
+        assertFails("{\"response\":" + ITEMS + ",\"status\":\"error\"}");
+        assertFails("{\"response\":" + ITEMS + "}");
+        assertFails("{}");
+    }
+
+    @Test
+    public void testMalformed() {
+        assertFails("[]");
+        assertFails("{\"status\":\"ok\",\"response\":{\"id\":1}}");
+        assertFails("{\"status\":\"ok\",\"response\":[1,2]}");
+        assertFails("{\"status\":\"ok\" \"response\":[]}");
+        assertFails("{\"status\":\"ok\",\"response\":[{\"id\":1} {\"id\":2}]}");
+    }
+
+    @Test
+    public void testTruncated() {
+        String text = "{\"status\":\"ok\",\"response\":" + ITEMS + "}";
+        for (int length = 0; length < text.length(); length++) {
+            assertFails(text.substring(0, length));
+        }
+    }
+
+    private static List<JSONObject> parse(String text) throws HWException {
+        final List<JSONObject> items = new ArrayList<>();
+        StreamingResponseParser.parse(new StringReader(text), new ResponseItemHandler() {
+            @Override
+            public void handle(JSONObject item) {
+                items.add(item);
+            }
+        });
+        return items;
+    }
+
+    private static void assertItems(JSONArray expected, List<JSONObject> items) throws Exception {
+        assertEquals(expected.length(), items.size());
+        for (int i = 0; i < items.size(); i++) {
+            assertEquals(expected.getJSONObject(i).toString(), items.get(i).toString());
+        }
+    }
+
+    private static void assertFails(String text) {
+        try {
+            parse(text);
+            fail("Expected failure for: " + text);
+        } catch (HWException e) {
+            // Expected
+        }
+    }
+
+}
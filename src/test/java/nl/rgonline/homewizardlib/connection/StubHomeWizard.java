@@ -0,0 +1,167 @@
+package nl.rgonline.homewizardlib.connection;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local HTTP server standing in for a HomeWizard in tests. It serves fixed responses by path, counts the requests it
+ * receives, and can hold responses until released, so concurrent requests overlap.
+ * @author pdegeus
+ */
+public final class StubHomeWizard implements Closeable {
+
+    /** Password of the stub, the first path segment of all requests */
+    public static final String PASSWORD = "test";
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final ConcurrentMap<String, String> responses = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+    private final AtomicInteger received = new AtomicInteger();
+    private volatile CountDownLatch gate = new CountDownLatch(0);
+
+    /**
+     * Starts the stub on a free local port.
+     * @throws IOException If the server can not be started.
+     */
+    public StubHomeWizard() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                respond(exchange);
+            }
+        });
+        server.start();
+    }
+
+    /**
+     * @return Port the stub listens on.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * @return New connection to the stub. Must be closed by the caller.
+     */
+    public HWConnection connect() {
+        return new HWConnection("127.0.0.1", getPort(), PASSWORD);
+    }
+
+    /**
+     * Serves a response with an OK status.
+     * @param path Request path, without password, such as {@code /get-status}.
+     * @param response JSON of the 'response' field.
+     */
+    public void respond(String path, String response) {
+        respondRaw(path, "{\"status\":\"ok\",\"version\":\"3.4\",\"response\":" + response + "}");
+    }
+
+    /**
+     * Serves a raw response body.
+     * @param path Request path, without password.
+     * @param body Response body, or null to respond with a 404 status.
+     */
+    public void respondRaw(String path, String body) {
+        if (body == null) {
+            responses.remove(path);
+        } else {
+            responses.put(path, body);
+        }
+    }
+
+    /**
+     * Holds all responses until {@link #release()} is called.
+     */
+    public void hold() {
+        gate = new CountDownLatch(1);
+    }
+
+    /**
+     * Releases the held responses.
+     */
+    public void release() {
+        gate.countDown();
+    }
+
+    /**
+     * Waits until the given number of requests has been received in total.
+     * @param count Number of requests.
+     * @return True if received within a few seconds.
+     * @throws InterruptedException If interrupted.
+     */
+    public boolean awaitRequests(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (received.get() < count) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            Thread.sleep(5);
+        }
+        return true;
+    }
+
+    /**
+     * @param path Request path, without password.
+     * @return Number of requests received for the path.
+     */
+    public int getRequests(String path) {
+        AtomicInteger count = requests.get(path);
+        return (count == null) ? 0 : count.get();
+    }
+
+    private void respond(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getRawPath().substring(PASSWORD.length() + 1);
+        AtomicInteger count = requests.putIfAbsent(path, new AtomicInteger(1));
+        if (count != null) {
+            count.incrementAndGet();
+        }
+        received.incrementAndGet();
+
+        try {
+            gate.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        String body = responses.get(path);
+        try {
+            if (body == null) {
+                exchange.sendResponseHeaders(404, -1);
+            } else {
+                byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json; charset=UTF-8");
+                exchange.sendResponseHeaders(200, bytes.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(bytes);
+                }
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        gate.countDown();
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+}
@@ -0,0 +1,50 @@
+package nl.rgonline.homewizardlib.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the path mapping of {@link EndpointFamily}.
+ * @author pdegeus
+ */
+public class EndpointFamilyTest {
+
+    @Test
+    public void testForPath() {
+        assertEquals(EndpointFamily.GET_STATUS, EndpointFamily.forPath("/get-status"));
+        assertEquals(EndpointFamily.GET_SENSORS, EndpointFamily.forPath("/get-sensors"));
+        assertEquals(EndpointFamily.SWITCH_LIST, EndpointFamily.forPath("/swlist"));
+        assertEquals(EndpointFamily.SWITCH_COMMAND, EndpointFamily.forPath("/sw/3/on"));
+        assertEquals(EndpointFamily.SWITCH_COMMAND, EndpointFamily.forPath("/sw/dim/3/40"));
+        assertEquals(EndpointFamily.THERMO_LIST, EndpointFamily.forPath("/telist"));
+        assertEquals(EndpointFamily.CAMERA_COMMAND, EndpointFamily.forPath("/cam/0/up"));
+        assertEquals(EndpointFamily.TIMER_LIST, EndpointFamily.forPath("/timers"));
+        assertEquals(EndpointFamily.TIMER_COMMAND, EndpointFamily.forPath("/et/1/on"));
+        assertEquals(EndpointFamily.OTHER, EndpointFamily.forPath("/handshake"));
+        assertEquals(EndpointFamily.OTHER, EndpointFamily.forPath(""));
+    }
+
+    @Test
+    public void testSpecificPrefixesFirst() {
+        // Families sharing a prefix with a more generic family
+        assertEquals(EndpointFamily.THERMO_GRAPH, EndpointFamily.forPath("/te/graph/0/day"));
+        assertEquals(EndpointFamily.THERMO_COMMAND, EndpointFamily.forPath("/te/0/name"));
+        assertEquals(EndpointFamily.SENSOR_LOG, EndpointFamily.forPath("/kks/get/2/log"));
+        assertEquals(EndpointFamily.SENSOR_COMMAND, EndpointFamily.forPath("/kks/2/off"));
+        assertEquals(EndpointFamily.SCENE_DETAILS, EndpointFamily.forPath("/gp/get/1/switches"));
+        assertEquals(EndpointFamily.SCENE_COMMAND, EndpointFamily.forPath("/gp/1/on"));
+        assertEquals(EndpointFamily.SCENE_LIST, EndpointFamily.forPath("/gplist"));
+    }
+
+    @Test
+    public void testCommands() {
+        assertTrue(EndpointFamily.SWITCH_COMMAND.isCommand());
+        assertTrue(EndpointFamily.SCENE_COMMAND.isCommand());
+        assertFalse(EndpointFamily.SENSOR_LOG.isCommand());
+        assertFalse(EndpointFamily.OTHER.isCommand());
+    }
+
+}
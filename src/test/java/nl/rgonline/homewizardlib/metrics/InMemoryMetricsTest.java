@@ -0,0 +1,50 @@
+package nl.rgonline.homewizardlib.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link InMemoryMetrics}.
+ * @author pdegeus
+ */
+public class InMemoryMetricsTest {
+
+    @Test
+    public void testCounters() {
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        metrics.requestCompleted(EndpointFamily.GET_STATUS, 12);
+        metrics.requestFailed(EndpointFamily.GET_STATUS, 3000);
+        metrics.requestRejected(EndpointFamily.GET_STATUS);
+        metrics.bytesReceived(EndpointFamily.GET_STATUS, 2048);
+
+        EndpointMetrics status = metrics.getSnapshot(EndpointFamily.GET_STATUS);
+        assertEquals(1, status.getRequests());
+        assertEquals(1, status.getErrors());
+        assertEquals(1, status.getRejected());
+        assertEquals(2048, status.getBytesReceived());
+        assertEquals(2, status.getLatency().getCount());
+        assertEquals(3000, status.getLatency().getMax());
+    }
+
+    @Test
+    public void testSnapshotHoldsAllUsedFamilies() {
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        assertTrue(metrics.getSnapshot().isEmpty());
+
+        metrics.requestCompleted(EndpointFamily.GET_STATUS, 12);
+        metrics.cacheHit(EndpointFamily.THERMO_LIST);
+        metrics.cacheMiss(EndpointFamily.GET_SENSORS);
+        metrics.requestCoalesced(EndpointFamily.SENSOR_LOG);
+
+        Map<EndpointFamily, EndpointMetrics> snapshot = metrics.getSnapshot();
+        assertEquals(4, snapshot.size());
+        assertEquals(1, snapshot.get(EndpointFamily.THERMO_LIST).getCacheHits());
+        assertEquals(1, snapshot.get(EndpointFamily.GET_SENSORS).getCacheMisses());
+        assertEquals(1, snapshot.get(EndpointFamily.SENSOR_LOG).getCoalesced());
+    }
+
+}
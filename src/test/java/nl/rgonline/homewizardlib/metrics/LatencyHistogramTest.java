@@ -0,0 +1,67 @@
+package nl.rgonline.homewizardlib.metrics;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link LatencyHistogram}.
+ * @author pdegeus
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBucketBoundaries() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        // Bounds are inclusive: 1 ms goes into the first bucket, 2 ms into the second
+        for (long latency : new long[] {0, 1, 2, 3, 5, 6, 10000, 10001, 60000}) {
+            histogram.record(latency);
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        long[] counts = snapshot.getBucketCounts();
+        long[] bounds = snapshot.getBucketBounds();
+        assertEquals(bounds.length, counts.length);
+        assertEquals(2, counts[0]);
+        assertEquals(1, counts[1]);
+        assertEquals(2, counts[2]);
+        assertEquals(1, counts[3]);
+        assertEquals(1, counts[bounds.length - 2]);
+        assertEquals(2, counts[bounds.length - 1]);
+        assertEquals(9, snapshot.getCount());
+        assertEquals(60000, snapshot.getMax());
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 90; i++) {
+            histogram.record(8);
+        }
+        for (int i = 0; i < 9; i++) {
+            histogram.record(150);
+        }
+        histogram.record(700);
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(10, snapshot.getPercentile(0));
+        assertEquals(10, snapshot.getPercentile(50));
+        assertEquals(10, snapshot.getPercentile(90));
+        assertEquals(200, snapshot.getPercentile(91));
+        assertEquals(200, snapshot.getPercentile(99));
+
+        // The upper bound of the last bucket is capped at the maximum
+        assertEquals(700, snapshot.getPercentile(100));
+        assertEquals((90 * 8 + 9 * 150 + 700) / 100.0, snapshot.getMean(), 1e-9);
+    }
+
+    @Test
+    public void testEmpty() {
+        LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+        assertEquals(0, snapshot.getPercentile(50));
+        assertEquals(0, snapshot.getMean(), 0);
+        assertArrayEquals(new long[snapshot.getBucketBounds().length], snapshot.getBucketCounts());
+    }
+
+}
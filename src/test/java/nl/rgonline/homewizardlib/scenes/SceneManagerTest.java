@@ -0,0 +1,137 @@
+package nl.rgonline.homewizardlib.scenes;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import nl.rgonline.homewizardlib.connection.HWConnection;
+import nl.rgonline.homewizardlib.connection.StubHomeWizard;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link SceneManager}, against a {@link StubHomeWizard}.
+ * @author pdegeus
+ */
+public class SceneManagerTest {
+
+    private static final String SCENE_LIST = "["
+        + "{\"id\": 1, \"name\": \"Alle lampen\", \"favorite\": \"no\"},"
+        + "{\"id\": 2, \"name\": \"TestScene\", \"favorite\": \"yes\"},"
+        + "{\"id\": 3, \"name\": \"Avond\", \"favorite\": \"no\"}"
+        + "]";
+
+    private static final int SCENES = 3;
+
+    private ExecutorService executor;
+    private StubHomeWizard homeWizard;
+    private HWConnection connection;
+    private SceneManager manager;
+
+    @Before
+    public void setUp() throws Exception {
+        executor = Executors.newCachedThreadPool();
+        homeWizard = new StubHomeWizard();
+        homeWizard.respond("/gplist", SCENE_LIST);
+        for (int id = 1; id <= SCENES; id++) {
+            homeWizard.respond("/gp/get/" + id + "/codes", "[\"J" + id + "\"]");
+            homeWizard.respond("/gp/get/" + id + "/switches",
+                "[{\"type\": \"switch\", \"id\": 6, \"name\": \"Bijkeuken\", \"onstatus\": 1, \"offstatus\": 0}]");
+            homeWizard.respond("/gp/get/" + id + "/timers",
+                "[{\"id\": 0, \"action\": \"off\", \"trigger\": \"sunrise\", \"time\": \"-0\", \"days\": [0, 6],"
+                + " \"active\": \"yes\"}]");
+        }
+
+        connection = homeWizard.connect();
+        manager = new SceneManager(connection);
+        manager.init(false);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        connection.close();
+        homeWizard.close();
+    }
+
+    @Test
+    public void testPrefetchLoadsEachSceneOnce() throws Exception {
+        final HWScene scene = manager.get(1);
+
+        // A reader starts loading the first scene while the prefetch runs
+        homeWizard.hold();
+        Future<List<String>> codes = executor.submit(new Callable<List<String>>() {
+            @Override
+            public List<String> call() throws Exception {
+                return scene.getCodes();
+            }
+        });
+        assertTrue(homeWizard.awaitRequests(1 + 3));
+
+        Future<Integer> prefetched = executor.submit(new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                return manager.prefetchDetails();
+            }
+        });
+        // Requests of other scenes are held as well, so the prefetch is running
+        assertTrue(homeWizard.awaitRequests(1 + 3 + 1));
+        homeWizard.release();
+
+        assertEquals(Arrays.asList("J1"), codes.get(5, TimeUnit.SECONDS));
+        assertEquals(SCENES, prefetched.get(5, TimeUnit.SECONDS).intValue());
+        for (int id = 1; id <= SCENES; id++) {
+            assertEquals(1, homeWizard.getRequests("/gp/get/" + id + "/codes"));
+            assertEquals(1, homeWizard.getRequests("/gp/get/" + id + "/switches"));
+            assertEquals(1, homeWizard.getRequests("/gp/get/" + id + "/timers"));
+            assertTrue(manager.get(id).isInitialized());
+        }
+        assertEquals("Bijkeuken", manager.get(2).getSwitches().get(0).getName());
+        assertEquals(1, manager.get(3).getTimers().size());
+
+        // Nothing left to load
+        assertEquals(0, manager.prefetchDetails());
+        assertEquals(1, homeWizard.getRequests("/gp/get/1/codes"));
+    }
+
+    @Test
+    public void testRefreshInvalidatesChangedScenesOnly() throws Exception {
+        assertEquals(SCENES, manager.prefetchDetails());
+        HWScene unchanged = manager.get(1);
+        HWScene renamed = manager.get(2);
+
+        homeWizard.respond("/gplist", SCENE_LIST.replace("TestScene", "Renamed"));
+        manager.refresh();
+
+        assertSame(unchanged, manager.get(1));
+        assertSame(renamed, manager.get(2));
+        assertEquals("Renamed", renamed.getName());
+        assertTrue(unchanged.isInitialized());
+        assertFalse(renamed.isInitialized());
+        assertTrue(manager.get(3).isInitialized());
+
+        // Only the changed scene is loaded again
+        assertEquals(1, manager.prefetchDetails());
+        assertEquals(1, homeWizard.getRequests("/gp/get/1/codes"));
+        assertEquals(2, homeWizard.getRequests("/gp/get/2/codes"));
+        assertEquals(1, homeWizard.getRequests("/gp/get/3/codes"));
+        assertEquals(Arrays.asList("J2"), renamed.getCodes());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testDetailsCanNotBeModified() throws Exception {
+        manager.get(1).getCodes().add("J9");
+    }
+
+}
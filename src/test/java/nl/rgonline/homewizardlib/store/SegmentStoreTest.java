@@ -0,0 +1,207 @@
+package nl.rgonline.homewizardlib.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for the {@link SegmentStore}.
+ * @author pdegeus
+ */
+public class SegmentStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testAppendAndRead() throws IOException {
+        try (SegmentStore store = new SegmentStore(folder.getRoot(), 4, 10)) {
+            for (int i = 0; i < 35; i++) {
+                assertTrue(store.append(i * 100L, value(i)));
+            }
+            assertFalse(store.append(3400L, value(0)));
+
+            assertEquals(35, store.size());
+            assertEquals(4, store.getSegmentCount());
+            assertEquals(0L, store.getFirstTime());
+            assertEquals(3400L, store.getLastTime());
+
+            // Range spanning a segment boundary
+            List<Integer> values = read(store, 850, 2050);
+            assertEquals(12, values.size());
+            assertEquals(9, (int) values.get(0));
+            assertEquals(20, (int) values.get(11));
+            assertEquals(12, store.count(850, 2050));
+            assertEquals(0, store.count(5000, 6000));
+        }
+    }
+
+    @Test
+    public void testReopen() throws IOException {
+        try (SegmentStore store = new SegmentStore(folder.getRoot(), 4, 10)) {
+            for (int i = 0; i < 15; i++) {
+                store.append(i * 100L, value(i));
+            }
+        }
+
+        try (SegmentStore store = new SegmentStore(folder.getRoot(), 4, 10)) {
+            assertEquals(15, store.size());
+            store.append(1500L, value(15));
+            assertEquals(2, store.getSegmentCount());
+            assertEquals(16, read(store, Long.MIN_VALUE, Long.MAX_VALUE).size());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testOtherRecordSize() throws IOException {
+        try (SegmentStore store = new SegmentStore(folder.getRoot(), 4, 10)) {
+            store.append(0L, value(0));
+        }
+        new SegmentStore(folder.getRoot(), 8, 10);
+    }
+
+    @Test
+    public void testOpenedOnce() throws IOException {
+        try (SegmentStore store = new SegmentStore(folder.getRoot(), 4, 10)) {
+            store.append(0L, value(0));
+            try {
+                new SegmentStore(folder.getRoot(), 4, 10);
+                fail("Expected the second store to fail");
+            } catch (IOException e) {
+                // Expected, the directory is locked
+            }
+            assertTrue(store.append(100L, value(1)));
+        }
+
+        // Released on close
+        try (SegmentStore store = new SegmentStore(folder.getRoot(), 4, 10)) {
+            assertEquals(2, store.size());
+        }
+    }
+
+    @Test
+    public void testExpireAndCompact() throws IOException {
+        try (SegmentStore store = new SegmentStore(folder.getRoot(), 4, 10)) {
+            for (int i = 0; i < 35; i++) {
+                store.append(i * 100L, value(i));
+            }
+
+            // Only whole segments are dropped
+            assertEquals(10, store.expire(1500));
+            assertEquals(25, store.size());
+            assertEquals(1000L, store.getFirstTime());
+
+            assertEquals(5, store.compact(1500));
+            assertEquals(20, store.size());
+            assertEquals(2, store.getSegmentCount());
+            assertEquals(1500L, store.getFirstTime());
+            assertEquals(15, (int) read(store, Long.MIN_VALUE, Long.MAX_VALUE).get(0));
+
+            // Appending continues after compaction
+            store.append(3500L, value(35));
+            assertEquals(3, store.getSegmentCount());
+        }
+
+        try (SegmentStore store = new SegmentStore(folder.getRoot(), 4, 10)) {
+            assertEquals(21, store.size());
+            assertEquals(35, (int) read(store, 3500, 3600).get(0));
+        }
+    }
+
+    @Test
+    public void testInterruptedCompaction() throws IOException {
+        try (SegmentStore store = new SegmentStore(folder.getRoot(), 4, 10)) {
+            for (int i = 0; i < 15; i++) {
+                store.append(i * 100L, value(i));
+            }
+        }
+
+        // Segments written by a compaction that did not complete are rolled back
+        assertTrue(new File(folder.getRoot(), "0000000099.seg.compact").createNewFile());
+        try (SegmentStore store = new SegmentStore(folder.getRoot(), 4, 10)) {
+            assertEquals(15, store.size());
+        }
+        assertFalse(new File(folder.getRoot(), "0000000099.seg.compact").exists());
+    }
+
+    @Test
+    public void testInterruptedCompactionRename() throws IOException {
+        File root = folder.newFolder("store");
+        try (SegmentStore store = new SegmentStore(root, 4, 10)) {
+            for (int i = 0; i < 25; i++) {
+                store.append(i * 100L, value(i));
+            }
+        }
+
+        // Write the segments a compaction of the store would produce, numbered after the old segments
+        File compacted = folder.newFolder("compacted");
+        try (SegmentStore store = new SegmentStore(compacted, 4, 10)) {
+            for (int i = 0; i < 30; i++) {
+                store.append(i - 30L, value(-1));
+            }
+            store.expire(0);
+            for (int i = 0; i < 25; i++) {
+                store.append(i * 100L, value(i));
+            }
+        }
+
+        // Interrupted after deleting the old segments and renaming the first new one
+        for (int i = 0; i < 3; i++) {
+            assertTrue(new File(root, String.format("%010d.seg", i)).delete());
+        }
+        copy(compacted, "0000000003.seg", root, "0000000003.seg");
+        copy(compacted, "0000000004.seg", root, "0000000004.seg.compact");
+        copy(compacted, "0000000005.seg", root, "0000000005.seg.compact");
+        Files.write(new File(root, "compact.done").toPath(), "3".getBytes(StandardCharsets.US_ASCII));
+
+        // The compaction is completed, keeping the renamed segment
+        try (SegmentStore store = new SegmentStore(root, 4, 10)) {
+            assertEquals(25, store.size());
+            assertEquals(3, store.getSegmentCount());
+            List<Integer> values = read(store, Long.MIN_VALUE, Long.MAX_VALUE);
+            assertEquals(0, (int) values.get(0));
+            assertEquals(24, (int) values.get(24));
+        }
+        assertFalse(new File(root, "compact.done").exists());
+        assertFalse(new File(root, "0000000004.seg.compact").exists());
+    }
+
+    private static void copy(File fromDirectory, String fromName, File toDirectory, String toName)
+        throws IOException {
+        Files.copy(new File(fromDirectory, fromName).toPath(), new File(toDirectory, toName).toPath());
+    }
+
+    private static RecordWriter value(final int value) {
+        return new RecordWriter() {
+            @Override
+            public void write(ByteBuffer buffer, int offset) {
+                buffer.putInt(offset, value);
+            }
+        };
+    }
+
+    private static List<Integer> read(SegmentStore store, long from, long to) {
+        final List<Integer> values = new ArrayList<>();
+        store.read(from, to, new RecordReader() {
+            @Override
+            public void read(long time, ByteBuffer buffer, int offset) {
+                values.add(buffer.getInt(offset));
+            }
+        });
+        return values;
+    }
+
+}
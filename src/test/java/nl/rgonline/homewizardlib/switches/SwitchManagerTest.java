@@ -0,0 +1,150 @@
+package nl.rgonline.homewizardlib.switches;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import nl.rgonline.homewizardlib.HWChangeEvent;
+import nl.rgonline.homewizardlib.HWChangeListener;
+import nl.rgonline.homewizardlib.HWChangeType;
+import nl.rgonline.homewizardlib.RefreshResult;
+import nl.rgonline.homewizardlib.connection.HWConnection;
+import nl.rgonline.homewizardlib.util.HueColor;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link SwitchManager}, using canned responses.
+ * @author pdegeus
+ */
+public class SwitchManagerTest {
+
+    private static final String SWITCH_LIST = "{\"status\": \"ok\", \"response\": ["
+        + "{\"id\": 5, \"name\": \"TestDim\", \"type\": \"dimmer\", \"status\": \"off\", \"dimlevel\": 0, \"favorite\": \"yes\"},"
+        + "{\"id\": 6, \"name\": \"Bijkeuken\", \"type\": \"switch\", \"status\": \"off\", \"favorite\": \"no\"},"
+        + "{\"id\": 7, \"name\": \"TV kast\", \"type\": \"hue\", \"status\": \"on\", \"hue_id\": 0, \"light_id\": 3,"
+        + " \"color\": {\"hue\": 76, \"sat\": 92, \"bri\": 79}, \"favorite\": \"no\"}"
+        + "]}";
+
+    private HWConnection connection;
+    private SwitchManager manager;
+
+    @Before
+    public void setUp() throws Exception {
+        connection = new HWConnection("localhost", 80, "test");
+        manager = new SwitchManager(connection);
+        manager.loadSwitches(new JSONObject(SWITCH_LIST));
+    }
+
+    @After
+    public void tearDown() {
+        connection.close();
+    }
+
+    @Test
+    public void testChangesAreReported() throws Exception {
+        final List<HWChangeEvent<HWSwitch>> events = new ArrayList<>();
+        manager.addChangeListener(new HWChangeListener<HWSwitch>() {
+            @Override
+            public void changed(HWChangeEvent<HWSwitch> event) {
+                events.add(event);
+            }
+        });
+
+        manager.applyStatus(status("off", 40, "off", "on", 80));
+
+        assertEquals(2, events.size());
+        assertEquals(HWChangeType.DIM_LEVEL, events.get(0).getType());
+        assertEquals(0, events.get(0).getOldValue());
+        assertEquals(40, events.get(0).getNewValue());
+        assertEquals(HWChangeType.COLOR, events.get(1).getType());
+        assertEquals(new HueColor(80, 92, 79), events.get(1).getNewValue());
+        assertEquals(80, ((HWHueBulb) manager.getEntityMap().get(7)).getColor().getHue());
+
+        events.clear();
+        manager.applyStatus(status("on", 40, "off", "on", 80));
+
+        assertEquals(1, events.size());
+        assertEquals(HWChangeType.SWITCH_ON, events.get(0).getType());
+        assertEquals(5, events.get(0).getEntity().getId());
+        assertTrue(manager.getEntityMap().get(5).isOn());
+    }
+
+    @Test
+    public void testVersionChangesOnlyOnChange() throws Exception {
+        assertEquals(1, manager.getVersion());
+        Map<Integer, HWSwitch> entities = manager.getEntityMap();
+
+        manager.applyStatus(status("off", 0, "off", "on", 76));
+        assertEquals(1, manager.getVersion());
+
+        manager.applyStatus(status("off", 0, "on", "on", 76));
+        assertEquals(2, manager.getVersion());
+        assertSame(entities, manager.getEntityMap());
+
+        manager.loadSwitches(new JSONObject(SWITCH_LIST));
+        assertEquals(3, manager.getVersion());
+    }
+
+    @Test
+    public void testReloadKeepsInstances() throws Exception {
+        HWSwitch dimmer = manager.getEntityMap().get(5);
+        HWSwitch hue = manager.getEntityMap().get(7);
+
+        RefreshResult<HWSwitch> result = manager.loadSwitches(new JSONObject(SWITCH_LIST
+            .replace("TestDim", "Dimmer")
+            .replace("{\"id\": 6, \"name\": \"Bijkeuken\"", "{\"id\": 8, \"name\": \"Garage\"")
+        ));
+
+        assertSame(dimmer, manager.getEntityMap().get(5));
+        assertSame(hue, manager.getEntityMap().get(7));
+        assertEquals("Dimmer", dimmer.getName());
+
+        assertEquals(1, result.getAdded().size());
+        assertEquals(8, result.getAdded().get(0).getId());
+        assertEquals(1, result.getRemoved().size());
+        assertEquals(6, result.getRemoved().get(0).getId());
+        assertEquals(1, result.getChanged().size());
+        assertSame(dimmer, result.getChanged().get(0));
+
+        RefreshResult<HWSwitch> unchanged = manager.loadSwitches(new JSONObject(SWITCH_LIST
+            .replace("TestDim", "Dimmer")
+            .replace("{\"id\": 6, \"name\": \"Bijkeuken\"", "{\"id\": 8, \"name\": \"Garage\"")
+        ));
+        assertFalse(unchanged.hasChanges());
+        assertEquals(2, manager.getVersion());
+    }
+
+    private static JSONObject status(String dimmer, int dimLevel, String plain, String hue, int color) throws Exception {
+        return new JSONObject("{\"switches\": ["
+            + "{\"id\": 5, \"type\": \"dimmer\", \"status\": \"" + dimmer + "\", \"dimlevel\": " + dimLevel + "},"
+            + "{\"id\": 6, \"type\": \"switch\", \"status\": \"" + plain + "\"},"
+            + "{\"id\": 7, \"type\": \"hue\", \"status\": \"" + hue + "\", \"color\": {\"hue\": " + color + ", \"sat\": 92, \"bri\": 79}}"
+            + "]}");
+    }
+
+    @Test
+    public void testStateRoundTrip() throws Exception {
+        manager.applyStatus(status("on", 40, "off", "on", 80));
+
+        SwitchManager restored = new SwitchManager(connection);
+        restored.readState(new JSONObject(manager.writeState().toString()));
+
+        Map<Integer, HWSwitch> switches = restored.getEntityMap();
+        assertEquals(3, switches.size());
+        assertTrue(switches.get(5).isOn());
+        assertEquals(40, ((HWDimmer) switches.get(5)).getDimLevel());
+        assertTrue(switches.get(5).isFavorite());
+        assertEquals("Bijkeuken", switches.get(6).getName());
+        assertEquals(new HueColor(80, 92, 79), ((HWHueBulb) switches.get(7)).getColor());
+    }
+
+}
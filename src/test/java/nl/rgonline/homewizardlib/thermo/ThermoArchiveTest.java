@@ -0,0 +1,115 @@
+package nl.rgonline.homewizardlib.thermo;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+
+import nl.rgonline.homewizardlib.exceptions.HWException;
+import nl.rgonline.homewizardlib.store.SegmentStore;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for the {@link ThermoArchive}.
+ * @author pdegeus
+ */
+public class ThermoArchiveTest {
+
+    private static final long QUARTER = 15 * 60 * 1000L;
+    private static final long DAY = 96 * QUARTER;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testMergeAppendsNewPointsOnly() throws HWException {
+        ThermoArchive archive = new ThermoArchive(7 * DAY);
+
+        assertEquals(96, archive.merge(day(0)));
+        assertEquals(95 * QUARTER, archive.getLastTime());
+
+        // The next day graph overlaps the first one for 20 hours
+        assertEquals(16, archive.merge(day(16)));
+        assertEquals(112, archive.size());
+        assertEquals(0, archive.merge(day(16)));
+
+        ThermoSeries series = archive.getSeries();
+        for (int i = 0; i < series.size(); i++) {
+            assertEquals(i * QUARTER, series.getTime(i));
+            assertEquals(i, series.getHumidity(i));
+        }
+    }
+
+    @Test
+    public void testRetention() throws HWException {
+        ThermoArchive archive = new ThermoArchive(2 * DAY);
+        for (int day = 0; day < 30; day++) {
+            archive.merge(day(day * 96));
+        }
+
+        // Points up to the retention period before the newest point are kept
+        ThermoSeries series = archive.getSeries();
+        assertEquals(2 * 96 + 1, series.size());
+        assertEquals(archive.getLastTime() - 2 * DAY, series.getTime(0));
+        assertEquals(30 * DAY - QUARTER, archive.getLastTime());
+    }
+
+    @Test
+    public void testStored() throws HWException, IOException {
+        try (SegmentStore store = new SegmentStore(folder.getRoot(), ThermoArchive.PAYLOAD_SIZE, 100)) {
+            ThermoArchive archive = new ThermoArchive(2 * DAY, store);
+            for (int day = 0; day < 10; day++) {
+                archive.merge(day(day * 96));
+            }
+
+            // Expired points are hidden, and dropped a segment at a time
+            assertEquals(2 * 96 + 1, archive.size());
+            assertEquals(archive.getLastTime() - 2 * DAY, archive.getSeries().getTime(0));
+            assertEquals(3, store.getSegmentCount());
+        }
+
+        try (SegmentStore store = new SegmentStore(folder.getRoot(), ThermoArchive.PAYLOAD_SIZE, 100)) {
+            ThermoArchive archive = new ThermoArchive(2 * DAY, store);
+            assertEquals(10 * DAY - QUARTER, archive.getLastTime());
+            assertEquals(96, archive.merge(day(10 * 96)));
+
+            ThermoSeries range = archive.getSeries(10 * DAY, 10 * DAY + 4 * QUARTER);
+            assertEquals(4, range.size());
+            assertEquals(10 * 96, range.getHumidity(0));
+            assertEquals(15.0, range.getTemperature(0), 0.0001);
+        }
+    }
+
+    @Test
+    public void testRange() throws HWException {
+        ThermoArchive archive = new ThermoArchive(7 * DAY);
+        archive.merge(day(0));
+
+        ThermoSeries range = archive.getSeries(10 * QUARTER, 20 * QUARTER);
+        assertEquals(10, range.size());
+        assertEquals(10 * QUARTER, range.getTime(0));
+        assertEquals(19 * QUARTER, range.getTime(9));
+
+        assertEquals(0, archive.getSeries(DAY, 2 * DAY).size());
+        assertEquals(96, archive.getSeries(-DAY, DAY).size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMinMaxRejected() throws HWException {
+        new ThermoArchive(DAY).merge(new ThermoSeries.Builder().add(0, 10.0, 12.0, 50, 60).build());
+    }
+
+    /**
+     * Creates a day graph of 96 quarters, starting at the given quarter. The humidity is the quarter number.
+     */
+    private static ThermoSeries day(int firstQuarter) {
+        ThermoSeries.Builder builder = new ThermoSeries.Builder();
+        for (int i = firstQuarter; i < firstQuarter + 96; i++) {
+            builder.add(i * QUARTER, 15.0, i);
+        }
+        return builder.build();
+    }
+
+}
@@ -0,0 +1,145 @@
+package nl.rgonline.homewizardlib.thermo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+
+import org.json.JSONException;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link ThermoRollup}.
+ * @author pdegeus
+ */
+public class ThermoRollupTest {
+
+    private static final long QUARTER = 15 * 60 * 1000L;
+    private static final long DAY = 96 * QUARTER;
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    @Test
+    public void testHourlyBuckets() {
+        ThermoRollup rollup = new ThermoRollup(RollupResolution.HOUR, UTC, 7 * DAY);
+        for (int i = 0; i < 8; i++) {
+            rollup.add(i * QUARTER, 10.0 + i, 40 + i);
+        }
+
+        RollupSeries series = rollup.getSeries(Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals(2, series.size());
+        assertEquals(4 * QUARTER, series.getTime(1));
+        assertEquals(4, series.getCount(1));
+        assertEquals(14.0, series.getMinTemperature(1), 0.0001);
+        assertEquals(17.0, series.getMaxTemperature(1), 0.0001);
+        assertEquals(15.5, series.getAverageTemperature(1), 0.0001);
+        assertEquals(44, series.getMinHumidity(1));
+        assertEquals(47, series.getMaxHumidity(1));
+        assertEquals(45.5, series.getAverageHumidity(1), 0.0001);
+
+        // Late points update their own bucket
+        rollup.add(QUARTER, 30.0, 40);
+        series = rollup.getSeries(Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals(5, series.getCount(0));
+        assertEquals(30.0, series.getMaxTemperature(0), 0.0001);
+    }
+
+    @Test
+    public void testLocalAlignment() {
+        TimeZone amsterdam = TimeZone.getTimeZone("Europe/Amsterdam");
+        ThermoRollup daily = new ThermoRollup(RollupResolution.DAY, amsterdam, 30 * DAY);
+        ThermoRollup weekly = new ThermoRollup(RollupResolution.WEEK, amsterdam, 30 * DAY);
+
+        // Wednesday 2013-08-14, 00:00 - 23:45 local time
+        Calendar calendar = new GregorianCalendar(amsterdam);
+        calendar.clear();
+        calendar.set(2013, Calendar.AUGUST, 14);
+        long midnight = calendar.getTimeInMillis();
+        for (int i = 0; i < 96; i++) {
+            daily.add(midnight + i * QUARTER, 20.0, 50);
+            weekly.add(midnight + i * QUARTER, 20.0, 50);
+        }
+
+        RollupSeries days = daily.getSeries(Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals(1, days.size());
+        assertEquals(midnight, days.getTime(0));
+        assertEquals(96, days.getCount(0));
+
+        RollupSeries weeks = weekly.getSeries(Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals(1, weeks.size());
+        assertEquals(midnight - 2 * DAY, weeks.getTime(0));
+    }
+
+    @Test
+    public void testRetention() {
+        ThermoRollup rollup = new ThermoRollup(RollupResolution.DAY, UTC, 10 * DAY);
+        for (long time = 0; time < 100 * DAY; time += QUARTER) {
+            rollup.add(time, 20.0, 50);
+        }
+
+        assertEquals(11, rollup.size());
+        assertEquals(89 * DAY, rollup.getCoveredFrom());
+        assertEquals(5, rollup.getSeries(95 * DAY, Long.MAX_VALUE).size());
+    }
+
+    @Test
+    public void testIncrementalMatchesBatch() {
+        ThermoSeries.Builder builder = new ThermoSeries.Builder();
+        for (int i = 0; i < 1000; i++) {
+            builder.add(i * QUARTER, Math.sin(i / 10.0) * 10, 50 + i % 20);
+        }
+        ThermoSeries series = builder.build();
+
+        ThermoRollup batch = new ThermoRollup(RollupResolution.DAY, UTC, 30 * DAY);
+        batch.add(series);
+
+        ThermoRollup incremental = new ThermoRollup(RollupResolution.DAY, UTC, 30 * DAY);
+        for (int i = 0; i < series.size(); i++) {
+            incremental.add(series.getTime(i), series.getTemperature(i), series.getHumidity(i));
+        }
+
+        assertSame(batch.getSeries(Long.MIN_VALUE, Long.MAX_VALUE), incremental.getSeries(0, Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testBucketsRoundTrip() throws JSONException {
+        ThermoRollup rollup = new ThermoRollup(RollupResolution.HOUR, UTC, 7 * DAY);
+        for (int i = 0; i < 100; i++) {
+            rollup.add(i * QUARTER, 10.0 + i % 7, 40 + i % 9);
+        }
+
+        ThermoRollup restored = new ThermoRollup(RollupResolution.HOUR, UTC, 7 * DAY);
+        assertTrue(restored.readBuckets(rollup.writeBuckets()));
+        assertEquals(rollup.getCoveredFrom(), restored.getCoveredFrom());
+        assertSame(rollup.getSeries(0, Long.MAX_VALUE), restored.getSeries(0, Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testBucketsOfOtherZoneRejected() throws JSONException {
+        ThermoRollup rollup = new ThermoRollup(RollupResolution.DAY, UTC, 7 * DAY);
+        rollup.add(DAY, 20.0, 50);
+
+        // Day buckets aligned to another zone can not be reused
+        TimeZone amsterdam = TimeZone.getTimeZone("Europe/Amsterdam");
+        ThermoRollup restored = new ThermoRollup(RollupResolution.DAY, amsterdam, 7 * DAY);
+        assertFalse(restored.readBuckets(rollup.writeBuckets()));
+        assertTrue(new ThermoRollup(RollupResolution.DAY, UTC, 7 * DAY).readBuckets(rollup.writeBuckets()));
+    }
+
+    private static void assertSame(RollupSeries expected, RollupSeries actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.getTime(i), actual.getTime(i));
+            assertEquals(expected.getCount(i), actual.getCount(i));
+            assertEquals(expected.getMinTemperature(i), actual.getMinTemperature(i), 0.0001);
+            assertEquals(expected.getMaxTemperature(i), actual.getMaxTemperature(i), 0.0001);
+            assertEquals(expected.getAverageTemperature(i), actual.getAverageTemperature(i), 0.0001);
+            assertEquals(expected.getMinHumidity(i), actual.getMinHumidity(i));
+            assertEquals(expected.getMaxHumidity(i), actual.getMaxHumidity(i));
+            assertEquals(expected.getAverageHumidity(i), actual.getAverageHumidity(i), 0.0001);
+        }
+    }
+
+}
@@ -0,0 +1,63 @@
+package nl.rgonline.homewizardlib.thermo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link ThermoSeries}.
+ * @author pdegeus
+ */
+public class ThermoSeriesTest {
+
+    @Test
+    public void testSingleValues() {
+        ThermoSeries.Builder builder = new ThermoSeries.Builder();
+        for (int i = 0; i < 100; i++) {
+            builder.add(i * 900000L, 15.0 + i / 10.0, 50 + i);
+        }
+        ThermoSeries series = builder.build();
+
+        assertEquals(100, series.size());
+        assertFalse(series.isMinMax());
+        assertEquals(99 * 900000L, series.getTime(99));
+        assertEquals(16.0, series.getTemperature(10), 0.0001);
+        assertEquals(16.0, series.getMaxTemperature(10), 0.0001);
+        assertEquals(60, series.getHumidity(10));
+
+        List<TimeValue<Double>> temperatures = series.temperatureList();
+        assertEquals(100, temperatures.size());
+        assertEquals(900000L, temperatures.get(1).getTimestamp().getTime());
+        assertTrue(temperatures.get(1).isSingleValue());
+        assertNull(series.humidityList().get(1).getMaxValue());
+    }
+
+    @Test
+    public void testMinMaxValues() {
+        ThermoSeries series = new ThermoSeries.Builder()
+            .add(0, 10.5, 20.5, 40, 70)
+            .add(86400000L, 11.5, 21.5, 41, 71)
+            .build();
+
+        assertTrue(series.isMinMax());
+        assertEquals(21.5, series.getMaxTemperature(1), 0.0001);
+        assertEquals(41, series.getHumidity(1));
+        assertEquals(Integer.valueOf(71), series.humidityList().get(1).getMaxValue());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testShapesCanNotBeMixed() {
+        new ThermoSeries.Builder().add(0, 10.5, 40).add(1, 10.5, 20.5, 40, 70);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testIndexIsChecked() {
+        new ThermoSeries.Builder().add(0, 10.5, 40).build().getTime(1);
+    }
+
+}
@@ -0,0 +1,73 @@
+package nl.rgonline.homewizardlib.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link TimestampParser}.
+ * @author pdegeus
+ */
+public class TimestampParserTest {
+
+    @Test
+    public void testUtc() throws ParseException {
+        TimestampParser parser = new TimestampParser(TimeZone.getTimeZone("UTC"));
+
+        assertEquals(0L, parser.parse("1970-01-01 00:00"));
+        assertEquals(1376429159000L, parser.parse("2013-08-13 21:25:59"));
+        assertEquals(951782400000L, parser.parse("2000-02-29 00:00:00"));
+    }
+
+    @Test
+    public void testMatchesSimpleDateFormat() throws ParseException {
+        // Every quarter of an hour of a year, including both daylight saving time transitions
+        for (String id : new String[] {"Europe/Amsterdam", "America/New_York", "Australia/Sydney"}) {
+            TimeZone timeZone = TimeZone.getTimeZone(id);
+            TimestampParser parser = new TimestampParser(timeZone);
+            SimpleDateFormat minutes = new SimpleDateFormat("yyyy-MM-dd HH:mm");
+            SimpleDateFormat seconds = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+            minutes.setTimeZone(timeZone);
+            seconds.setTimeZone(timeZone);
+
+            Calendar calendar = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
+            calendar.clear();
+            calendar.set(2013, Calendar.JANUARY, 1);
+            SimpleDateFormat local = new SimpleDateFormat("yyyy-MM-dd HH:mm");
+            local.setTimeZone(TimeZone.getTimeZone("UTC"));
+            while (calendar.get(Calendar.YEAR) == 2013) {
+                String text = local.format(calendar.getTime());
+                assertEquals(id + " " + text, minutes.parse(text).getTime(), parser.parse(text));
+                assertEquals(id + " " + text, seconds.parse(text + ":59").getTime(), parser.parse(text + ":59"));
+                calendar.add(Calendar.MINUTE, 15);
+            }
+        }
+    }
+
+    @Test
+    public void testInvalid() {
+        TimestampParser parser = new TimestampParser(TimeZone.getTimeZone("UTC"));
+        String[] invalid = {
+            "", "2013-08-13", "2013-08-13 21:2", "2013-08-13 21:25:5", "2013/08/13 21:25", "2013-08-13T21:25",
+            "2013-0a-13 21:25", "2013-13-01 00:00", "2013-00-01 00:00", "2013-02-29 00:00", "2013-04-31 00:00",
+            "2013-08-13 24:00", "2013-08-13 21:60", "2013-08-13 21:25:60", "2013-08-13 21:25-00"
+        };
+
+        for (String text : invalid) {
+            try {
+                parser.parse(text);
+                fail("Expected ParseException for \"" + text + "\"");
+            } catch (ParseException e) {
+                // Expected
+            }
+        }
+    }
+
+}